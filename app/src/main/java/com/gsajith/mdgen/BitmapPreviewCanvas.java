@@ -0,0 +1,144 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.PreviewCanvas;
+
+/**
+ * {@link PreviewCanvas} that draws into a {@link Bitmap} through a software {@link Canvas}. Each
+ * instance reuses its paints and path across draws, so it must stay on one thread.
+ */
+final class BitmapPreviewCanvas implements PreviewCanvas {
+    private static final int SHADOW_COLOR = 0x44000000;
+
+    private final Canvas canvas = new Canvas();
+    private final Paint fillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint strokePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint shadowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+    private final RectF rect = new RectF();
+
+    BitmapPreviewCanvas() {
+        strokePaint.setStyle(Paint.Style.STROKE);
+        shadowPaint.setColor(Color.BLACK);
+    }
+
+    /** Directs the following draws to {@code bitmap}, or detaches the canvas if null. */
+    void setBitmap(Bitmap bitmap) {
+        canvas.setBitmap(bitmap);
+    }
+
+    @Override
+    public void fillRect(float left, float top, float right, float bottom, int color) {
+        fillPaint.setColor(color);
+        canvas.drawRect(left, top, right, bottom, fillPaint);
+    }
+
+    @Override
+    public void fillShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, int color) {
+        fillPaint.setColor(color);
+        canvas.drawPath(shape(left, top, right, bottom, cornerFamily, cornerSize), fillPaint);
+    }
+
+    @Override
+    public void strokeShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, float strokeWidth, int color) {
+        // Inset by half the stroke so it stays inside the shape, like a MaterialButton stroke
+        float inset = strokeWidth / 2;
+        strokePaint.setColor(color);
+        strokePaint.setStrokeWidth(strokeWidth);
+        canvas.drawPath(shape(left + inset, top + inset, right - inset, bottom - inset,
+                cornerFamily, cornerSize - inset), strokePaint);
+    }
+
+    @Override
+    public void fillCircle(float centerX, float centerY, float radius, int color) {
+        fillPaint.setColor(color);
+        canvas.drawCircle(centerX, centerY, radius, fillPaint);
+    }
+
+    @Override
+    public void drawShadow(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, float elevation) {
+        if (elevation <= 0) {
+            return;
+        }
+        // Paints the shape in black with a shadow layer; callers cover the shape right after
+        shadowPaint.setShadowLayer(elevation, 0, elevation / 2, SHADOW_COLOR);
+        canvas.drawPath(shape(left, top, right, bottom, cornerFamily, cornerSize), shadowPaint);
+    }
+
+    @Override
+    public void clipShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize) {
+        canvas.save();
+        canvas.clipPath(shape(left, top, right, bottom, cornerFamily, cornerSize));
+    }
+
+    @Override
+    public void restore() {
+        canvas.restore();
+    }
+
+    @Override
+    public float measureText(String text, float textSize, float letterSpacing) {
+        textPaint.setTextSize(textSize);
+        textPaint.setLetterSpacing(letterSpacing);
+        return textPaint.measureText(text);
+    }
+
+    @Override
+    public void drawText(String text, float x, float baseline, float textSize,
+            float letterSpacing, int color) {
+        textPaint.setTextSize(textSize);
+        textPaint.setLetterSpacing(letterSpacing);
+        textPaint.setColor(color);
+        canvas.drawText(text, x, baseline, textPaint);
+    }
+
+    private Path shape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize) {
+        float corner = Math.max(0, Math.min(cornerSize,
+                Math.min(right - left, bottom - top) / 2));
+        path.rewind();
+        if (cornerFamily == MaterialTheme.CORNER_CUT && corner > 0) {
+            path.moveTo(left + corner, top);
+            path.lineTo(right - corner, top);
+            path.lineTo(right, top + corner);
+            path.lineTo(right, bottom - corner);
+            path.lineTo(right - corner, bottom);
+            path.lineTo(left + corner, bottom);
+            path.lineTo(left, bottom - corner);
+            path.lineTo(left, top + corner);
+            path.close();
+        } else {
+            rect.set(left, top, right, bottom);
+            path.addRoundRect(rect, corner, corner, Path.Direction.CW);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import java.util.Arrays;
+
+import static com.gsajith.mdgen.TransitionPlan.COLOR_CHANNELS;
+import static com.gsajith.mdgen.TransitionPlan.FAB_OFFSET;
+import static com.gsajith.mdgen.TransitionPlan.SCALAR_CHANNELS;
+
+/**
+ * When and how each channel of a {@link TransitionPlan} moves: a start delay, duration and easing
+ * curve per channel, plus cues for discrete work such as showing the bottom app bar.
+ *
+ * <p>A choreography is described with a {@link Builder}, which selects channels and then sets
+ * their timing, for example:
+ * <pre>
+ * new Choreography.Builder(300, ACCELERATE_DECELERATE)
+ *         .colors(PRIMARY, SECONDARY, SURFACE).stagger(40)
+ *         .scalars(FAB_OFFSET).whenRising().delay(175)
+ *         .cueAtEnd(SHOW_BOTTOM_APP_BAR)
+ *         .build();
+ * </pre>
+ * Scalar channels can be timed differently depending on whether their value rises or falls, so a
+ * component can leave and enter on different schedules. Each plan {@linkplain #compile compiles}
+ * the choreography into a flat keyframe array, one {@link #KEYFRAME_STRIDE}-float keyframe per
+ * track, which {@link ThemeTransitionDriver} evaluates against a single clock.
+ */
+final class Choreography {
+    // Easing curves, matching the platform interpolators with their default factors
+    static final int LINEAR = 0;
+    static final int ACCELERATE = 1;
+    static final int DECELERATE = 2;
+    static final int ACCELERATE_DECELERATE = 3;
+
+    /** Scalar channels are tracks 0 to {@code SCALAR_CHANNELS - 1}; colors follow them. */
+    static final int TRACKS = SCALAR_CHANNELS + COLOR_CHANNELS;
+
+    // Keyframe layout, in milliseconds
+    static final int KEYFRAME_START = 0;
+    static final int KEYFRAME_DURATION = 1;
+    static final int KEYFRAME_EASING = 2;
+    static final int KEYFRAME_STRIDE = 3;
+
+    // Cues
+    static final int SHOW_BOTTOM_APP_BAR = 0;
+    static final int CUES = 1;
+
+    /** Cue time that stands for the end of whichever plan the choreography is compiled into. */
+    private static final float AT_END = Float.POSITIVE_INFINITY;
+    private static final float UNSCHEDULED = -1;
+
+    static final int DURATION = 300;
+    private static final int FAB_HIDE_DELAY = 175;
+
+    /** Moves everything together, except that a hiding FAB waits for the bottom app bar. */
+    static final Choreography DEFAULT = new Builder(DURATION, ACCELERATE_DECELERATE)
+            .scalars(FAB_OFFSET).whenRising().delay(FAB_HIDE_DELAY)
+            .cueAtEnd(SHOW_BOTTOM_APP_BAR)
+            .build();
+
+    /** Keyframes for rising values followed by keyframes for falling ones. */
+    private final float[] keyframes;
+    private final float[] cues;
+
+    private Choreography(Builder builder) {
+        keyframes = builder.keyframes.clone();
+        cues = builder.cues.clone();
+    }
+
+    /** Returns the color channel's track. */
+    static int colorTrack(int channel) {
+        return SCALAR_CHANNELS + channel;
+    }
+
+    /**
+     * Fills {@code timeline} with each track's keyframe for a plan moving from {@code start} to
+     * {@code end}, and {@code cueTimes} with each cue's time or -1, and returns when the plan ends.
+     */
+    float compile(float[] start, float[] end, float[] timeline, float[] cueTimes) {
+        float duration = 0;
+        for (int track = 0; track < TRACKS; track++) {
+            boolean falling = track < SCALAR_CHANNELS && end[track] < start[track];
+            int from = (falling ? TRACKS + track : track) * KEYFRAME_STRIDE;
+            int to = track * KEYFRAME_STRIDE;
+            System.arraycopy(keyframes, from, timeline, to, KEYFRAME_STRIDE);
+            duration = Math.max(duration,
+                    timeline[to + KEYFRAME_START] + timeline[to + KEYFRAME_DURATION]);
+        }
+        for (int cue = 0; cue < CUES; cue++) {
+            cueTimes[cue] = cues[cue] == AT_END ? duration : cues[cue];
+            if (cueTimes[cue] > duration) {
+                duration = cueTimes[cue];
+            }
+        }
+        return duration;
+    }
+
+    /** Returns how far {@code track} has moved, from 0 to 1, at {@code elapsed} milliseconds. */
+    static float fraction(float[] timeline, int track, float elapsed) {
+        int keyframe = track * KEYFRAME_STRIDE;
+        float duration = timeline[keyframe + KEYFRAME_DURATION];
+        float fraction = duration > 0
+                ? (elapsed - timeline[keyframe + KEYFRAME_START]) / duration
+                : elapsed >= timeline[keyframe + KEYFRAME_START] ? 1 : 0;
+        if (fraction <= 0) {
+            return 0;
+        } else if (fraction >= 1) {
+            return 1;
+        }
+        switch ((int) timeline[keyframe + KEYFRAME_EASING]) {
+            case ACCELERATE:
+                return fraction * fraction;
+            case DECELERATE:
+                return 1 - (1 - fraction) * (1 - fraction);
+            case ACCELERATE_DECELERATE:
+                return (float) (Math.cos((fraction + 1) * Math.PI) / 2) + .5f;
+            default:
+                return fraction;
+        }
+    }
+
+    /**
+     * Describes a choreography. Selecting channels with {@link #all}, {@link #scalars} or
+     * {@link #colors} starts a new step; the timing methods that follow apply to that selection.
+     * Every track starts with the builder's default duration and easing and no delay.
+     */
+    static final class Builder {
+        private final float[] keyframes = new float[2 * TRACKS * KEYFRAME_STRIDE];
+        private final float[] cues = new float[CUES];
+        private int[] selection = new int[0];
+        private boolean rising = true;
+        private boolean falling = true;
+
+        Builder(int duration, int easing) {
+            for (int track = 0; track < 2 * TRACKS; track++) {
+                keyframes[track * KEYFRAME_STRIDE + KEYFRAME_DURATION] = duration;
+                keyframes[track * KEYFRAME_STRIDE + KEYFRAME_EASING] = easing;
+            }
+            Arrays.fill(cues, UNSCHEDULED);
+        }
+
+        Builder all() {
+            int[] tracks = new int[TRACKS];
+            for (int track = 0; track < TRACKS; track++) {
+                tracks[track] = track;
+            }
+            return select(tracks);
+        }
+
+        Builder scalars(int... channels) {
+            checkChannels(channels, SCALAR_CHANNELS);
+            return select(channels.clone());
+        }
+
+        Builder colors(int... channels) {
+            checkChannels(channels, COLOR_CHANNELS);
+            int[] tracks = new int[channels.length];
+            for (int i = 0; i < channels.length; i++) {
+                tracks[i] = colorTrack(channels[i]);
+            }
+            return select(tracks);
+        }
+
+        /** Narrows the selection to scalar channels whose value increases. */
+        Builder whenRising() {
+            falling = false;
+            return this;
+        }
+
+        /** Narrows the selection to scalar channels whose value decreases. */
+        Builder whenFalling() {
+            rising = false;
+            return this;
+        }
+
+        Builder delay(int delay) {
+            for (int track : selection) {
+                set(track, KEYFRAME_START, delay);
+            }
+            return this;
+        }
+
+        /** Delays each selected channel {@code interval} milliseconds after the previous one. */
+        Builder stagger(int interval) {
+            for (int i = 0; i < selection.length; i++) {
+                add(selection[i], KEYFRAME_START, i * interval);
+            }
+            return this;
+        }
+
+        Builder duration(int duration) {
+            for (int track : selection) {
+                set(track, KEYFRAME_DURATION, duration);
+            }
+            return this;
+        }
+
+        Builder easing(int easing) {
+            if (easing < LINEAR || easing > ACCELERATE_DECELERATE) {
+                throw new IllegalArgumentException("Unknown easing " + easing);
+            }
+            for (int track : selection) {
+                set(track, KEYFRAME_EASING, easing);
+            }
+            return this;
+        }
+
+        Builder cue(int cue, int time) {
+            cues[cue] = time;
+            return this;
+        }
+
+        /** Fires {@code cue} once every track has finished moving. */
+        Builder cueAtEnd(int cue) {
+            cues[cue] = AT_END;
+            return this;
+        }
+
+        Choreography build() {
+            return new Choreography(this);
+        }
+
+        private Builder select(int[] tracks) {
+            selection = tracks;
+            rising = true;
+            falling = true;
+            return this;
+        }
+
+        private static void checkChannels(int[] channels, int count) {
+            for (int channel : channels) {
+                if (channel < 0 || channel >= count) {
+                    throw new IllegalArgumentException("Unknown channel " + channel);
+                }
+            }
+        }
+
+        private void set(int track, int field, float value) {
+            if (rising) {
+                keyframes[track * KEYFRAME_STRIDE + field] = value;
+            }
+            if (falling) {
+                keyframes[(TRACKS + track) * KEYFRAME_STRIDE + field] = value;
+            }
+        }
+
+        private void add(int track, int field, float value) {
+            if (rising) {
+                keyframes[track * KEYFRAME_STRIDE + field] += value;
+            }
+            if (falling) {
+                keyframes[(TRACKS + track) * KEYFRAME_STRIDE + field] += value;
+            }
+        }
+    }
+}
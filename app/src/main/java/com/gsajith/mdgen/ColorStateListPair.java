@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.res.ColorStateList;
+import android.graphics.Color;
+
+/**
+ * Two mutable single-color {@link ColorStateList}s used to push a new tint into a view on every
+ * animation frame without allocating. Views and drawables compare tint lists by identity, so
+ * {@link #next(int)} alternates between the instances and never mutates the one the view
+ * currently holds.
+ */
+final class ColorStateListPair {
+    private final MutableColorStateList first = new MutableColorStateList();
+    private final MutableColorStateList second = new MutableColorStateList();
+    private boolean useFirst;
+
+    ColorStateList next(int color) {
+        MutableColorStateList colorStateList = useFirst ? first : second;
+        useFirst = !useFirst;
+        colorStateList.color = color;
+        return colorStateList;
+    }
+
+    private static final class MutableColorStateList extends ColorStateList {
+        private static final int[][] STATES = {new int[0]};
+
+        int color;
+
+        MutableColorStateList() {
+            super(STATES, new int[]{Color.TRANSPARENT});
+        }
+
+        @Override
+        public int getColorForState(int[] stateSet, int defaultColor) {
+            return color;
+        }
+
+        @Override
+        public int getDefaultColor() {
+            return color;
+        }
+
+        @Override
+        public boolean isStateful() {
+            return false;
+        }
+
+        @Override
+        public boolean isOpaque() {
+            return Color.alpha(color) == 0xFF;
+        }
+
+        @Override
+        public ColorStateList withAlpha(int alpha) {
+            return ColorStateList.valueOf((color & 0xFFFFFF) | (alpha << 24));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeKeyCodec;
+import com.gsajith.mdgen.core.ThemePreviewRasterizer;
+
+/**
+ * Scrolling grid of generated theme thumbnails. The caller passes the gallery seed in
+ * {@link #EXTRA_SEED}; tapping a thumbnail finishes with the chosen theme's
+ * {@link ThemeKeyCodec} key in {@link #EXTRA_THEME_KEY}.
+ */
+public final class GalleryActivity extends AppCompatActivity {
+    static final String EXTRA_SEED = "com.gsajith.mdgen.extra.SEED";
+    static final String EXTRA_THEME_KEY = "com.gsajith.mdgen.extra.THEME_KEY";
+
+    private static final int THEME_COUNT = 100000;
+    private static final int SPAN_COUNT = 3;
+    private static final int PREFETCH_ROWS = 3;
+
+    private ThemeGalleryAdapter adapter;
+
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        this.setContentView(R.layout.activity_gallery);
+
+        // Usually built by MainActivity's startup loader already
+        ThemeGenerator themeGenerator = MDGenUtils.getThemeGenerator(getResources());
+        final ThemeKeyCodec keyCodec = themeGenerator.getKeyCodec();
+
+        DisplayMetrics metrics = getResources().getDisplayMetrics();
+        int cellWidth = metrics.widthPixels / SPAN_COUNT;
+        int cellHeight = cellWidth * ThemePreviewRasterizer.HEIGHT_DP
+                / ThemePreviewRasterizer.WIDTH_DP;
+        int visibleRows = metrics.heightPixels / cellHeight + 2;
+        ThumbnailRenderer renderer = new ThumbnailRenderer(metrics.density, cellWidth, cellHeight,
+                2 * SPAN_COUNT);
+
+        adapter = new ThemeGalleryAdapter(themeGenerator, getIntent().getLongExtra(EXTRA_SEED, 0),
+                THEME_COUNT, renderer, (visibleRows + 2 * PREFETCH_ROWS) * SPAN_COUNT,
+                new ThemeGalleryAdapter.Listener() {
+                    @Override
+                    public void onThemeSelected(MaterialTheme theme) {
+                        long[] key = {keyCodec.encodeHigh(theme), keyCodec.encodeLow(theme)};
+                        setResult(RESULT_OK, new Intent().putExtra(EXTRA_THEME_KEY, key));
+                        finish();
+                    }
+                });
+
+        final GridLayoutManager layoutManager = new GridLayoutManager(this, SPAN_COUNT);
+        RecyclerView gallery = findViewById(R.id.gallery);
+        gallery.setLayoutManager(layoutManager);
+        gallery.setHasFixedSize(true);
+        gallery.setAdapter(adapter);
+        gallery.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                // Render the rows about to scroll into view before their cells are bound
+                int window = PREFETCH_ROWS * SPAN_COUNT;
+                if (dy > 0) {
+                    adapter.prefetch(layoutManager.findLastVisibleItemPosition() + 1, window);
+                } else if (dy < 0) {
+                    adapter.prefetch(layoutManager.findFirstVisibleItemPosition() - window,
+                            window);
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        adapter.shutdown();
+        super.onDestroy();
+    }
+}
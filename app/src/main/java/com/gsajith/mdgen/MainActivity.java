@@ -16,624 +16,353 @@
 
 package com.gsajith.mdgen;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.AnimatorSet;
-import android.animation.ValueAnimator;
-import android.content.res.ColorStateList;
-import android.graphics.Color;
-import android.graphics.drawable.Drawable;
+import android.content.Context;
+import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
-import android.util.TypedValue;
+import android.os.Looper;
+import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.Button;
-import android.widget.TextView;
+import android.widget.FrameLayout;
 
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.core.graphics.drawable.DrawableCompat;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
 
-import com.google.android.material.appbar.AppBarLayout;
-import com.google.android.material.bottomappbar.BottomAppBar;
-import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
-import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.android.material.shape.CornerFamily;
-import com.google.android.material.shape.ShapeAppearanceModel;
 import com.google.android.material.textfield.TextInputEditText;
-import com.google.android.material.textfield.TextInputLayout;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import com.gsajith.mdgen.core.FavoritesStore;
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.SeenThemeFilter;
+import com.gsajith.mdgen.core.ThemeHistory;
+import com.gsajith.mdgen.core.ThemeInterner;
+
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
 
 public final class MainActivity extends AppCompatActivity {
-
-    private static final int ANIMATION_DURATION = 300;
+    private static final String TAG = "MainActivity";
+
+    private static final int PREFETCH_CAPACITY = 4;
+    private static final int HISTORY_CAPACITY = 10000;
+    /** Decoded themes kept for history steps and gallery picks before the interner starts over. */
+    private static final int INTERNED_THEMES = 256;
+    /**
+     * Boolean extra, true by default: skip themes already shown in this or earlier sessions. Set
+     * it to false to generate freely without opening the seen-theme filter.
+     */
+    static final String EXTRA_NO_REPEATS = "com.gsajith.mdgen.extra.NO_REPEATS";
+    private static final int REQUEST_GALLERY_THEME = 1;
+    private static final String STATE_GALLERY_SEED = "gallerySeed";
+    /**
+     * Boolean extra, false by default: set it to true to animate text size and padding with
+     * transforms, committing the layout once per transition instead of laying out every frame.
+     */
+    static final String EXTRA_LAYOUT_FREE_TRANSITIONS =
+            "com.gsajith.mdgen.extra.LAYOUT_FREE_TRANSITIONS";
+    /**
+     * Boolean extra, true by default: draw the first frame with an empty card, inflating the
+     * themed preview and loading the generator on background threads, then show the first theme
+     * once both are ready. Set it to false to do both in onCreate instead.
+     */
+    static final String EXTRA_ASYNC_STARTUP = "com.gsajith.mdgen.extra.ASYNC_STARTUP";
+
+    /** Loads the startup state when starting asynchronously. Tests replace it to hold loading. */
+    @VisibleForTesting
+    static Executor startupExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            new Thread(command, "StartupLoader").start();
+        }
+    };
 
     MaterialTheme currentTheme;
 
-    private ColorSet[] darkColors;
-    private ColorSet[] lightColors;
-    private int[] lightSurfaceColors;
-    private int[] darkSurfaceColors;
-    private int smallCornerRadiusVariance;
-    private int mediumCornerRadiusVarianceMax;
-    private int mediumCornerRadiusVarianceMin;
-    private int maxElevation;
-    private int minElevation;
+    private final Random seedSource = new Random();
+    /** Seeds the gallery, kept across recreation so it reopens on the same themes. */
+    private long gallerySeed;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ThemeInterner themeInterner;
+    private ThemeTransitionDriver transitionDriver;
+    private ThemePrefetcher themePrefetcher;
+    private ThemeableViewIndex viewIndex;
+    private TransitionFrameMonitor frameMonitor;
+    private ThemeHistory themeHistory;
+    /** Null if the favorites file couldn't be opened, which disables the favorite button. */
+    @Nullable
+    private FavoritesStore favoritesStore;
+    @Nullable
+    private SeenThemeFilter seenThemes;
+    private float cradleRoundedCornerRadius;
+    private MaterialCardView previewCard;
+    /** The inflated themed preview, until the first theme is ready to go on it. */
+    private View pendingPreview;
+    private boolean startupComplete;
+    private Button generateButton;
+    private Button galleryButton;
+    private Button backButton;
+    private Button forwardButton;
+    private Button favoriteButton;
 
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         this.setContentView(R.layout.activity_main);
+        gallerySeed = savedInstanceState != null
+                ? savedInstanceState.getLong(STATE_GALLERY_SEED) : seedSource.nextLong();
 
-        darkColors = MDGenUtils.generateBaseDarkColors();
-        lightColors = MDGenUtils.generateBaseLightColors();
-        lightSurfaceColors = MDGenUtils.generateLightSurfaceColors(getResources());
-        darkSurfaceColors = MDGenUtils.generateDarkSurfaceColors(getResources());
-        smallCornerRadiusVariance = getResources().getDimensionPixelSize(R.dimen.button_pill_size);
-        mediumCornerRadiusVarianceMax = getResources().getDimensionPixelSize(
-                R.dimen.card_max_corner);
-        mediumCornerRadiusVarianceMin = getResources().getDimensionPixelSize(
-                R.dimen.card_min_corner);
-        maxElevation = getResources().getDimensionPixelSize(R.dimen.max_elevation);
-        minElevation = getResources().getDimensionPixelSize(R.dimen.min_elevation);
-
-        currentTheme = generateRandomTheme();
-
-        Button generateButton = findViewById(R.id.generate_button);
-
-        final MaterialCardView wrappingCard = findViewById(R.id.materialCardView);
-        final List<MaterialCardView> cards = MDGenUtils.findViewsWithType(wrappingCard,
-                MaterialCardView.class);
-        final List<MaterialButton> buttons = MDGenUtils.findViewsWithType(wrappingCard,
-                MaterialButton.class);
-        final List<TextInputLayout> textInputLayouts = MDGenUtils.findViewsWithType(wrappingCard,
-                TextInputLayout.class);
-        Collections.reverse(textInputLayouts);
-        final List<TextInputEditText> textInputEditTexts = MDGenUtils.findViewsWithType(
-                wrappingCard, TextInputEditText.class);
-        Collections.reverse(textInputEditTexts);
-        final List<AppBarLayout> appBarLayouts = MDGenUtils.findViewsWithType(wrappingCard,
-                AppBarLayout.class);
-        final List<BottomAppBar> bottomAppBars = MDGenUtils.findViewsWithType(wrappingCard,
-                BottomAppBar.class);
-        final List<FloatingActionButton> floatingActionButtons = MDGenUtils.findViewsWithType(
-                wrappingCard, FloatingActionButton.class);
+        transitionDriver = new ThemeTransitionDriver();
+        transitionDriver.setLayoutFree(
+                getIntent().getBooleanExtra(EXTRA_LAYOUT_FREE_TRANSITIONS, false));
+        frameMonitor = new TransitionFrameMonitor(this);
+        transitionDriver.setTransitionListener(frameMonitor);
 
-        generateButton.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                List<Animator> animations = new ArrayList<>();
-                MaterialTheme newTheme = generateRandomTheme();
+        cradleRoundedCornerRadius = getResources().getDimensionPixelSize(
+                R.dimen.bab_rounded_corner_radius);
 
-                for (MaterialButton button : buttons) {
-                    animations.addAll(createButtonAnimations(button, currentTheme, newTheme));
-                }
-                for (MaterialCardView card : cards) {
-                    animations.addAll(createCardAnimations(card, currentTheme, newTheme));
-                }
-                for (TextInputLayout textInputLayout : textInputLayouts) {
-                    animations.addAll(createTextInputLayoutAnimations(textInputLayout, currentTheme,
-                            newTheme));
-                }
-                for (TextInputEditText textInputEditText : textInputEditTexts) {
-                    textInputEditText.setSelection(textInputEditText.getText().length());
-                }
-                for (AppBarLayout appBarLayout : appBarLayouts) {
-                    animations.addAll(
-                            createTopAppBarAnimations(appBarLayout, currentTheme, newTheme));
-                }
-                for (BottomAppBar bottomAppBar : bottomAppBars) {
-                    animations.addAll(
-                            createBottomAppBarAnimations(bottomAppBar, currentTheme, newTheme));
-                }
-                for (FloatingActionButton floatingActionButton : floatingActionButtons) {
-                    animations.addAll(
-                            createFloatingActionButtonAnimations(floatingActionButton, currentTheme,
-                                    newTheme));
-                }
-
-                currentTheme = newTheme;
-                AnimatorSet animatorSet = new AnimatorSet();
-                animatorSet.playTogether(animations);
-                animatorSet.setDuration(ANIMATION_DURATION);
-                animatorSet.start();
-            }
-        });
+        generateButton = findViewById(R.id.generate_button);
+        galleryButton = findViewById(R.id.gallery_button);
+        backButton = findViewById(R.id.back_button);
+        forwardButton = findViewById(R.id.forward_button);
+        favoriteButton = findViewById(R.id.favorite_button);
 
-        generateButton.callOnClick();
-    }
-
-    private List<ValueAnimator> createFloatingActionButtonAnimations(
-            final FloatingActionButton floatingActionButton,
-            MaterialTheme currentTheme,
-            MaterialTheme newTheme) {
-        boolean showBottomAppBar = newTheme.appBarVisibility == 1;
-        boolean bottomAppBarCurrentlyVisible = currentTheme.appBarVisibility == 1;
+        // Views added to the card later are picked up by the index as they arrive
+        previewCard = findViewById(R.id.materialCardView);
+        viewIndex = new ThemeableViewIndex(previewCard, transitionDriver);
 
-        ValueAnimator fabBackgroundColorAnimator = createColorAnimator(
-                currentTheme.colorSecondary.color, newTheme.colorSecondary.color,
-                new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        floatingActionButton.setBackgroundTintList(
-                                ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
-
-        ValueAnimator fabIconColorAnimator = createColorAnimator(
-                currentTheme.colorSecondary.colorOn, newTheme.colorSecondary.colorOn,
-                new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        floatingActionButton.setImageTintList(
-                                ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
-
-        ValueAnimator fabTranslationAnimator = ValueAnimator.ofFloat(
-                bottomAppBarCurrentlyVisible ? 0 : 1, showBottomAppBar ? 0 : 1);
-        fabTranslationAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                floatingActionButton.setTranslationY(
-                        (Float) valueAnimator.getAnimatedValue() * floatingActionButton.getHeight()
-                                * 1.5f);
-            }
-        });
-
-        if (bottomAppBarCurrentlyVisible && !showBottomAppBar) {
-            fabTranslationAnimator.setStartDelay(175);
-        }
-
-        return Arrays.asList(fabBackgroundColorAnimator, fabIconColorAnimator,
-                fabTranslationAnimator);
-    }
-
-    private List<ValueAnimator> createBottomAppBarAnimations(final BottomAppBar bottomAppBar,
-            MaterialTheme currentTheme, MaterialTheme newTheme) {
-        boolean showBottomAppBar = newTheme.appBarVisibility == 1;
-        boolean bottomAppBarCurrentlyVisible = currentTheme.appBarVisibility == 1;
-
-        if (showBottomAppBar && !bottomAppBarCurrentlyVisible) {
-            final Handler handler = new Handler();
-            handler.postDelayed(new Runnable() {
-                @Override
-                public void run() {
-                    bottomAppBar.performShow();
-                }
-            }, ANIMATION_DURATION);
-        } else if (!showBottomAppBar && bottomAppBarCurrentlyVisible) {
-            bottomAppBar.performHide();
-        }
-
-        ValueAnimator backgroundColorAnimator = createColorAnimator(currentTheme.colorPrimary.color,
-                newTheme.colorPrimary.color,
-                new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        bottomAppBar.setBackgroundTint(
-                                ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
-
-        ValueAnimator iconColorAnimator = createColorAnimator(currentTheme.colorPrimary.colorOn,
-                newTheme.colorPrimary.colorOn, new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        Drawable drawable = bottomAppBar.getNavigationIcon();
-                        if (drawable != null) {
-                            drawable = DrawableCompat.wrap(drawable);
-                            DrawableCompat.setTint(drawable.mutate(), color);
-                            bottomAppBar.setNavigationIcon(drawable);
-                        }
-                        return true;
-                    }
-                });
-
-        ValueAnimator roundedCornerRadiusAnimator = ValueAnimator.ofFloat(
-                MDGenUtils.hasRoundedCorners(currentTheme.mediumComponentShapeAppearance)
-                        ? getResources().getDimensionPixelSize(R.dimen.bab_rounded_corner_radius)
-                        : 1,
-                MDGenUtils.hasRoundedCorners(newTheme.mediumComponentShapeAppearance)
-                        ? getResources().getDimensionPixelSize(R.dimen.bab_rounded_corner_radius)
-                        : 1);
-        roundedCornerRadiusAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                bottomAppBar.setFabCradleRoundedCornerRadius(
-                        (Float) valueAnimator.getAnimatedValue());
-            }
-        });
-
-        return Arrays.asList(iconColorAnimator, backgroundColorAnimator,
-                roundedCornerRadiusAnimator);
-    }
-
-    private List<ValueAnimator> createTopAppBarAnimations(final AppBarLayout topAppBar,
-            MaterialTheme currentTheme, final MaterialTheme newTheme) {
-        boolean showTopAppBar = newTheme.appBarVisibility == 0;
-        boolean topAppBarCurrentlyVisible = currentTheme.appBarVisibility == 0;
-        ValueAnimator topAppBarShowAnimator = ValueAnimator.ofFloat(
-                topAppBarCurrentlyVisible ? 0 : 1, showTopAppBar ? 0 : 1);
-        topAppBarShowAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        generateButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                topAppBar.setTranslationY(
-                        (Float) valueAnimator.getAnimatedValue() * topAppBar.getHeight() * -1.1f);
+            public void onClick(View view) {
+                TransitionPlan plan = themePrefetcher.next();
+                themeHistory.push(plan.to);
+                startTransition(plan);
             }
         });
 
-        ValueAnimator colorAnimator = createColorAnimator(currentTheme.colorPrimary.color,
-                newTheme.colorPrimary.color, new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        topAppBar.getChildAt(0).setBackgroundColor(color);
-                        return true;
-                    }
-                });
-
-        final TextView toolbarTitle = topAppBar.findViewById(R.id.toolbar_title);
-
-        ValueAnimator titleColorAnimator = createColorAnimator(currentTheme.colorPrimary.colorOn,
-                newTheme.colorPrimary.colorOn, new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        toolbarTitle.setTextColor(color);
-                        return true;
-                    }
-                });
-
-
-        ValueAnimator titleLetterSpacingAnimator = ValueAnimator.ofFloat(
-                currentTheme.letterSpacingSmall, newTheme.letterSpacingSmall);
-        titleLetterSpacingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        backButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                toolbarTitle.setLetterSpacing((Float) valueAnimator.getAnimatedValue());
+            public void onClick(View view) {
+                showTheme(themeHistory.back());
             }
         });
 
-        ValueAnimator titleTextSizeAnimator = ValueAnimator.ofFloat(currentTheme.smallTextSize,
-                newTheme.smallTextSize);
-        titleTextSizeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        forwardButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                toolbarTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX,
-                        (Float) valueAnimator.getAnimatedValue());
-            }
-        });
-        titleTextSizeAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                toolbarTitle.setAllCaps(newTheme.smallTextAllCaps);
+            public void onClick(View view) {
+                showTheme(themeHistory.forward());
             }
         });
 
-        return Arrays.asList(titleLetterSpacingAnimator, titleTextSizeAnimator,
-                topAppBarShowAnimator, colorAnimator, titleColorAnimator);
-    }
-
-    private List<ValueAnimator> createTextInputLayoutAnimations(
-            final TextInputLayout textInputLayout, MaterialTheme currentTheme,
-            MaterialTheme newTheme) {
-        ValueAnimator colorAnimator = createColorAnimator(currentTheme.colorPrimary.color,
-                newTheme.colorPrimary.color, new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        textInputLayout.setHintTextColor(ColorStateList.valueOf(color));
-                        textInputLayout.setBoxStrokeColor(color);
-                        textInputLayout.setDefaultHintTextColor(ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
-
-        ValueAnimator textColorAnimator = createColorAnimator(currentTheme.colorOnSurface,
-                newTheme.colorOnSurface,
-                new ColorCallable() {
-                    @Override
-                    public Object call() {
-                        textInputLayout.getEditText().setTextColor(color);
-                        return true;
-                    }
-                });
-
-        ValueAnimator cornerRadiusAnimator = ValueAnimator.ofFloat(
-                currentTheme.smallComponentShapeAppearance.getTopLeftCorner().getCornerSize(),
-                newTheme.smallComponentShapeAppearance.getTopLeftCorner().getCornerSize());
-        cornerRadiusAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        galleryButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                textInputLayout.setBoxCornerRadii((Float) valueAnimator.getAnimatedValue(),
-                        (Float) valueAnimator.getAnimatedValue(),
-                        (Float) valueAnimator.getAnimatedValue(),
-                        (Float) valueAnimator.getAnimatedValue());
+            public void onClick(View view) {
+                Intent intent = new Intent(MainActivity.this, GalleryActivity.class)
+                        .putExtra(GalleryActivity.EXTRA_SEED, gallerySeed);
+                startActivityForResult(intent, REQUEST_GALLERY_THEME);
             }
         });
 
-        ValueAnimator letterSpacingAnimator = ValueAnimator.ofFloat(currentTheme.letterSpacingSmall,
-                newTheme.letterSpacingSmall);
-        letterSpacingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        favoriteButton.setOnClickListener(new View.OnClickListener() {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                textInputLayout.getEditText().setLetterSpacing(
-                        (Float) valueAnimator.getAnimatedValue());
+            public void onClick(View view) {
+                try {
+                    favoritesStore.add(currentTheme);
+                    favoriteButton.setEnabled(false);
+                } catch (IOException e) {
+                    Log.e(TAG, "Couldn't save favorite", e);
+                }
             }
         });
 
-        ValueAnimator editTextPaddingAnimator = ValueAnimator.ofFloat(currentTheme.xSmallPadding,
-                newTheme.xSmallPadding);
-        editTextPaddingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                textInputLayout.getEditText().setPadding(
-                        Math.round((Float) valueAnimator.getAnimatedValue()),
-                        textInputLayout.getEditText().getPaddingTop(),
-                        Math.round((Float) valueAnimator.getAnimatedValue()),
-                        textInputLayout.getEditText().getPaddingBottom());
-            }
-        });
+        if (BuildConfig.DEBUG) {
+            generateButton.setOnLongClickListener(new View.OnLongClickListener() {
+                @Override
+                public boolean onLongClick(View view) {
+                    new AlertDialog.Builder(MainActivity.this)
+                            .setMessage(frameMonitor.describe())
+                            .setPositiveButton(android.R.string.ok, null)
+                            .show();
+                    return true;
+                }
+            });
+        }
 
-        ValueAnimator editTextSizeAnimator = ValueAnimator.ofFloat(currentTheme.smallTextSize,
-                newTheme.smallTextSize);
-        editTextSizeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                textInputLayout.getEditText().setTextSize(TypedValue.COMPLEX_UNIT_PX,
-                        (Float) valueAnimator.getAnimatedValue());
-            }
-        });
+        long seed = seedSource.nextLong();
+        boolean noRepeats = getIntent().getBooleanExtra(EXTRA_NO_REPEATS, true);
+        if (getIntent().getBooleanExtra(EXTRA_ASYNC_STARTUP, true)) {
+            new AsyncLayoutInflater(this).inflate(R.layout.themed_layout, previewCard,
+                    new AsyncLayoutInflater.OnInflateFinishedListener() {
+                        @Override
+                        public void onInflateFinished(View view, int resid, ViewGroup parent) {
+                            onPreviewInflated(view);
+                        }
+                    });
+            loadStartupState(getApplicationContext(), seed, noRepeats);
+        } else {
+            onPreviewInflated(getLayoutInflater().inflate(R.layout.themed_layout, previewCard,
+                    false));
+            onStartupStateLoaded(StartupState.load(this, seed, noRepeats));
+        }
+    }
 
-        return Arrays.asList(colorAnimator, cornerRadiusAnimator, textColorAnimator,
-                letterSpacingAnimator, editTextPaddingAnimator, editTextSizeAnimator);
+    /** Returns whether the first theme is on screen and the controls are enabled. */
+    @VisibleForTesting
+    boolean isStartupComplete() {
+        return startupComplete;
     }
 
-    private List<ValueAnimator> createButtonAnimations(final MaterialButton button,
-            MaterialTheme currentTheme, final MaterialTheme newTheme) {
-        final boolean transparentButton = button.getBackgroundTintList().getColorForState(
-                new int[]{android.R.attr.state_enabled}, Color.TRANSPARENT) == 0;
+    /** Returns whether a theme transition is animating. */
+    @VisibleForTesting
+    boolean isTransitionRunning() {
+        return transitionDriver.isRunning();
+    }
 
-        ValueAnimator buttonBackgroundAnimator = createColorAnimator(
-                currentTheme.colorPrimary.color, newTheme.colorPrimary.color, new ColorCallable() {
-                    @Override
-                    public Boolean call() {
-                        if (!transparentButton) {
-                            button.setBackgroundTintList(ColorStateList.valueOf(color));
-                        }
-                        button.setStrokeColor(ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        // A recreated activity may get the result before its generator has loaded
+        if (requestCode == REQUEST_GALLERY_THEME && resultCode == RESULT_OK && data != null
+                && isStartupComplete()) {
+            long[] key = data.getLongArrayExtra(GalleryActivity.EXTRA_THEME_KEY);
+            MaterialTheme theme = themeInterner.intern(key[0], key[1]);
+            themeHistory.push(theme);
+            showTheme(theme);
+        }
+    }
 
-        ValueAnimator buttonTextAnimator = createColorAnimator(
-                transparentButton ? currentTheme.colorPrimary.color
-                        : currentTheme.colorPrimary.colorOn,
-                transparentButton ? newTheme.colorPrimary.color : newTheme.colorPrimary.colorOn,
-                new ColorCallable() {
+    private void loadStartupState(final Context context, final long seed,
+            final boolean noRepeats) {
+        startupExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final StartupState state = StartupState.load(context, seed, noRepeats);
+                mainHandler.post(new Runnable() {
                     @Override
-                    public Boolean call() {
-                        button.setTextColor(ColorStateList.valueOf(color));
-
-                        // TODO: Might have to add alpha here
-                        button.setRippleColor(ColorStateList.valueOf(color));
-                        return true;
+                    public void run() {
+                        onStartupStateLoaded(state);
                     }
                 });
-
-        ValueAnimator buttonCornerRadiusAnimator = ValueAnimator.ofFloat(
-                currentTheme.smallComponentShapeAppearance.getTopLeftCorner().getCornerSize(),
-                newTheme.smallComponentShapeAppearance.getTopLeftCorner().getCornerSize());
-        buttonCornerRadiusAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                button.setCornerRadius(Math.round((Float) valueAnimator.getAnimatedValue()));
-            }
-        });
-        buttonCornerRadiusAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                button.setShapeAppearanceModel(newTheme.smallComponentShapeAppearance);
-            }
-        });
-
-        ValueAnimator buttonElevationAnimator = ValueAnimator.ofFloat(currentTheme.elevation,
-                newTheme.elevation);
-        buttonElevationAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                if (!transparentButton) {
-                    button.setElevation((Float) valueAnimator.getAnimatedValue());
-                }
-            }
-        });
-
-        ValueAnimator buttonLetterSpacingAnimator = ValueAnimator.ofFloat(
-                currentTheme.letterSpacingSmall, newTheme.letterSpacingSmall);
-        buttonLetterSpacingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                button.setLetterSpacing((Float) valueAnimator.getAnimatedValue());
-            }
-        });
-
-        ValueAnimator buttonTextSizeAnimator = ValueAnimator.ofFloat(currentTheme.smallTextSize,
-                newTheme.smallTextSize);
-        buttonTextSizeAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                button.setTextSize(
-                        TypedValue.COMPLEX_UNIT_PX, (Float) valueAnimator.getAnimatedValue());
-            }
-        });
-        buttonTextSizeAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                super.onAnimationEnd(animation);
-                button.setAllCaps(newTheme.smallTextAllCaps);
-            }
-        });
-
-        ValueAnimator buttonPaddingAnimator = ValueAnimator.ofFloat(currentTheme.smallPadding,
-                newTheme.smallPadding);
-        buttonPaddingAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                button.setPaddingRelative(Math.round((Float) valueAnimator.getAnimatedValue()),
-                        button.getPaddingTop(),
-                        Math.round((Float) valueAnimator.getAnimatedValue()),
-                        button.getPaddingBottom());
             }
         });
-
-        return Arrays.asList(buttonTextSizeAnimator, buttonPaddingAnimator,
-                buttonLetterSpacingAnimator, buttonBackgroundAnimator, buttonTextAnimator,
-                buttonCornerRadiusAnimator, buttonElevationAnimator);
     }
 
-    private List<ValueAnimator> createCardAnimations(final MaterialCardView card,
-            MaterialTheme currentTheme, MaterialTheme newTheme) {
-        ValueAnimator cardBackgroundAnimator = createColorAnimator(currentTheme.colorSurface,
-                newTheme.colorSurface, new ColorCallable() {
-                    @Override
-                    public Boolean call() {
-                        card.setCardBackgroundColor(ColorStateList.valueOf(color));
-                        return true;
-                    }
-                });
+    private void onPreviewInflated(View preview) {
+        if (!isDestroyed()) {
+            pendingPreview = preview;
+            showFirstTheme();
+        }
+    }
 
-        ValueAnimator cardCornerRadiusAnimator = ValueAnimator.ofFloat(
-                currentTheme.mediumComponentShapeAppearance.getTopLeftCorner().getCornerSize(),
-                newTheme.mediumComponentShapeAppearance.getTopLeftCorner().getCornerSize());
-        cardCornerRadiusAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                card.setRadius((Float) valueAnimator.getAnimatedValue());
-            }
-        });
+    private void onStartupStateLoaded(StartupState state) {
+        favoritesStore = state.favoritesStore;
+        seenThemes = state.seenThemes;
+        if (isDestroyed()) {
+            closeStores();
+            return;
+        }
+        currentTheme = state.firstTheme;
+        themeInterner = new ThemeInterner(state.generator.getKeyCodec(), INTERNED_THEMES);
+        themeHistory = new ThemeHistory(themeInterner, HISTORY_CAPACITY);
+        themePrefetcher = new ThemePrefetcher(state.generator, seenThemes,
+                cradleRoundedCornerRadius, PREFETCH_CAPACITY, seedSource.nextLong(),
+                currentTheme);
+        showFirstTheme();
+    }
 
-        ValueAnimator cardElevationAnimator = ValueAnimator.ofFloat(currentTheme.elevation,
-                newTheme.elevation);
-        cardElevationAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                card.setCardElevation((Float) valueAnimator.getAnimatedValue());
-            }
-        });
+    /**
+     * Puts the preview in the card and applies the first theme to it directly, once both have
+     * been prepared. There is nothing on screen to animate from yet.
+     */
+    private void showFirstTheme() {
+        if (pendingPreview == null || themePrefetcher == null) {
+            return;
+        }
+        previewCard.addView(pendingPreview, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+        pendingPreview = null;
+        startupComplete = true;
+
+        themeHistory.push(currentTheme);
+        transitionDriver.snapTo(new TransitionPlan(currentTheme, currentTheme,
+                cradleRoundedCornerRadius));
+        generateButton.setEnabled(true);
+        galleryButton.setEnabled(true);
+        updateButtons();
+    }
 
-        return Arrays.asList(cardBackgroundAnimator, cardCornerRadiusAnimator,
-                cardElevationAnimator);
+    /** Animates to a theme that didn't come from the prefetcher. */
+    private void showTheme(MaterialTheme theme) {
+        startTransition(new TransitionPlan(currentTheme, theme, cradleRoundedCornerRadius));
+        themePrefetcher.rebase(theme);
     }
 
-    private ValueAnimator createColorAnimator(int startColor, int endColor,
-            final ColorCallable callable) {
-        final float[] from = new float[3], to = new float[3];
+    private void startTransition(TransitionPlan plan) {
+        List<View> editTexts = viewIndex.getViews(ThemeableViewIndex.TEXT_INPUT_EDIT_TEXT);
+        for (int i = 0; i < editTexts.size(); i++) {
+            TextInputEditText textInputEditText = (TextInputEditText) editTexts.get(i);
+            textInputEditText.setSelection(textInputEditText.getText().length());
+        }
 
-        Color.colorToHSV(startColor, from);
-        Color.colorToHSV(endColor, to);
+        transitionDriver.start(plan);
+        currentTheme = plan.to;
+        if (seenThemes != null) {
+            seenThemes.add(currentTheme);
+        }
+        updateButtons();
+    }
 
-        ValueAnimator anim = ValueAnimator.ofFloat(0, 1);
-        final float[] hsv = new float[3];
+    private void updateButtons() {
+        backButton.setEnabled(themeHistory.canGoBack());
+        forwardButton.setEnabled(themeHistory.canGoForward());
+        favoriteButton.setEnabled(favoritesStore != null
+                && favoritesStore.indexOf(currentTheme) < 0);
+    }
 
-        anim.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                // Transition along each axis of HSV (hue, saturation, value)
-                hsv[0] = from[0] + (to[0] - from[0]) * animation.getAnimatedFraction();
-                hsv[1] = from[1] + (to[1] - from[1]) * animation.getAnimatedFraction();
-                hsv[2] = from[2] + (to[2] - from[2]) * animation.getAnimatedFraction();
-
-                callable.color = Color.HSVToColor(hsv);
-                callable.call();
-            }
-        });
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putLong(STATE_GALLERY_SEED, gallerySeed);
+    }
 
-        return anim;
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        frameMonitor.dump(prefix, writer);
     }
 
-    private MaterialTheme generateRandomTheme() {
-        boolean isDarkTheme = ((Math.random() * 10)) < 3;
-        MaterialTheme theme = new MaterialTheme();
-
-        theme.colorSurface =
-                isDarkTheme ? darkSurfaceColors[((int) (Math.random() * darkSurfaceColors.length))]
-                        : lightSurfaceColors[((int) (Math.random() * lightSurfaceColors.length))];
-        theme.colorOnSurface = getResources().getColor(
-                isDarkTheme ? R.color.design_dark_default_color_on_surface
-                        : R.color.design_default_color_on_surface);
-
-        theme.colorBackground =
-                isDarkTheme ? darkSurfaceColors[((int) (Math.random() * darkSurfaceColors.length))]
-                        : lightSurfaceColors[((int) (Math.random() * lightSurfaceColors.length))];
-        theme.colorOnBackground = getResources().getColor(
-                isDarkTheme ? R.color.design_dark_default_color_on_background
-                        : R.color.design_default_color_on_background);
-
-        theme.colorError = getResources().getColor(
-                isDarkTheme ? R.color.design_dark_default_color_error
-                        : R.color.design_default_color_error);
-        theme.colorOnError = getResources().getColor(
-                isDarkTheme ? R.color.design_dark_default_color_on_error
-                        : R.color.design_default_color_on_error);
-
-        theme.colorPrimary = isDarkTheme ? lightColors[((int) (Math.random() * lightColors.length))]
-                : darkColors[((int) (Math.random() * darkColors.length))];
-        theme.colorSecondary =
-                isDarkTheme ? lightColors[((int) (Math.random() * lightColors.length))]
-                        : darkColors[((int) (Math.random() * darkColors.length))];
-
-        boolean useCutCorners = Math.random() * 4 < 1;
-        theme.smallComponentShapeAppearance = new ShapeAppearanceModel();
-        theme.smallComponentShapeAppearance.setAllCorners(
-                useCutCorners ? CornerFamily.CUT : CornerFamily.ROUNDED,
-                (int) (Math.random() * smallCornerRadiusVariance));
-
-        theme.mediumComponentShapeAppearance = new ShapeAppearanceModel();
-        theme.mediumComponentShapeAppearance.setAllCorners(
-                useCutCorners ? CornerFamily.CUT : CornerFamily.ROUNDED,
-                (int) ((float) (Math.random() * (mediumCornerRadiusVarianceMax
-                        - mediumCornerRadiusVarianceMin)) + mediumCornerRadiusVarianceMin));
-
-        theme.elevation = (float) ((Math.random() * (maxElevation - minElevation)) + minElevation);
-        theme.letterSpacingSmall = (float) (Math.random() * .17f);
-
-        theme.smallTextSize = (float) ((Math.random() * (getResources().getDimension(
-                R.dimen.max_small_text_size) - getResources().getDimension(
-                R.dimen.min_small_text_size))) + getResources().getDimension(
-                R.dimen.min_small_text_size));
-        theme.smallPadding = (float) ((Math.random() * (getResources().getDimension(
-                R.dimen.max_small_padding) - getResources().getDimension(
-                R.dimen.min_small_padding))) + getResources().getDimension(
-                R.dimen.min_small_padding));
-        theme.smallTextAllCaps = Math.random() * 2 < 1;
-
-        theme.mediumPadding = (float) ((Math.random() * (getResources().getDimension(
-                R.dimen.max_medium_padding) - getResources().getDimension(
-                R.dimen.min_medium_padding))) + getResources().getDimension(
-                R.dimen.min_medium_padding));
-        theme.xSmallPadding = (float) ((Math.random() * (getResources().getDimension(
-                R.dimen.max_xsmall_padding) - getResources().getDimension(
-                R.dimen.min_xsmall_padding))) + getResources().getDimension(
-                R.dimen.min_xsmall_padding));
-
-        theme.isOutlinedTextField = !isDarkTheme;
-
-        int appBarVisibility = (int) (Math.random() * 10);
-        if (appBarVisibility < 3) {
-            theme.appBarVisibility = 0;
-        } else if (appBarVisibility < 6) {
-            theme.appBarVisibility = 1;
-        } else {
-            theme.appBarVisibility = 2;
+    @Override
+    protected void onDestroy() {
+        transitionDriver.cancel();
+        if (themePrefetcher != null) {
+            themePrefetcher.shutdown();
         }
+        frameMonitor.release();
+        // Stores that are still loading are closed by onStartupStateLoaded instead
+        closeStores();
+        super.onDestroy();
+    }
 
-        return theme;
+    private void closeStores() {
+        if (favoritesStore != null) {
+            try {
+                favoritesStore.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Couldn't close favorites", e);
+            }
+        }
+        if (seenThemes != null) {
+            try {
+                seenThemes.close();
+            } catch (IOException e) {
+                Log.w(TAG, "Couldn't close seen themes", e);
+            }
+        }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.gsajith.mdgen.core.FavoritesStore;
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.SeenThemeFilter;
+import com.gsajith.mdgen.core.ThemeGenerator;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Everything {@link MainActivity} has to build before it can show a theme: the generator with its
+ * palettes and contrast tables, the favorites and seen-theme files, and the first theme. None of
+ * it touches views, so it is loaded on a background thread while the themed preview inflates.
+ */
+final class StartupState {
+    private static final String TAG = "StartupState";
+
+    private static final String FAVORITES_FILE = "favorites.bin";
+    private static final String SEEN_THEMES_FILE = "seen_themes.bin";
+    /** Themes remembered per generation; the filter forgets them after two generations. */
+    private static final int SEEN_THEMES_CAPACITY = 100000;
+
+    final ThemeGenerator generator;
+    /** The saved favorites, or null if their file couldn't be opened. */
+    @Nullable
+    final FavoritesStore favoritesStore;
+    /** Themes shown in this and earlier sessions, or null if repeats are allowed. */
+    @Nullable
+    final SeenThemeFilter seenThemes;
+    final MaterialTheme firstTheme;
+
+    private StartupState(ThemeGenerator generator, @Nullable FavoritesStore favoritesStore,
+            @Nullable SeenThemeFilter seenThemes, MaterialTheme firstTheme) {
+        this.generator = generator;
+        this.favoritesStore = favoritesStore;
+        this.seenThemes = seenThemes;
+        this.firstTheme = firstTheme;
+    }
+
+    /**
+     * Gets the shared generator, opens the files under {@code context}'s files directory and
+     * generates the first theme from {@code seed}, skipping seen themes if {@code noRepeats} is
+     * set. The first theme is recorded as seen.
+     */
+    static StartupState load(Context context, long seed, boolean noRepeats) {
+        ThemeGenerator generator = MDGenUtils.getThemeGenerator(context.getResources());
+        FavoritesStore favoritesStore = openFavorites(context, generator);
+        SeenThemeFilter seenThemes = null;
+        MaterialTheme firstTheme;
+        if (noRepeats) {
+            seenThemes = openSeenThemes(context, generator);
+            firstTheme = generator.generateUnseen(seed, seenThemes,
+                    ThemePrefetcher.MAX_UNSEEN_ATTEMPTS);
+            seenThemes.add(firstTheme);
+        } else {
+            firstTheme = generator.generate(seed);
+        }
+        return new StartupState(generator, favoritesStore, seenThemes, firstTheme);
+    }
+
+    /**
+     * Opens the favorites, or returns null if they can't be read with this generator's keys. The
+     * file is never deleted: favorites are the user's own picks, so an unreadable file is left
+     * for a later version to migrate rather than replaced with an empty one.
+     */
+    @Nullable
+    private static FavoritesStore openFavorites(Context context, ThemeGenerator generator) {
+        File file = new File(context.getFilesDir(), FAVORITES_FILE);
+        try {
+            return FavoritesStore.open(file, generator.getKeyCodec());
+        } catch (IOException e) {
+            // The palette changed or the file is damaged, and its keys can't be decoded
+            Log.e(TAG, "Favorites are unavailable, leaving " + file + " as it is", e);
+            return null;
+        }
+    }
+
+    private static SeenThemeFilter openSeenThemes(Context context, ThemeGenerator generator) {
+        File file = new File(context.getFilesDir(), SEEN_THEMES_FILE);
+        try {
+            return SeenThemeFilter.open(file, generator.getKeyCodec(), SEEN_THEMES_CAPACITY);
+        } catch (IOException e) {
+            // The palette or capacity changed, so the recorded bits no longer line up
+            Log.w(TAG, "Discarding unreadable seen themes", e);
+            file.delete();
+        }
+        try {
+            return SeenThemeFilter.open(file, generator.getKeyCodec(), SEEN_THEMES_CAPACITY);
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't create " + file, e);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeGenerator;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Adapter for the theme gallery. Theme {@code i} is generated from
+ * {@code ThemeGenerator.seedForIndex(seed, i)} only when its cell, or the prefetch window
+ * around it, needs a thumbnail, so the item count costs nothing up front.
+ *
+ * <p>Thumbnails are rendered by {@link ThumbnailRenderer} on a small pool of background threads
+ * and kept in an LRU cache sized to the screen plus the prefetch window. Bitmaps leaving the
+ * cache go back to the renderer's pool, unless a cell still shows them, in which case they're
+ * returned when the cell is rebound. All bookkeeping happens on the main thread.
+ */
+final class ThemeGalleryAdapter extends RecyclerView.Adapter<ThemeGalleryAdapter.ThumbnailHolder> {
+    private static final int RENDER_THREADS = 2;
+
+    interface Listener {
+        void onThemeSelected(MaterialTheme theme);
+    }
+
+    private final ThemeGenerator generator;
+    private final long seed;
+    private final int count;
+    private final ThumbnailRenderer renderer;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService executor = Executors.newFixedThreadPool(RENDER_THREADS,
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ThumbnailRenderer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    private final LruCache<Integer, Bitmap> thumbnails;
+    private final SparseArray<Future<?>> pendingRenders = new SparseArray<>();
+    private final SparseArray<ThumbnailHolder> boundHolders = new SparseArray<>();
+    private final Set<Bitmap> boundBitmaps = Collections.newSetFromMap(
+            new IdentityHashMap<Bitmap, Boolean>());
+    private final Set<Bitmap> evictedBitmaps = Collections.newSetFromMap(
+            new IdentityHashMap<Bitmap, Boolean>());
+    private boolean shutDown;
+
+    ThemeGalleryAdapter(ThemeGenerator generator, long seed, int count,
+            ThumbnailRenderer renderer, int cacheSize, Listener listener) {
+        this.generator = generator;
+        this.seed = seed;
+        this.count = count;
+        this.renderer = renderer;
+        this.listener = listener;
+        thumbnails = new LruCache<Integer, Bitmap>(cacheSize) {
+            @Override
+            protected void entryRemoved(boolean evicted, Integer position, Bitmap oldValue,
+                    Bitmap newValue) {
+                if (boundBitmaps.contains(oldValue)) {
+                    evictedBitmaps.add(oldValue);
+                } else {
+                    ThemeGalleryAdapter.this.renderer.release(oldValue);
+                }
+            }
+        };
+    }
+
+    @Override
+    public int getItemCount() {
+        return count;
+    }
+
+    @Override
+    public ThumbnailHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_gallery_thumbnail, parent, false);
+        view.getLayoutParams().height = renderer.getHeight();
+        return new ThumbnailHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(ThumbnailHolder holder, int position) {
+        unbind(holder);
+        holder.position = position;
+        boundHolders.put(position, holder);
+
+        Bitmap bitmap = thumbnails.get(position);
+        if (bitmap != null) {
+            show(holder, bitmap);
+        } else {
+            requestRender(position);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(ThumbnailHolder holder) {
+        int position = holder.position;
+        unbind(holder);
+        Future<?> pending = pendingRenders.get(position);
+        if (pending != null && pending.cancel(false)) {
+            pendingRenders.remove(position);
+        }
+    }
+
+    /** Renders up to {@code length} thumbnails from {@code start} that aren't cached yet. */
+    void prefetch(int start, int length) {
+        int end = Math.min(start + length, count);
+        for (int position = Math.max(start, 0); position < end; position++) {
+            if (thumbnails.get(position) == null) {
+                requestRender(position);
+            }
+        }
+    }
+
+    void shutdown() {
+        shutDown = true;
+        executor.shutdownNow();
+        thumbnails.evictAll();
+    }
+
+    private void requestRender(final int position) {
+        if (shutDown || pendingRenders.get(position) != null) {
+            return;
+        }
+        pendingRenders.put(position, executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = renderer.render(generate(position));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onRendered(position, bitmap);
+                    }
+                });
+            }
+        }));
+    }
+
+    private void onRendered(int position, Bitmap bitmap) {
+        pendingRenders.remove(position);
+        if (shutDown) {
+            renderer.release(bitmap);
+            return;
+        }
+        thumbnails.put(position, bitmap);
+        ThumbnailHolder holder = boundHolders.get(position);
+        if (holder != null && holder.bitmap == null) {
+            show(holder, bitmap);
+        }
+    }
+
+    private void show(ThumbnailHolder holder, Bitmap bitmap) {
+        holder.bitmap = bitmap;
+        boundBitmaps.add(bitmap);
+        holder.image.setImageBitmap(bitmap);
+    }
+
+    private void unbind(ThumbnailHolder holder) {
+        if (holder.position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (boundHolders.get(holder.position) == holder) {
+            boundHolders.remove(holder.position);
+        }
+        holder.position = RecyclerView.NO_POSITION;
+
+        Bitmap bitmap = holder.bitmap;
+        holder.image.setImageDrawable(null);
+        holder.bitmap = null;
+        if (bitmap != null) {
+            boundBitmaps.remove(bitmap);
+            if (evictedBitmaps.remove(bitmap)) {
+                renderer.release(bitmap);
+            }
+        }
+    }
+
+    private MaterialTheme generate(int position) {
+        return generator.generate(ThemeGenerator.seedForIndex(seed, position));
+    }
+
+    final class ThumbnailHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        final ImageView image;
+        int position = RecyclerView.NO_POSITION;
+        Bitmap bitmap;
+
+        ThumbnailHolder(View itemView) {
+            super(itemView);
+            image = (ImageView) itemView;
+            itemView.setOnClickListener(this);
+        }
+
+        @Override
+        public void onClick(View view) {
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onThemeSelected(generate(position));
+            }
+        }
+    }
+}
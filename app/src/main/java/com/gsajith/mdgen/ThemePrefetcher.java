@@ -0,0 +1,191 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.os.Process;
+
+import androidx.annotation.Nullable;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.SeenThemeFilter;
+import com.gsajith.mdgen.core.ThemeGenerator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps a ring buffer of ready-made {@link TransitionPlan}s filled from a background thread, so
+ * the Generate click only has to dequeue a plan and start it.
+ *
+ * <p>Plans are chained: each one starts from the theme the previous one ends on, so taking them
+ * in order always yields a plan built against the theme currently on screen. If the buffer runs
+ * dry, {@link #next()} builds the plan on the calling thread instead, and any plan the producer
+ * was preparing against the old tail is discarded. {@link #rebase} restarts the chain from a theme
+ * that was put on screen some other way, such as stepping through history.
+ *
+ * <p>With a {@link SeenThemeFilter}, each plan skips themes the filter has already recorded,
+ * trying up to {@link #MAX_UNSEEN_ATTEMPTS} seeds before settling for a repeat.
+ */
+final class ThemePrefetcher {
+    static final int MAX_UNSEEN_ATTEMPTS = 8;
+
+    private final ThemeGenerator generator;
+    @Nullable
+    private final SeenThemeFilter seenThemes;
+    private final float cradleRoundedCornerRadius;
+    private final long seed;
+    private final TransitionPlan[] ring;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ThemePrefetcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+    private final Runnable refill = new Runnable() {
+        @Override
+        public void run() {
+            fill();
+        }
+    };
+
+    // Guarded by this
+    private int head;
+    private int count;
+    private long sequence;
+    private MaterialTheme tail;
+    private boolean refillScheduled;
+    private boolean shutDown;
+
+    ThemePrefetcher(ThemeGenerator generator, @Nullable SeenThemeFilter seenThemes,
+            float cradleRoundedCornerRadius, int capacity, long seed, MaterialTheme current) {
+        this.generator = generator;
+        this.seenThemes = seenThemes;
+        this.cradleRoundedCornerRadius = cradleRoundedCornerRadius;
+        this.seed = seed;
+        ring = new TransitionPlan[capacity];
+        tail = current;
+        scheduleRefill();
+    }
+
+    /** Returns the plan from the current theme to the next one. Never blocks on the producer. */
+    TransitionPlan next() {
+        TransitionPlan plan = null;
+        while (plan == null) {
+            MaterialTheme from;
+            long index;
+            synchronized (this) {
+                if (count > 0) {
+                    plan = ring[head];
+                    ring[head] = null;
+                    head = (head + 1) % ring.length;
+                    count--;
+                    break;
+                }
+                from = tail;
+                index = sequence;
+            }
+
+            // Built outside the lock, so the producer can keep appending meanwhile
+            TransitionPlan created = createPlan(from, index);
+
+            synchronized (this) {
+                // If the producer appended or the chain was rebased, go back to the ring
+                if (count == 0 && tail == from && sequence == index) {
+                    sequence++;
+                    tail = created.to;
+                    plan = created;
+                }
+            }
+        }
+        scheduleRefill();
+        return plan;
+    }
+
+    /** Drops the buffered plans and chains future plans from {@code current}. */
+    void rebase(MaterialTheme current) {
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                ring[(head + i) % ring.length] = null;
+            }
+            count = 0;
+            tail = current;
+        }
+        scheduleRefill();
+    }
+
+    void shutdown() {
+        synchronized (this) {
+            shutDown = true;
+        }
+        executor.shutdownNow();
+    }
+
+    private void scheduleRefill() {
+        synchronized (this) {
+            if (refillScheduled || shutDown || count == ring.length) {
+                return;
+            }
+            refillScheduled = true;
+        }
+        executor.execute(refill);
+    }
+
+    private void fill() {
+        while (true) {
+            MaterialTheme from;
+            long index;
+            synchronized (this) {
+                if (shutDown || count == ring.length) {
+                    refillScheduled = false;
+                    return;
+                }
+                from = tail;
+                index = sequence;
+            }
+
+            TransitionPlan plan = createPlan(from, index);
+
+            synchronized (this) {
+                // Only append if the consumer didn't extend the chain while we were building
+                if (tail == from && sequence == index && count < ring.length) {
+                    ring[(head + count) % ring.length] = plan;
+                    count++;
+                    sequence++;
+                    tail = plan.to;
+                }
+            }
+        }
+    }
+
+    private TransitionPlan createPlan(MaterialTheme from, long index) {
+        long planSeed = ThemeGenerator.seedForIndex(seed, index);
+        MaterialTheme to = seenThemes != null
+                ? generator.generateUnseen(planSeed, seenThemes, MAX_UNSEEN_ATTEMPTS)
+                : generator.generate(planSeed);
+        return new TransitionPlan(from, to, cradleRoundedCornerRadius);
+    }
+}
@@ -0,0 +1,709 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.graphics.Color;
+import android.graphics.drawable.Drawable;
+import android.util.TypedValue;
+import android.view.Choreographer;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.TextView;
+
+import androidx.core.graphics.drawable.DrawableCompat;
+
+import com.google.android.material.appbar.AppBarLayout;
+import com.google.android.material.bottomappbar.BottomAppBar;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.card.MaterialCardView;
+import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.shape.ShapeAppearanceModel;
+import com.google.android.material.textfield.TextInputLayout;
+import com.gsajith.mdgen.core.ColorGradient;
+import com.gsajith.mdgen.core.MaterialTheme;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.gsajith.mdgen.TransitionPlan.COLOR_CHANNELS;
+import static com.gsajith.mdgen.TransitionPlan.CRADLE_RADIUS;
+import static com.gsajith.mdgen.TransitionPlan.ELEVATION;
+import static com.gsajith.mdgen.TransitionPlan.FAB_OFFSET;
+import static com.gsajith.mdgen.TransitionPlan.LETTER_SPACING;
+import static com.gsajith.mdgen.TransitionPlan.MEDIUM_CORNER;
+import static com.gsajith.mdgen.TransitionPlan.ON_PRIMARY;
+import static com.gsajith.mdgen.TransitionPlan.ON_SECONDARY;
+import static com.gsajith.mdgen.TransitionPlan.ON_SURFACE;
+import static com.gsajith.mdgen.TransitionPlan.PRIMARY;
+import static com.gsajith.mdgen.TransitionPlan.SCALAR_CHANNELS;
+import static com.gsajith.mdgen.TransitionPlan.SECONDARY;
+import static com.gsajith.mdgen.TransitionPlan.SMALL_CORNER;
+import static com.gsajith.mdgen.TransitionPlan.SMALL_PADDING;
+import static com.gsajith.mdgen.TransitionPlan.SMALL_TEXT_SIZE;
+import static com.gsajith.mdgen.TransitionPlan.SURFACE;
+import static com.gsajith.mdgen.TransitionPlan.TOP_APP_BAR_OFFSET;
+import static com.gsajith.mdgen.TransitionPlan.XSMALL_PADDING;
+
+/**
+ * Animates the themed views from one {@link MaterialTheme} to another on a single
+ * {@link Choreographer} callback.
+ *
+ * <p>Every themed property is a channel in a {@link TransitionPlan}: scalars are flat float
+ * vectors and colors are {@link ColorGradient} tables, so a frame is one pass over the plan
+ * followed by one pass over the registered views. Each channel's delay, duration and easing come
+ * from the plan's {@link Choreography} keyframes, evaluated against the one frame clock, and
+ * discrete steps such as showing the bottom app bar are cues on the same timeline.
+ * Channels whose start and end values match are only applied on the first frame. Tints are pushed
+ * through {@link ColorStateListPair}s, so nothing is allocated per frame.
+ *
+ * <p>Text size, letter spacing and padding normally go through their setters every frame, which
+ * requests a layout each time. In {@linkplain #setLayoutFree layout-free} mode those channels are
+ * instead approximated with scale and translation transforms, and the real values are committed
+ * to the layout once, when the transition ends or is cancelled.
+ *
+ * <p>Starting a transition while another is running retargets it: the new plan is rebuilt to
+ * start from the interrupted transition's current values and colors, and the interrupted plan's
+ * end-of-transition work never runs. Only one plan is ever animated, so rapid restarts cost no
+ * more per frame than a single transition.
+ */
+final class ThemeTransitionDriver implements Choreographer.FrameCallback,
+        ThemeableViewIndex.Listener {
+    /** Typical glyph advance in ems, for estimating how letter spacing changes text width. */
+    private static final float AVERAGE_ADVANCE = .55f;
+
+    interface TransitionListener {
+        void onTransitionStart(TransitionPlan plan);
+
+        void onTransitionEnd(TransitionPlan plan);
+    }
+
+    private final float[] current = new float[SCALAR_CHANNELS];
+    /** Scalar values the views were last laid out with, which layout-free transforms scale. */
+    private final float[] laidOut = new float[SCALAR_CHANNELS];
+    private final int[] colors = new int[COLOR_CHANNELS];
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final List<Target> targets = new ArrayList<>();
+
+    private TransitionPlan plan;
+    private TransitionListener transitionListener;
+    private long startTimeNanos;
+    /** Cues of the current plan that have come due, as bits indexed by cue. */
+    private int firedCues;
+    /** Cues that came due in the latest update and go out after the views are applied. */
+    private int pendingCues;
+    private boolean firstFrame;
+    private boolean running;
+    private boolean layoutFree;
+    private boolean layoutFreeTransition;
+    private boolean laidOutKnown;
+
+    @Override
+    public void onViewAdded(View view, int type) {
+        switch (type) {
+            case ThemeableViewIndex.CARD:
+                targets.add(new CardTarget((MaterialCardView) view));
+                break;
+            case ThemeableViewIndex.BUTTON:
+                targets.add(new ButtonTarget((MaterialButton) view));
+                break;
+            case ThemeableViewIndex.TEXT_INPUT_LAYOUT:
+                targets.add(new TextInputLayoutTarget((TextInputLayout) view));
+                break;
+            case ThemeableViewIndex.TOP_APP_BAR:
+                targets.add(new TopAppBarTarget((AppBarLayout) view));
+                break;
+            case ThemeableViewIndex.BOTTOM_APP_BAR:
+                targets.add(new BottomAppBarTarget((BottomAppBar) view));
+                break;
+            case ThemeableViewIndex.FLOATING_ACTION_BUTTON:
+                targets.add(new FloatingActionButtonTarget((FloatingActionButton) view));
+                break;
+            default:
+                // Edit texts are themed through their TextInputLayout
+                break;
+        }
+    }
+
+    @Override
+    public void onViewRemoved(View view, int type) {
+        for (int i = targets.size() - 1; i >= 0; i--) {
+            if (targets.get(i).view == view) {
+                targets.remove(i);
+            }
+        }
+    }
+
+    void setTransitionListener(TransitionListener transitionListener) {
+        this.transitionListener = transitionListener;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /** Switches layout-free mode on or off, starting with the next transition. */
+    void setLayoutFree(boolean layoutFree) {
+        this.layoutFree = layoutFree;
+    }
+
+    /**
+     * Starts animating every registered view along a prepared {@code plan}, or retargets the
+     * running transition to the plan's end theme.
+     */
+    void start(TransitionPlan plan) {
+        if (running) {
+            choreographer.removeFrameCallback(this);
+            if (firstFrame) {
+                // Nothing was drawn yet, so the interrupted plan's start is what's on screen
+                update(0);
+            }
+            plan = plan.retarget(current, colors);
+        } else {
+            // Transforms need a known layout to scale from, so the first transition lays out
+            layoutFreeTransition = layoutFree && laidOutKnown;
+        }
+        this.plan = plan;
+
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).onStart(plan.from, plan.to);
+        }
+
+        startTimeNanos = -1;
+        firedCues = 0;
+        pendingCues = 0;
+        firstFrame = true;
+        running = true;
+        choreographer.postFrameCallback(this);
+        if (transitionListener != null) {
+            transitionListener.onTransitionStart(plan);
+        }
+    }
+
+    /**
+     * Applies {@code plan}'s end theme to every registered view at once, with no animation and no
+     * transition callbacks. Used for the first theme, where there is nothing to animate from.
+     */
+    void snapTo(TransitionPlan plan) {
+        cancel();
+        this.plan = plan;
+        layoutFreeTransition = false;
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).onStart(plan.from, plan.to);
+        }
+        firedCues = 0;
+        pendingCues = 0;
+        firstFrame = true;
+        update(plan.duration);
+        applyFrame();
+        settleLayout();
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).onEnd(plan.to);
+        }
+    }
+
+    void cancel() {
+        if (running) {
+            choreographer.removeFrameCallback(this);
+            running = false;
+            settleLayout();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (startTimeNanos < 0) {
+            startTimeNanos = frameTimeNanos;
+        }
+        boolean finished = update((frameTimeNanos - startTimeNanos) / 1000000f);
+
+        applyFrame();
+
+        if (finished) {
+            running = false;
+            settleLayout();
+            for (int i = 0; i < targets.size(); i++) {
+                targets.get(i).onEnd(plan.to);
+            }
+            if (transitionListener != null) {
+                transitionListener.onTransitionEnd(plan);
+            }
+        } else {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    /** Pushes the state vector to the views, then fires the cues the last update made due. */
+    private void applyFrame() {
+        for (int i = 0; i < targets.size(); i++) {
+            targets.get(i).apply();
+        }
+        firstFrame = false;
+        for (int cue = 0; pendingCues != 0; cue++) {
+            if ((pendingCues & 1 << cue) != 0) {
+                pendingCues &= ~(1 << cue);
+                for (int i = 0; i < targets.size(); i++) {
+                    targets.get(i).onCue(cue, plan.to);
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances the state vector to {@code elapsed} milliseconds, fires any cues that are due, and
+     * returns true once the plan is done.
+     */
+    private boolean update(float elapsed) {
+        float[] start = plan.start;
+        float[] end = plan.end;
+        float[] keyframes = plan.keyframes;
+        for (int i = 0; i < SCALAR_CHANNELS; i++) {
+            current[i] = start[i]
+                    + (end[i] - start[i]) * Choreography.fraction(keyframes, i, elapsed);
+        }
+        for (int channel = 0; channel < COLOR_CHANNELS; channel++) {
+            colors[channel] = plan.gradients[channel].getColor(Choreography.fraction(keyframes,
+                    Choreography.colorTrack(channel), elapsed));
+        }
+
+        for (int cue = 0; cue < Choreography.CUES; cue++) {
+            float time = plan.cueTimes[cue];
+            if (time >= 0 && time <= elapsed && (firedCues & 1 << cue) == 0) {
+                firedCues |= 1 << cue;
+                pendingCues |= 1 << cue;
+            }
+        }
+        return elapsed >= plan.duration;
+    }
+
+    /** Brings the views' layout up to date once a transition stops animating. */
+    private void settleLayout() {
+        if (layoutFreeTransition) {
+            for (int i = 0; i < targets.size(); i++) {
+                targets.get(i).commitLayout(plan.to);
+            }
+            System.arraycopy(plan.end, 0, laidOut, 0, SCALAR_CHANNELS);
+            laidOutKnown = true;
+        } else if (!firstFrame) {
+            // The last frame already pushed every channel through its setter
+            System.arraycopy(current, 0, laidOut, 0, SCALAR_CHANNELS);
+            laidOutKnown = true;
+        }
+    }
+
+    private boolean shouldApply(int channel) {
+        return firstFrame || plan.start[channel] != plan.end[channel];
+    }
+
+    /** Like {@link #shouldApply}, for channels whose setters request a layout. */
+    private boolean shouldApplyLayout(int channel) {
+        return !layoutFreeTransition && shouldApply(channel);
+    }
+
+    /** Returns whether layout-free transforms need updating this frame. */
+    private boolean shouldTransform() {
+        return layoutFreeTransition && (plan.start[SMALL_TEXT_SIZE] != plan.end[SMALL_TEXT_SIZE]
+                || plan.start[LETTER_SPACING] != plan.end[LETTER_SPACING]
+                || plan.start[SMALL_PADDING] != plan.end[SMALL_PADDING]
+                || plan.start[XSMALL_PADDING] != plan.end[XSMALL_PADDING]);
+    }
+
+    /** Returns how much taller small text is now than it was laid out. */
+    private float textScaleY() {
+        return value(SMALL_TEXT_SIZE) / laidOut[SMALL_TEXT_SIZE];
+    }
+
+    /** Estimates how much wider small text is now than it was laid out. */
+    private float textScaleX() {
+        return textScaleY() * (AVERAGE_ADVANCE + value(LETTER_SPACING))
+                / (AVERAGE_ADVANCE + laidOut[LETTER_SPACING]);
+    }
+
+    private boolean shouldApplyColor(int channel) {
+        ColorGradient gradient = plan.gradients[channel];
+        return firstFrame || gradient.getStartColor() != gradient.getEndColor();
+    }
+
+    private float value(int channel) {
+        return current[channel];
+    }
+
+    private int color(int channel) {
+        return colors[channel];
+    }
+
+    private abstract class Target {
+        final View view;
+
+        Target(View view) {
+            this.view = view;
+        }
+
+        void onStart(MaterialTheme from, MaterialTheme to) {
+        }
+
+        abstract void apply();
+
+        /** Called when the plan's timeline reaches {@code cue}, after that frame is applied. */
+        void onCue(int cue, MaterialTheme to) {
+        }
+
+        void onEnd(MaterialTheme theme) {
+        }
+
+        /** Clears layout-free transforms and applies {@code theme}'s layout values for real. */
+        void commitLayout(MaterialTheme theme) {
+        }
+    }
+
+    private final class ButtonTarget extends Target {
+        private final MaterialButton button;
+        private final boolean transparent;
+        private final ColorStateListPair backgroundTint = new ColorStateListPair();
+        private final ColorStateListPair strokeColor = new ColorStateListPair();
+        private final ColorStateListPair textColor = new ColorStateListPair();
+        private final ColorStateListPair rippleColor = new ColorStateListPair();
+        /**
+         * The button's own model, which stays installed for good. setCornerRadius animates the
+         * corner size on it in place, so only a change of corner family re-installs it.
+         */
+        private final ShapeAppearanceModel shape;
+        private int cornerFamily = -1;
+        /** The button, if it can scale its label without scaling its background. */
+        private final TransitionButton transitionButton;
+        private float textWidth;
+        private float chromeWidth;
+        private int laidOutLeft;
+        private int laidOutRight;
+        /** Whether the bounds differ from the laid-out ones until the layout is committed. */
+        private boolean resized;
+
+        ButtonTarget(MaterialButton button) {
+            super(button);
+            this.button = button;
+            transitionButton = button instanceof TransitionButton
+                    ? (TransitionButton) button : null;
+            shape = button.getShapeAppearanceModel();
+            transparent = button.getBackgroundTintList().getColorForState(
+                    new int[]{android.R.attr.state_enabled}, Color.TRANSPARENT) == 0;
+        }
+
+        @Override
+        void apply() {
+            if (shouldApplyColor(PRIMARY)) {
+                if (!transparent) {
+                    button.setBackgroundTintList(backgroundTint.next(color(PRIMARY)));
+                }
+                button.setStrokeColor(strokeColor.next(color(PRIMARY)));
+            }
+            int textChannel = transparent ? PRIMARY : ON_PRIMARY;
+            if (shouldApplyColor(textChannel)) {
+                button.setTextColor(textColor.next(color(textChannel)));
+
+                // TODO: Might have to add alpha here
+                button.setRippleColor(rippleColor.next(color(textChannel)));
+            }
+            if (shouldApply(SMALL_CORNER)) {
+                button.setCornerRadius(Math.round(value(SMALL_CORNER)));
+            }
+            if (!transparent && shouldApply(ELEVATION)) {
+                button.setElevation(value(ELEVATION));
+            }
+            if (shouldApplyLayout(LETTER_SPACING)) {
+                button.setLetterSpacing(value(LETTER_SPACING));
+            }
+            if (shouldApplyLayout(SMALL_TEXT_SIZE)) {
+                button.setTextSize(TypedValue.COMPLEX_UNIT_PX, value(SMALL_TEXT_SIZE));
+            }
+            if (shouldApplyLayout(SMALL_PADDING)) {
+                int padding = Math.round(value(SMALL_PADDING));
+                button.setPaddingRelative(padding, button.getPaddingTop(), padding,
+                        button.getPaddingBottom());
+            }
+            if (shouldTransform() && laidOutRight > laidOutLeft) {
+                // Resize the bounds around the laid-out center to the width the button will
+                // have once the layout is committed, so the corners keep their shape
+                float width = Math.max(
+                        textWidth * textScaleX() + 2 * value(SMALL_PADDING) + chromeWidth,
+                        button.getMinWidth());
+                int left = Math.round((laidOutLeft + laidOutRight - width) / 2);
+                button.setLeft(left);
+                button.setRight(left + Math.round(width));
+                resized = true;
+                if (transitionButton != null) {
+                    transitionButton.setLabelTransform(textScaleX(), textScaleY(),
+                            (button.getWidth() - (laidOutRight - laidOutLeft)) / 2f);
+                }
+            }
+        }
+
+        @Override
+        void onStart(MaterialTheme from, MaterialTheme to) {
+            // A retargeted transition keeps measuring from the last real layout
+            if (layoutFreeTransition && !resized) {
+                textWidth = button.getLayout() != null ? button.getLayout().getLineWidth(0) : 0;
+                chromeWidth = button.getWidth() - textWidth - 2 * laidOut[SMALL_PADDING];
+                laidOutLeft = button.getLeft();
+                laidOutRight = button.getRight();
+            }
+        }
+
+        @Override
+        void commitLayout(MaterialTheme theme) {
+            if (transitionButton != null) {
+                transitionButton.setLabelTransform(1, 1, 0);
+            }
+            if (resized) {
+                // The setters below skip values that didn't change, and with them the layout
+                resized = false;
+                button.requestLayout();
+            }
+            button.setLetterSpacing(theme.letterSpacingSmall);
+            button.setTextSize(TypedValue.COMPLEX_UNIT_PX, theme.smallTextSize);
+            int padding = Math.round(theme.smallPadding);
+            button.setPaddingRelative(padding, button.getPaddingTop(), padding,
+                    button.getPaddingBottom());
+        }
+
+        @Override
+        void onEnd(MaterialTheme theme) {
+            button.setAllCaps(theme.smallTextAllCaps);
+            if (theme.cornerFamily != cornerFamily) {
+                // Swapping corner treatments is the one change that rebuilds the drawable
+                cornerFamily = theme.cornerFamily;
+                shape.setAllCorners(theme.cornerFamily, theme.smallCornerSize);
+                button.setShapeAppearanceModel(shape);
+            }
+        }
+    }
+
+    private final class CardTarget extends Target {
+        private final MaterialCardView card;
+        private final ColorStateListPair backgroundColor = new ColorStateListPair();
+
+        CardTarget(MaterialCardView card) {
+            super(card);
+            this.card = card;
+        }
+
+        @Override
+        void apply() {
+            if (shouldApplyColor(SURFACE)) {
+                card.setCardBackgroundColor(backgroundColor.next(color(SURFACE)));
+            }
+            if (shouldApply(MEDIUM_CORNER)) {
+                card.setRadius(value(MEDIUM_CORNER));
+            }
+            if (shouldApply(ELEVATION)) {
+                card.setCardElevation(value(ELEVATION));
+            }
+        }
+    }
+
+    private final class TextInputLayoutTarget extends Target {
+        private final TextInputLayout textInputLayout;
+        private final EditText editText;
+        private final ColorStateListPair hintTextColor = new ColorStateListPair();
+        private final ColorStateListPair defaultHintTextColor = new ColorStateListPair();
+        private final ColorStateListPair textColor = new ColorStateListPair();
+
+        TextInputLayoutTarget(TextInputLayout textInputLayout) {
+            super(textInputLayout);
+            this.textInputLayout = textInputLayout;
+            editText = textInputLayout.getEditText();
+        }
+
+        @Override
+        void apply() {
+            if (shouldApplyColor(PRIMARY)) {
+                textInputLayout.setHintTextColor(hintTextColor.next(color(PRIMARY)));
+                textInputLayout.setBoxStrokeColor(color(PRIMARY));
+                textInputLayout.setDefaultHintTextColor(
+                        defaultHintTextColor.next(color(PRIMARY)));
+            }
+            if (shouldApplyColor(ON_SURFACE)) {
+                editText.setTextColor(textColor.next(color(ON_SURFACE)));
+            }
+            if (shouldApply(SMALL_CORNER)) {
+                float radius = value(SMALL_CORNER);
+                textInputLayout.setBoxCornerRadii(radius, radius, radius, radius);
+            }
+            if (shouldApplyLayout(LETTER_SPACING)) {
+                editText.setLetterSpacing(value(LETTER_SPACING));
+            }
+            if (shouldApplyLayout(XSMALL_PADDING)) {
+                int padding = Math.round(value(XSMALL_PADDING));
+                editText.setPadding(padding, editText.getPaddingTop(), padding,
+                        editText.getPaddingBottom());
+            }
+            if (shouldApplyLayout(SMALL_TEXT_SIZE)) {
+                editText.setTextSize(TypedValue.COMPLEX_UNIT_PX, value(SMALL_TEXT_SIZE));
+            }
+            if (shouldTransform()) {
+                // Scale the text about its leading edge and slide it by the padding change
+                editText.setPivotX(editText.getPaddingLeft());
+                editText.setPivotY(editText.getHeight() / 2f);
+                editText.setScaleX(textScaleX());
+                editText.setScaleY(textScaleY());
+                editText.setTranslationX(value(XSMALL_PADDING) - laidOut[XSMALL_PADDING]);
+            }
+        }
+
+        @Override
+        void commitLayout(MaterialTheme theme) {
+            editText.setScaleX(1);
+            editText.setScaleY(1);
+            editText.setTranslationX(0);
+            editText.setLetterSpacing(theme.letterSpacingSmall);
+            int padding = Math.round(theme.xSmallPadding);
+            editText.setPadding(padding, editText.getPaddingTop(), padding,
+                    editText.getPaddingBottom());
+            editText.setTextSize(TypedValue.COMPLEX_UNIT_PX, theme.smallTextSize);
+        }
+    }
+
+    private final class TopAppBarTarget extends Target {
+        private final AppBarLayout topAppBar;
+        private final View toolbar;
+        private final TextView toolbarTitle;
+        private final ColorStateListPair titleColor = new ColorStateListPair();
+
+        TopAppBarTarget(AppBarLayout topAppBar) {
+            super(topAppBar);
+            this.topAppBar = topAppBar;
+            toolbar = topAppBar.getChildAt(0);
+            toolbarTitle = topAppBar.findViewById(R.id.toolbar_title);
+        }
+
+        @Override
+        void apply() {
+            if (shouldApply(TOP_APP_BAR_OFFSET)) {
+                topAppBar.setTranslationY(
+                        value(TOP_APP_BAR_OFFSET) * topAppBar.getHeight() * -1.1f);
+            }
+            if (shouldApplyColor(PRIMARY)) {
+                toolbar.setBackgroundColor(color(PRIMARY));
+            }
+            if (shouldApplyColor(ON_PRIMARY)) {
+                toolbarTitle.setTextColor(titleColor.next(color(ON_PRIMARY)));
+            }
+            if (shouldApplyLayout(LETTER_SPACING)) {
+                toolbarTitle.setLetterSpacing(value(LETTER_SPACING));
+            }
+            if (shouldApplyLayout(SMALL_TEXT_SIZE)) {
+                toolbarTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, value(SMALL_TEXT_SIZE));
+            }
+            if (shouldTransform()) {
+                toolbarTitle.setPivotX(0);
+                toolbarTitle.setPivotY(toolbarTitle.getHeight() / 2f);
+                toolbarTitle.setScaleX(textScaleX());
+                toolbarTitle.setScaleY(textScaleY());
+            }
+        }
+
+        @Override
+        void commitLayout(MaterialTheme theme) {
+            toolbarTitle.setScaleX(1);
+            toolbarTitle.setScaleY(1);
+            toolbarTitle.setLetterSpacing(theme.letterSpacingSmall);
+            toolbarTitle.setTextSize(TypedValue.COMPLEX_UNIT_PX, theme.smallTextSize);
+        }
+
+        @Override
+        void onEnd(MaterialTheme theme) {
+            toolbarTitle.setAllCaps(theme.smallTextAllCaps);
+        }
+    }
+
+    private final class BottomAppBarTarget extends Target {
+        private final BottomAppBar bottomAppBar;
+        private final Drawable navigationIcon;
+        private final ColorStateListPair backgroundTint = new ColorStateListPair();
+        private final ColorStateListPair iconTint = new ColorStateListPair();
+        // Tracked here rather than derived from the plan, as an interrupted plan never ends
+        private boolean shown = true;
+        private boolean showOnCue;
+
+        BottomAppBarTarget(BottomAppBar bottomAppBar) {
+            super(bottomAppBar);
+            this.bottomAppBar = bottomAppBar;
+            Drawable drawable = bottomAppBar.getNavigationIcon();
+            if (drawable != null) {
+                drawable = DrawableCompat.wrap(drawable).mutate();
+                bottomAppBar.setNavigationIcon(drawable);
+            }
+            navigationIcon = drawable;
+        }
+
+        @Override
+        void onStart(MaterialTheme from, MaterialTheme to) {
+            boolean showBottomAppBar = to.appBarVisibility == MaterialTheme.APP_BAR_BOTTOM;
+            showOnCue = showBottomAppBar && !shown;
+            if (!showBottomAppBar && shown) {
+                bottomAppBar.performHide();
+                shown = false;
+            }
+        }
+
+        @Override
+        void apply() {
+            if (shouldApplyColor(PRIMARY)) {
+                bottomAppBar.setBackgroundTint(backgroundTint.next(color(PRIMARY)));
+            }
+            if (navigationIcon != null && shouldApplyColor(ON_PRIMARY)) {
+                DrawableCompat.setTintList(navigationIcon, iconTint.next(color(ON_PRIMARY)));
+            }
+            if (shouldApply(CRADLE_RADIUS)) {
+                bottomAppBar.setFabCradleRoundedCornerRadius(value(CRADLE_RADIUS));
+            }
+        }
+
+        @Override
+        void onCue(int cue, MaterialTheme to) {
+            if (cue == Choreography.SHOW_BOTTOM_APP_BAR && showOnCue) {
+                bottomAppBar.performShow();
+                shown = true;
+            }
+        }
+    }
+
+    private final class FloatingActionButtonTarget extends Target {
+        private final FloatingActionButton floatingActionButton;
+        private final ColorStateListPair backgroundTint = new ColorStateListPair();
+        private final ColorStateListPair imageTint = new ColorStateListPair();
+
+        FloatingActionButtonTarget(FloatingActionButton floatingActionButton) {
+            super(floatingActionButton);
+            this.floatingActionButton = floatingActionButton;
+        }
+
+        @Override
+        void apply() {
+            if (shouldApplyColor(SECONDARY)) {
+                floatingActionButton.setBackgroundTintList(
+                        backgroundTint.next(color(SECONDARY)));
+            }
+            if (shouldApplyColor(ON_SECONDARY)) {
+                floatingActionButton.setImageTintList(imageTint.next(color(ON_SECONDARY)));
+            }
+            if (shouldApply(FAB_OFFSET)) {
+                floatingActionButton.setTranslationY(
+                        value(FAB_OFFSET) * floatingActionButton.getHeight() * 1.5f);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.google.android.material.appbar.AppBarLayout;
+import com.google.android.material.bottomappbar.BottomAppBar;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.card.MaterialCardView;
+import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every themeable view under a root, grouped by type.
+ *
+ * <p>The tree is classified in one traversal. Each concrete view class is resolved to a type
+ * once and then looked up in a cache. Afterwards the index keeps itself current through an
+ * {@link ViewGroup.OnHierarchyChangeListener} on the root, so adding or removing a subtree there
+ * only costs the size of that subtree. Only the root is observed: a ViewGroup holds a single
+ * listener, and replacing one a widget installed for itself would break it. Views added or
+ * removed deeper than the root's children are not tracked.
+ */
+final class ThemeableViewIndex {
+    static final int NONE = -1;
+    static final int CARD = 0;
+    static final int BUTTON = 1;
+    static final int TEXT_INPUT_LAYOUT = 2;
+    static final int TEXT_INPUT_EDIT_TEXT = 3;
+    static final int TOP_APP_BAR = 4;
+    static final int BOTTOM_APP_BAR = 5;
+    static final int FLOATING_ACTION_BUTTON = 6;
+    private static final int TYPE_COUNT = 7;
+
+    // Indexed by the type constants above
+    private static final Class<?>[] TYPES = {
+            MaterialCardView.class,
+            MaterialButton.class,
+            TextInputLayout.class,
+            TextInputEditText.class,
+            AppBarLayout.class,
+            BottomAppBar.class,
+            FloatingActionButton.class
+    };
+
+    interface Listener {
+        void onViewAdded(View view, int type);
+
+        void onViewRemoved(View view, int type);
+    }
+
+    private final Map<Class<?>, Integer> typeCache = new HashMap<>();
+    private final List<List<View>> views = new ArrayList<>(TYPE_COUNT);
+    private final Listener listener;
+    private final ViewGroup.OnHierarchyChangeListener hierarchyChangeListener =
+            new ViewGroup.OnHierarchyChangeListener() {
+                @Override
+                public void onChildViewAdded(View parent, View child) {
+                    add(child);
+                }
+
+                @Override
+                public void onChildViewRemoved(View parent, View child) {
+                    remove(child);
+                }
+            };
+
+    ThemeableViewIndex(View root, Listener listener) {
+        this.listener = listener;
+        for (int i = 0; i < TYPE_COUNT; i++) {
+            views.add(new ArrayList<View>());
+        }
+        add(root);
+        if (root instanceof ViewGroup) {
+            ((ViewGroup) root).setOnHierarchyChangeListener(hierarchyChangeListener);
+        }
+    }
+
+    /** Returns the indexed views of {@code type}. The list is live and must not be modified. */
+    List<View> getViews(int type) {
+        return views.get(type);
+    }
+
+    private void add(View view) {
+        int type = typeOf(view);
+        if (type != NONE) {
+            views.get(type).add(view);
+            listener.onViewAdded(view, type);
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                add(viewGroup.getChildAt(i));
+            }
+        }
+    }
+
+    private void remove(View view) {
+        int type = typeOf(view);
+        if (type != NONE && views.get(type).remove(view)) {
+            listener.onViewRemoved(view, type);
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup viewGroup = (ViewGroup) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                remove(viewGroup.getChildAt(i));
+            }
+        }
+    }
+
+    private int typeOf(View view) {
+        Class<?> viewClass = view.getClass();
+        Integer type = typeCache.get(viewClass);
+        if (type == null) {
+            type = NONE;
+            for (int i = 0; i < TYPES.length; i++) {
+                if (TYPES[i].isAssignableFrom(viewClass)) {
+                    type = i;
+                    break;
+                }
+            }
+            typeCache.put(viewClass, type);
+        }
+        return type;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemePreviewRasterizer;
+
+import java.util.ArrayDeque;
+
+/**
+ * Renders theme thumbnails with {@link ThemePreviewRasterizer} into fixed-size bitmaps. Released
+ * bitmaps go back to a bounded pool and are drawn over by later renders, so steady-state
+ * rendering allocates no pixel memory. Safe to call from any thread; each thread draws with its
+ * own {@link BitmapPreviewCanvas}.
+ */
+final class ThumbnailRenderer {
+    private final ThemePreviewRasterizer rasterizer;
+    private final int width;
+    private final int height;
+    private final int maxPooledBitmaps;
+    private final ThreadLocal<BitmapPreviewCanvas> canvases =
+            new ThreadLocal<BitmapPreviewCanvas>() {
+                @Override
+                protected BitmapPreviewCanvas initialValue() {
+                    return new BitmapPreviewCanvas();
+                }
+            };
+
+    // Guarded by this
+    private final ArrayDeque<Bitmap> pool = new ArrayDeque<>();
+
+    ThumbnailRenderer(float density, int width, int height, int maxPooledBitmaps) {
+        rasterizer = new ThemePreviewRasterizer(density);
+        this.width = width;
+        this.height = height;
+        this.maxPooledBitmaps = maxPooledBitmaps;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /** Renders {@code theme} into a pooled bitmap. Hand it back with {@link #release}. */
+    Bitmap render(MaterialTheme theme) {
+        Bitmap bitmap;
+        synchronized (this) {
+            bitmap = pool.poll();
+        }
+        if (bitmap == null) {
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } else {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+        BitmapPreviewCanvas canvas = canvases.get();
+        canvas.setBitmap(bitmap);
+        rasterizer.draw(theme, canvas, width, height);
+        canvas.setBitmap(null);
+        return bitmap;
+    }
+
+    /** Returns a bitmap from {@link #render} to the pool once nothing draws it anymore. */
+    void release(Bitmap bitmap) {
+        synchronized (this) {
+            if (pool.size() < maxPooledBitmaps) {
+                pool.push(bitmap);
+                return;
+            }
+        }
+        bitmap.recycle();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+
+import com.google.android.material.button.MaterialButton;
+
+/**
+ * A {@link MaterialButton} whose label can be drawn scaled and shifted. The background and its
+ * corners are drawn before {@link #onDraw}, so they are left alone.
+ * {@link ThemeTransitionDriver} uses this in layout-free mode to preview a text size change
+ * without calling {@code setTextSize}, which would request a layout.
+ */
+public class TransitionButton extends MaterialButton {
+    private float labelScaleX = 1;
+    private float labelScaleY = 1;
+    private float labelTranslationX;
+
+    public TransitionButton(Context context) {
+        super(context);
+    }
+
+    public TransitionButton(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public TransitionButton(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    /**
+     * Scales the label about its laid-out center, then moves it right by {@code translationX}.
+     * The identity transform is {@code (1, 1, 0)}.
+     */
+    void setLabelTransform(float scaleX, float scaleY, float translationX) {
+        if (scaleX != labelScaleX || scaleY != labelScaleY
+                || translationX != labelTranslationX) {
+            labelScaleX = scaleX;
+            labelScaleY = scaleY;
+            labelTranslationX = translationX;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (labelScaleX == 1 && labelScaleY == 1 && labelTranslationX == 0) {
+            super.onDraw(canvas);
+            return;
+        }
+        // The text layout keeps the width it was measured with, centered at getWidth() / 2
+        // before the bounds changed
+        int saveCount = canvas.save();
+        canvas.translate(labelTranslationX, 0);
+        canvas.scale(labelScaleX, labelScaleY, getWidth() / 2f - labelTranslationX,
+                getHeight() / 2f);
+        super.onDraw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+}
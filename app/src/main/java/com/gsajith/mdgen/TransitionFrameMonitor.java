@@ -0,0 +1,293 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+import androidx.annotation.RequiresApi;
+
+import com.gsajith.mdgen.core.FrameHistogram;
+import com.gsajith.mdgen.core.ThemeDiff;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+
+/**
+ * Records how smoothly each theme transition renders.
+ *
+ * <p>While a transition runs, every frame's duration goes into a {@link FrameHistogram}. On API
+ * 24+ the durations come from {@link FrameMetrics}; on older devices they are the deltas between
+ * Choreographer frame times. The monitor also counts the frames each transition dropped and
+ * keeps the slowest transitions together with the theme changes that caused them. With
+ * FrameMetrics, drops are the vsyncs skipped between frames' intended vsync times; otherwise
+ * they are estimated from the frame durations. Recording a frame allocates nothing; a report is
+ * only built when a transition ranks among the slowest or when {@link #dump} runs.
+ *
+ * <p>Layout passes are counted with a global layout listener. A transition is closed out after
+ * the frame that ended it has been laid out, so layout requested by the last frame counts too.
+ */
+final class TransitionFrameMonitor implements ThemeTransitionDriver.TransitionListener {
+    private static final int SLOWEST_COUNT = 5;
+
+    private final long frameIntervalNanos;
+    private final FrameHistogram histogram = new FrameHistogram();
+    private final TransitionRecord[] slowest = new TransitionRecord[SLOWEST_COUNT];
+    private final Window window;
+    private final View decorView;
+    private HandlerThread metricsThread;
+    private Window.OnFrameMetricsAvailableListener metricsListener;
+    private final Choreographer.FrameCallback choreographerCallback =
+            new Choreographer.FrameCallback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    synchronized (TransitionFrameMonitor.this) {
+                        if (!active) {
+                            return;
+                        }
+                        if (lastFrameTimeNanos > 0) {
+                            long durationNanos = frameTimeNanos - lastFrameTimeNanos;
+                            record(durationNanos, durationNanos > frameIntervalNanos
+                                    ? (int) ((durationNanos - 1) / frameIntervalNanos) : 0);
+                        }
+                        lastFrameTimeNanos = frameTimeNanos;
+                    }
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            };
+
+    private final ViewTreeObserver.OnGlobalLayoutListener layoutListener =
+            new ViewTreeObserver.OnGlobalLayoutListener() {
+                @Override
+                public void onGlobalLayout() {
+                    synchronized (TransitionFrameMonitor.this) {
+                        if (active) {
+                            layoutPasses++;
+                        }
+                    }
+                }
+            };
+    private final Runnable finishAfterLayout = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (TransitionFrameMonitor.this) {
+                if (active && ending) {
+                    finishTransition();
+                }
+            }
+        }
+    };
+
+    // Guarded by this
+    private int transitionCount;
+    private long droppedFrameCount;
+    private long layoutPassCount;
+    private boolean active;
+    private boolean ending;
+    private TransitionPlan plan;
+    private int frames;
+    private int droppedFrames;
+    private int layoutPasses;
+    private long slowestFrameNanos;
+    private long lastFrameTimeNanos;
+    private long lastIntendedVsyncNanos;
+
+    TransitionFrameMonitor(Activity activity) {
+        window = activity.getWindow();
+        decorView = window.getDecorView();
+        decorView.getViewTreeObserver().addOnGlobalLayoutListener(layoutListener);
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        frameIntervalNanos = (long) (1000000000 / (refreshRate > 0 ? refreshRate : 60));
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startFrameMetrics();
+        }
+    }
+
+    @Override
+    public synchronized void onTransitionStart(TransitionPlan plan) {
+        if (active) {
+            finishTransition();
+        }
+        active = true;
+        ending = false;
+        this.plan = plan;
+        frames = 0;
+        droppedFrames = 0;
+        layoutPasses = 0;
+        slowestFrameNanos = 0;
+        lastFrameTimeNanos = 0;
+        lastIntendedVsyncNanos = 0;
+        if (metricsListener == null) {
+            Choreographer.getInstance().postFrameCallback(choreographerCallback);
+        }
+    }
+
+    @Override
+    public synchronized void onTransitionEnd(TransitionPlan plan) {
+        if (active && this.plan == plan) {
+            // Runs after this frame's traversal, so its layout pass is counted
+            ending = true;
+            decorView.post(finishAfterLayout);
+        }
+    }
+
+    /** Stops listening for frames. The collected statistics remain readable. */
+    synchronized void release() {
+        active = false;
+        Choreographer.getInstance().removeFrameCallback(choreographerCallback);
+        decorView.getViewTreeObserver().removeOnGlobalLayoutListener(layoutListener);
+        if (metricsListener != null) {
+            window.removeOnFrameMetricsAvailableListener(metricsListener);
+            metricsThread.quitSafely();
+            metricsListener = null;
+        }
+    }
+
+    synchronized void dump(String prefix, PrintWriter writer) {
+        writer.print(prefix);
+        writer.println("Theme transitions (" + (metricsListener != null
+                ? "FrameMetrics" : "Choreographer") + ", "
+                + String.format(Locale.US, "%.1f", frameIntervalNanos / 1e6) + " ms frames):");
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "  %d transitions, %d frames, %d dropped, %.1f layout passes per transition",
+                transitionCount, histogram.getCount(), droppedFrameCount,
+                transitionCount > 0 ? layoutPassCount / (double) transitionCount : 0));
+        writer.print(prefix);
+        writer.println(String.format(Locale.US,
+                "  p50 %.0f ms, p95 %.0f ms, p99 %.0f ms, max %.1f ms",
+                histogram.getPercentileMillis(50), histogram.getPercentileMillis(95),
+                histogram.getPercentileMillis(99), histogram.getMaxNanos() / 1e6));
+        for (TransitionRecord record : slowest) {
+            if (record == null) {
+                break;
+            }
+            writer.print(prefix);
+            writer.println(String.format(Locale.US,
+                    "  slow: %d dropped of %d frames, worst %.1f ms, %d layout passes: %s",
+                    record.droppedFrames, record.frames, record.slowestFrameNanos / 1e6,
+                    record.layoutPasses, record.diff));
+        }
+    }
+
+    /** Returns the {@link #dump} output as a string, for the in-app debug surface. */
+    String describe() {
+        StringWriter report = new StringWriter();
+        PrintWriter writer = new PrintWriter(report);
+        dump("", writer);
+        writer.flush();
+        return report.toString();
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    private void startFrameMetrics() {
+        metricsThread = new HandlerThread("TransitionFrameMetrics");
+        metricsThread.start();
+        metricsListener = new Window.OnFrameMetricsAvailableListener() {
+            @Override
+            public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics,
+                    int dropCountSinceLastInvocation) {
+                synchronized (TransitionFrameMonitor.this) {
+                    if (active) {
+                        record(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION),
+                                skippedVsyncs(frameMetrics, dropCountSinceLastInvocation));
+                    }
+                }
+            }
+        };
+        window.addOnFrameMetricsAvailableListener(metricsListener,
+                new Handler(metricsThread.getLooper()));
+    }
+
+    /**
+     * Returns how many vsyncs passed without a frame since the last reported one. TOTAL_DURATION
+     * also covers input and animation latency that doesn't cost a vsync, so it overcounts.
+     */
+    @RequiresApi(Build.VERSION_CODES.N)
+    private int skippedVsyncs(FrameMetrics frameMetrics, int droppedReports) {
+        long intendedVsyncNanos = frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP);
+        long previous = lastIntendedVsyncNanos;
+        lastIntendedVsyncNanos = intendedVsyncNanos;
+        if (previous <= 0) {
+            return 0;
+        }
+        // Frames whose reports were dropped still rendered on their own vsyncs
+        long skipped = Math.round((intendedVsyncNanos - previous) / (double) frameIntervalNanos)
+                - 1 - droppedReports;
+        return (int) Math.max(skipped, 0);
+    }
+
+    private void record(long durationNanos, int dropped) {
+        histogram.record(durationNanos);
+        frames++;
+        droppedFrames += dropped;
+        slowestFrameNanos = Math.max(slowestFrameNanos, durationNanos);
+    }
+
+    private void finishTransition() {
+        active = false;
+        transitionCount++;
+        droppedFrameCount += droppedFrames;
+        layoutPassCount += layoutPasses;
+        Choreographer.getInstance().removeFrameCallback(choreographerCallback);
+
+        // Keep the slowest transitions sorted by dropped frames, then by their worst frame
+        int position = SLOWEST_COUNT;
+        while (position > 0 && isSlower(slowest[position - 1])) {
+            position--;
+        }
+        if (position < SLOWEST_COUNT) {
+            System.arraycopy(slowest, position, slowest, position + 1,
+                    SLOWEST_COUNT - position - 1);
+            slowest[position] = new TransitionRecord(frames, droppedFrames, layoutPasses,
+                    slowestFrameNanos, ThemeDiff.describe(plan.from, plan.to));
+        }
+        plan = null;
+    }
+
+    private boolean isSlower(TransitionRecord record) {
+        return record == null || droppedFrames > record.droppedFrames
+                || (droppedFrames == record.droppedFrames
+                && slowestFrameNanos > record.slowestFrameNanos);
+    }
+
+    private static final class TransitionRecord {
+        final int frames;
+        final int droppedFrames;
+        final int layoutPasses;
+        final long slowestFrameNanos;
+        final String diff;
+
+        TransitionRecord(int frames, int droppedFrames, int layoutPasses, long slowestFrameNanos,
+                String diff) {
+            this.frames = frames;
+            this.droppedFrames = droppedFrames;
+            this.layoutPasses = layoutPasses;
+            this.slowestFrameNanos = slowestFrameNanos;
+            this.diff = diff;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import com.gsajith.mdgen.core.ColorGradient;
+import com.gsajith.mdgen.core.MaterialTheme;
+
+/**
+ * Everything {@link ThemeTransitionDriver} needs to animate from one theme to another: start and
+ * end values for each scalar channel, a gradient for each color channel, and the keyframes and
+ * cue times a {@link Choreography} compiles to for them.
+ * Plans touch no views, so they can be built ahead of time on a background thread.
+ */
+final class TransitionPlan {
+    // Scalar channels, one float each
+    static final int SMALL_CORNER = 0;
+    static final int MEDIUM_CORNER = 1;
+    static final int ELEVATION = 2;
+    static final int LETTER_SPACING = 3;
+    static final int SMALL_TEXT_SIZE = 4;
+    static final int SMALL_PADDING = 5;
+    static final int XSMALL_PADDING = 6;
+    static final int TOP_APP_BAR_OFFSET = 7;
+    static final int FAB_OFFSET = 8;
+    static final int CRADLE_RADIUS = 9;
+    static final int SCALAR_CHANNELS = 10;
+
+    // Color channels, each backed by a precomputed gradient
+    static final int PRIMARY = 0;
+    static final int ON_PRIMARY = 1;
+    static final int SECONDARY = 2;
+    static final int ON_SECONDARY = 3;
+    static final int SURFACE = 4;
+    static final int ON_SURFACE = 5;
+    static final int COLOR_CHANNELS = 6;
+
+    final MaterialTheme from;
+    final MaterialTheme to;
+    final float[] start = new float[SCALAR_CHANNELS];
+    final float[] end = new float[SCALAR_CHANNELS];
+    final ColorGradient[] gradients = new ColorGradient[COLOR_CHANNELS];
+    final float[] keyframes = new float[Choreography.TRACKS * Choreography.KEYFRAME_STRIDE];
+    final float[] cueTimes = new float[Choreography.CUES];
+    /** Milliseconds until every track has finished and every cue has fired. */
+    final float duration;
+
+    TransitionPlan(MaterialTheme from, MaterialTheme to, float cradleRoundedCornerRadius) {
+        this(from, to, cradleRoundedCornerRadius, Choreography.DEFAULT);
+    }
+
+    TransitionPlan(MaterialTheme from, MaterialTheme to, float cradleRoundedCornerRadius,
+            Choreography choreography) {
+        this.from = from;
+        this.to = to;
+
+        boolean topAppBarVisible = to.appBarVisibility == MaterialTheme.APP_BAR_TOP;
+        boolean bottomAppBarVisible = to.appBarVisibility == MaterialTheme.APP_BAR_BOTTOM;
+        boolean bottomAppBarCurrentlyVisible = from.appBarVisibility
+                == MaterialTheme.APP_BAR_BOTTOM;
+
+        setScalar(SMALL_CORNER, from.smallCornerSize, to.smallCornerSize);
+        setScalar(MEDIUM_CORNER, from.mediumCornerSize, to.mediumCornerSize);
+        setScalar(ELEVATION, from.elevation, to.elevation);
+        setScalar(LETTER_SPACING, from.letterSpacingSmall, to.letterSpacingSmall);
+        setScalar(SMALL_TEXT_SIZE, from.smallTextSize, to.smallTextSize);
+        setScalar(SMALL_PADDING, from.smallPadding, to.smallPadding);
+        setScalar(XSMALL_PADDING, from.xSmallPadding, to.xSmallPadding);
+        setScalar(TOP_APP_BAR_OFFSET,
+                from.appBarVisibility == MaterialTheme.APP_BAR_TOP ? 0 : 1,
+                topAppBarVisible ? 0 : 1);
+        setScalar(FAB_OFFSET, bottomAppBarCurrentlyVisible ? 0 : 1, bottomAppBarVisible ? 0 : 1);
+        setScalar(CRADLE_RADIUS, cradleRadius(from, cradleRoundedCornerRadius),
+                cradleRadius(to, cradleRoundedCornerRadius));
+
+        setColor(PRIMARY, from.colorPrimary.color, to.colorPrimary.color);
+        setColor(ON_PRIMARY, from.colorPrimary.colorOn, to.colorPrimary.colorOn);
+        setColor(SECONDARY, from.colorSecondary.color, to.colorSecondary.color);
+        setColor(ON_SECONDARY, from.colorSecondary.colorOn, to.colorSecondary.colorOn);
+        setColor(SURFACE, from.colorSurface, to.colorSurface);
+        setColor(ON_SURFACE, from.colorOnSurface, to.colorOnSurface);
+        duration = choreography.compile(start, end, keyframes, cueTimes);
+    }
+
+    /** Copies {@code target}'s end state and starts from the given live values and colors. */
+    private TransitionPlan(TransitionPlan target, float[] values, int[] colors) {
+        from = target.from;
+        to = target.to;
+        System.arraycopy(values, 0, start, 0, SCALAR_CHANNELS);
+        System.arraycopy(target.end, 0, end, 0, SCALAR_CHANNELS);
+        System.arraycopy(target.keyframes, 0, keyframes, 0, keyframes.length);
+        System.arraycopy(target.cueTimes, 0, cueTimes, 0, cueTimes.length);
+        duration = target.duration;
+        for (int channel = 0; channel < COLOR_CHANNELS; channel++) {
+            setColor(channel, colors[channel], target.gradients[channel].getEndColor());
+        }
+    }
+
+    /**
+     * Returns a plan to the same theme that starts from an interrupted transition's current
+     * scalar {@code values} and {@code colors} instead of from {@link #from}.
+     */
+    TransitionPlan retarget(float[] values, int[] colors) {
+        return new TransitionPlan(this, values, colors);
+    }
+
+    private static float cradleRadius(MaterialTheme theme, float cradleRoundedCornerRadius) {
+        return theme.cornerFamily == MaterialTheme.CORNER_ROUNDED ? cradleRoundedCornerRadius : 1;
+    }
+
+    private void setScalar(int channel, float from, float to) {
+        start[channel] = from;
+        end[channel] = to;
+    }
+
+    private void setColor(int channel, int from, int to) {
+        gradients[channel] = ColorGradient.of(from, to);
+    }
+}
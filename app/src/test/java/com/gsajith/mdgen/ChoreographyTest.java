@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import org.junit.Test;
+
+import static com.gsajith.mdgen.Choreography.KEYFRAME_DURATION;
+import static com.gsajith.mdgen.Choreography.KEYFRAME_START;
+import static com.gsajith.mdgen.Choreography.KEYFRAME_STRIDE;
+import static com.gsajith.mdgen.Choreography.SHOW_BOTTOM_APP_BAR;
+import static com.gsajith.mdgen.TransitionPlan.ELEVATION;
+import static com.gsajith.mdgen.TransitionPlan.FAB_OFFSET;
+import static com.gsajith.mdgen.TransitionPlan.PRIMARY;
+import static com.gsajith.mdgen.TransitionPlan.SCALAR_CHANNELS;
+import static com.gsajith.mdgen.TransitionPlan.SECONDARY;
+import static com.gsajith.mdgen.TransitionPlan.SURFACE;
+import static org.junit.Assert.assertEquals;
+
+public class ChoreographyTest {
+    private final float[] start = new float[SCALAR_CHANNELS];
+    private final float[] end = new float[SCALAR_CHANNELS];
+    private final float[] timeline = new float[Choreography.TRACKS * KEYFRAME_STRIDE];
+    private final float[] cueTimes = new float[Choreography.CUES];
+
+    @Test
+    public void default_delaysHidingFabUntilTheEndCue() {
+        // The FAB hides by moving its offset from 0 to 1
+        start[FAB_OFFSET] = 0;
+        end[FAB_OFFSET] = 1;
+        float duration = Choreography.DEFAULT.compile(start, end, timeline, cueTimes);
+
+        assertEquals(175, startTime(FAB_OFFSET), 0);
+        assertEquals(Choreography.DURATION, trackDuration(FAB_OFFSET), 0);
+        assertEquals(0, startTime(ELEVATION), 0);
+        assertEquals(175 + Choreography.DURATION, duration, 0);
+        assertEquals(duration, cueTimes[SHOW_BOTTOM_APP_BAR], 0);
+    }
+
+    @Test
+    public void default_showsFabWithoutDelay() {
+        start[FAB_OFFSET] = 1;
+        end[FAB_OFFSET] = 0;
+        float duration = Choreography.DEFAULT.compile(start, end, timeline, cueTimes);
+
+        assertEquals(0, startTime(FAB_OFFSET), 0);
+        assertEquals(Choreography.DURATION, duration, 0);
+        assertEquals(Choreography.DURATION, cueTimes[SHOW_BOTTOM_APP_BAR], 0);
+    }
+
+    @Test
+    public void compile_picksRisingOrFallingTiming() {
+        Choreography choreography = new Choreography.Builder(100, Choreography.LINEAR)
+                .scalars(ELEVATION).whenRising().delay(20)
+                .scalars(ELEVATION).whenFalling().delay(50).duration(200)
+                .build();
+
+        end[ELEVATION] = 1;
+        assertEquals(120, choreography.compile(start, end, timeline, cueTimes), 0);
+        assertEquals(20, startTime(ELEVATION), 0);
+        assertEquals(100, trackDuration(ELEVATION), 0);
+
+        start[ELEVATION] = 1;
+        end[ELEVATION] = 0;
+        assertEquals(250, choreography.compile(start, end, timeline, cueTimes), 0);
+        assertEquals(50, startTime(ELEVATION), 0);
+        assertEquals(200, trackDuration(ELEVATION), 0);
+    }
+
+    @Test
+    public void stagger_offsetsEachSelectedChannel() {
+        new Choreography.Builder(100, Choreography.LINEAR)
+                .colors(PRIMARY, SECONDARY, SURFACE).delay(10).stagger(40)
+                .build()
+                .compile(start, end, timeline, cueTimes);
+
+        assertEquals(10, startTime(Choreography.colorTrack(PRIMARY)), 0);
+        assertEquals(50, startTime(Choreography.colorTrack(SECONDARY)), 0);
+        assertEquals(90, startTime(Choreography.colorTrack(SURFACE)), 0);
+        assertEquals(0, startTime(ELEVATION), 0);
+    }
+
+    @Test
+    public void cue_atFixedTimeCanOutlastTracks() {
+        float duration = new Choreography.Builder(100, Choreography.LINEAR)
+                .cue(SHOW_BOTTOM_APP_BAR, 150)
+                .build()
+                .compile(start, end, timeline, cueTimes);
+
+        assertEquals(150, cueTimes[SHOW_BOTTOM_APP_BAR], 0);
+        assertEquals(150, duration, 0);
+    }
+
+    @Test
+    public void cue_unscheduledIsNegative() {
+        new Choreography.Builder(100, Choreography.LINEAR).build()
+                .compile(start, end, timeline, cueTimes);
+
+        assertEquals(-1, cueTimes[SHOW_BOTTOM_APP_BAR], 0);
+    }
+
+    @Test
+    public void fraction_appliesEasingWithinTheKeyframe() {
+        new Choreography.Builder(100, Choreography.LINEAR)
+                .scalars(0).easing(Choreography.LINEAR)
+                .scalars(1).easing(Choreography.ACCELERATE)
+                .scalars(2).easing(Choreography.DECELERATE)
+                .scalars(3).easing(Choreography.ACCELERATE_DECELERATE)
+                .all().delay(100)
+                .build()
+                .compile(start, end, timeline, cueTimes);
+
+        assertEquals(.5f, Choreography.fraction(timeline, 0, 150), 1e-6f);
+        assertEquals(.25f, Choreography.fraction(timeline, 1, 150), 1e-6f);
+        assertEquals(.75f, Choreography.fraction(timeline, 2, 150), 1e-6f);
+        assertEquals(.5f, Choreography.fraction(timeline, 3, 150), 1e-6f);
+        assertEquals(.0955f, Choreography.fraction(timeline, 3, 120), 1e-4f);
+        for (int track = 0; track < 4; track++) {
+            assertEquals(0, Choreography.fraction(timeline, track, 50), 0);
+            assertEquals(1, Choreography.fraction(timeline, track, 250), 0);
+        }
+    }
+
+    @Test
+    public void fraction_jumpsAtStartOfZeroDurationTrack() {
+        new Choreography.Builder(0, Choreography.LINEAR).all().delay(30).build()
+                .compile(start, end, timeline, cueTimes);
+
+        assertEquals(0, Choreography.fraction(timeline, ELEVATION, 29.9f), 0);
+        assertEquals(1, Choreography.fraction(timeline, ELEVATION, 30), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsUnknownChannel() {
+        new Choreography.Builder(100, Choreography.LINEAR).scalars(SCALAR_CHANNELS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsUnknownEasing() {
+        new Choreography.Builder(100, Choreography.LINEAR).all().easing(4);
+    }
+
+    private float startTime(int track) {
+        return timeline[track * KEYFRAME_STRIDE + KEYFRAME_START];
+    }
+
+    private float trackDuration(int track) {
+        return timeline[track * KEYFRAME_STRIDE + KEYFRAME_DURATION];
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Intent;
+import android.view.ViewGroup;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityStartupTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /** Loads handed to {@link MainActivity#startupExecutor}, held until a test runs them. */
+    private final List<Runnable> pendingLoads = new ArrayList<>();
+    private Executor defaultExecutor;
+
+    @Before
+    public void holdStartupLoads() {
+        defaultExecutor = MainActivity.startupExecutor;
+        MainActivity.startupExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pendingLoads.add(command);
+            }
+        };
+    }
+
+    @After
+    public void restoreStartupExecutor() {
+        MainActivity.startupExecutor = defaultExecutor;
+    }
+
+    @Test
+    public void startup_drawsPlaceholderBeforeFirstTheme() throws InterruptedException {
+        ActivityController<MainActivity> controller = startActivity(true);
+        MainActivity activity = controller.get();
+        ViewGroup card = activity.findViewById(R.id.materialCardView);
+
+        // The activity is visible, but the generator is still waiting to load
+        assertEquals(1, pendingLoads.size());
+        assertFalse(activity.isStartupComplete());
+        assertEquals(0, card.getChildCount());
+        assertFalse(activity.findViewById(R.id.generate_button).isEnabled());
+
+        runPendingLoads();
+        awaitStartup(activity);
+        assertTrue(activity.isStartupComplete());
+        assertNotNull(activity.currentTheme);
+        assertEquals(1, card.getChildCount());
+        assertTrue(activity.findViewById(R.id.generate_button).isEnabled());
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void synchronousStartup_showsFirstThemeInOnCreate() {
+        ActivityController<MainActivity> controller = startActivity(false);
+        MainActivity activity = controller.get();
+
+        assertTrue(pendingLoads.isEmpty());
+        assertTrue(activity.isStartupComplete());
+        assertEquals(1, ((ViewGroup) activity.findViewById(R.id.materialCardView))
+                .getChildCount());
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void asyncStartup_defersGeneratorAndInflationPastFirstFrame()
+            throws InterruptedException {
+        ActivityController<MainActivity> controller = startActivity(true);
+        MainActivity activity = controller.get();
+        ViewGroup card = activity.findViewById(R.id.materialCardView);
+
+        // setup() has returned with the generator load handed off rather than run
+        assertEquals(1, pendingLoads.size());
+        assertNull(activity.currentTheme);
+        // and with nothing inflated into the card on the main thread
+        assertEquals(0, card.getChildCount());
+        // Draining the main thread cannot finish startup while the load is held
+        ShadowLooper.idleMainLooper();
+        assertNull(activity.currentTheme);
+        assertFalse(activity.isStartupComplete());
+
+        // Only running the held load produces the first theme
+        runPendingLoads();
+        awaitStartup(activity);
+        assertTrue(activity.isStartupComplete());
+        assertNotNull(activity.currentTheme);
+
+        controller.pause().stop().destroy();
+    }
+
+    @Test
+    public void generate_animatesFromFirstTheme() throws InterruptedException {
+        ActivityController<MainActivity> controller = startActivity(true);
+        MainActivity activity = controller.get();
+        runPendingLoads();
+        awaitStartup(activity);
+        assertTrue(activity.isStartupComplete());
+
+        MaterialTheme firstTheme = activity.currentTheme;
+        assertTrue(activity.findViewById(R.id.generate_button).performClick());
+        assertNotNull(activity.currentTheme);
+        assertNotSame(firstTheme, activity.currentTheme);
+        assertTrue(activity.findViewById(R.id.back_button).isEnabled());
+
+        controller.pause().stop().destroy();
+    }
+
+    /** Creates, starts and resumes the activity, which draws its first frame. */
+    private static ActivityController<MainActivity> startActivity(boolean asyncStartup) {
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                MainActivity.class)
+                .putExtra(MainActivity.EXTRA_ASYNC_STARTUP, asyncStartup);
+        return Robolectric.buildActivity(MainActivity.class, intent).setup();
+    }
+
+    private void runPendingLoads() {
+        for (int i = 0; i < pendingLoads.size(); i++) {
+            pendingLoads.get(i).run();
+        }
+        pendingLoads.clear();
+    }
+
+    /**
+     * Runs the main looper until the startup work has been delivered, waiting out the preview's
+     * background inflation.
+     */
+    static void awaitStartup(MainActivity activity) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        while (!activity.isStartupComplete() && System.nanoTime() - startNanos < TIMEOUT_NANOS) {
+            Thread.sleep(5);
+            ShadowLooper.idleMainLooper();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Intent;
+import android.view.ViewTreeObserver;
+import android.widget.TextView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainActivityTransitionTest {
+    private static final long FRAME_MILLIS = 16;
+
+    @Test
+    public void layoutFreeTransition_keepsTextSizeUntilTheEnd() throws InterruptedException {
+        runTransition(true);
+    }
+
+    @Test
+    public void layoutTransition_neverScalesText() throws InterruptedException {
+        runTransition(false);
+    }
+
+    @Test
+    public void layoutFreeTransition_laysOutLessOften() throws InterruptedException {
+        int layoutFreePasses = runTransition(true);
+        int layoutPasses = runTransition(false);
+        assertTrue("Layout-free transition took " + layoutFreePasses
+                        + " layout passes, per-frame layout took " + layoutPasses,
+                layoutFreePasses < layoutPasses);
+    }
+
+    /**
+     * Animates from the first theme to a generated one, checking the toolbar title every frame:
+     * layout-free transitions scale it and leave its text size alone until they end, while the
+     * fallback sets its text size every frame and never scales it. Returns how many layout passes
+     * the window ran while the transition was running.
+     */
+    private static int runTransition(boolean layoutFree) throws InterruptedException {
+        Intent intent = new Intent(ApplicationProvider.getApplicationContext(),
+                MainActivity.class)
+                .putExtra(MainActivity.EXTRA_LAYOUT_FREE_TRANSITIONS, layoutFree);
+        ActivityController<MainActivity> controller =
+                Robolectric.buildActivity(MainActivity.class, intent).setup();
+        MainActivity activity = controller.get();
+        MainActivityStartupTest.awaitStartup(activity);
+        assertTrue(activity.isStartupComplete());
+
+        TextView title = activity.findViewById(R.id.toolbar_title);
+        float fromTextSize = title.getTextSize();
+        final int[] layoutPasses = new int[1];
+        ViewTreeObserver.OnGlobalLayoutListener layoutCounter =
+                new ViewTreeObserver.OnGlobalLayoutListener() {
+                    @Override
+                    public void onGlobalLayout() {
+                        layoutPasses[0]++;
+                    }
+                };
+        title.getViewTreeObserver().addOnGlobalLayoutListener(layoutCounter);
+        assertTrue(activity.findViewById(R.id.generate_button).performClick());
+        while (activity.isTransitionRunning()) {
+            if (layoutFree) {
+                assertEquals(fromTextSize, title.getTextSize(), 0);
+            } else {
+                assertEquals(1, title.getScaleX(), 0);
+                assertEquals(1, title.getScaleY(), 0);
+            }
+            ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        title.getViewTreeObserver().removeOnGlobalLayoutListener(layoutCounter);
+
+        assertEquals(activity.currentTheme.smallTextSize, title.getTextSize(), 0.01f);
+        assertEquals(1, title.getScaleX(), 0);
+        assertEquals(1, title.getScaleY(), 0);
+        controller.pause().stop().destroy();
+        return layoutPasses[0];
+    }
+}
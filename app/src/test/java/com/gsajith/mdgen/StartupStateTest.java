@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.gsajith.mdgen.core.FavoritesStore;
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeKeyCodec;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupStateTest {
+    private static final long SEED = 42;
+
+    private final Context context = ApplicationProvider.getApplicationContext();
+
+    @Test
+    public void load_withNoRepeats_recordsFirstThemeAsSeen() throws IOException {
+        StartupState state = StartupState.load(context, SEED, true);
+
+        assertNotNull(state.seenThemes);
+        assertTrue(state.seenThemes.mightContain(state.firstTheme));
+        assertTrue(new File(context.getFilesDir(), "seen_themes.bin").exists());
+        close(state);
+    }
+
+    @Test
+    public void load_allowingRepeats_skipsSeenThemes() throws IOException {
+        StartupState state = StartupState.load(context, SEED, false);
+
+        assertNull(state.seenThemes);
+        assertFalse(new File(context.getFilesDir(), "seen_themes.bin").exists());
+        ThemeKeyCodec codec = state.generator.getKeyCodec();
+        MaterialTheme expected = state.generator.generate(SEED);
+        assertEquals(codec.encodeHigh(expected), codec.encodeHigh(state.firstTheme));
+        assertEquals(codec.encodeLow(expected), codec.encodeLow(state.firstTheme));
+        close(state);
+    }
+
+    @Test
+    public void load_sharesGeneratorWithRestOfProcess() throws IOException {
+        StartupState state = StartupState.load(context, SEED, false);
+
+        assertSame(state.generator, MDGenUtils.getThemeGenerator(context.getResources()));
+        close(state);
+    }
+
+    @Test
+    public void load_keepsFavoritesItCannotRead() throws IOException {
+        File file = new File(context.getFilesDir(), "favorites.bin");
+        ThemeSpec otherSpec = new ThemeSpec.Builder()
+                .setSurfaceColors(new int[] {0xFFFAFAFA}, new int[] {0xFF202020})
+                .build();
+        FavoritesStore.open(file, new ThemeKeyCodec(otherSpec)).close();
+        long length = file.length();
+
+        StartupState state = StartupState.load(context, SEED, false);
+
+        assertNull(state.favoritesStore);
+        assertEquals(length, file.length());
+        close(state);
+    }
+
+    private static void close(StartupState state) throws IOException {
+        if (state.favoritesStore != null) {
+            state.favoritesStore.close();
+        }
+        if (state.seenThemes != null) {
+            state.seenThemes.close();
+        }
+    }
+}
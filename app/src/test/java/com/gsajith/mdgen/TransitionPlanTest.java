@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.junit.Test;
+
+import static com.gsajith.mdgen.TransitionPlan.COLOR_CHANNELS;
+import static com.gsajith.mdgen.TransitionPlan.FAB_OFFSET;
+import static com.gsajith.mdgen.TransitionPlan.SCALAR_CHANNELS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TransitionPlanTest {
+    private static final float CRADLE_RADIUS = 24;
+
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+
+    @Test
+    public void retarget_startsFromLiveStateAndKeepsTarget() {
+        MaterialTheme from = generator.generate(1);
+        MaterialTheme to = generator.generate(2);
+        from.appBarVisibility = MaterialTheme.APP_BAR_BOTTOM;
+        to.appBarVisibility = MaterialTheme.APP_BAR_NONE;
+        TransitionPlan plan = new TransitionPlan(from, to, CRADLE_RADIUS);
+
+        float[] values = new float[SCALAR_CHANNELS];
+        int[] colors = new int[COLOR_CHANNELS];
+        for (int i = 0; i < SCALAR_CHANNELS; i++) {
+            values[i] = (plan.start[i] + plan.end[i]) / 2;
+        }
+        for (int channel = 0; channel < COLOR_CHANNELS; channel++) {
+            colors[channel] = plan.gradients[channel].getColor(.5f);
+        }
+        TransitionPlan retargeted = plan.retarget(values, colors);
+
+        assertSame(from, retargeted.from);
+        assertSame(to, retargeted.to);
+        assertArrayEquals(values, retargeted.start, 0);
+        assertArrayEquals(plan.end, retargeted.end, 0);
+        for (int channel = 0; channel < COLOR_CHANNELS; channel++) {
+            assertEquals(colors[channel], retargeted.gradients[channel].getStartColor());
+            assertEquals(plan.gradients[channel].getEndColor(),
+                    retargeted.gradients[channel].getEndColor());
+        }
+
+        // Timing stays that of the interrupted plan, including the delayed FAB hide
+        assertArrayEquals(plan.keyframes, retargeted.keyframes, 0);
+        assertArrayEquals(plan.cueTimes, retargeted.cueTimes, 0);
+        assertEquals(plan.duration, retargeted.duration, 0);
+        assertEquals(1, retargeted.end[FAB_OFFSET], 0);
+    }
+
+    @Test
+    public void retarget_doesNotAliasLiveArrays() {
+        TransitionPlan plan = new TransitionPlan(generator.generate(3), generator.generate(4),
+                CRADLE_RADIUS);
+        float[] values = plan.start.clone();
+        int[] colors = new int[COLOR_CHANNELS];
+        TransitionPlan retargeted = plan.retarget(values, colors);
+
+        values[0] += 10;
+        colors[0] = 0xFFFF0000;
+        assertEquals(plan.start[0], retargeted.start[0], 0);
+        assertEquals(0, retargeted.gradients[0].getStartColor());
+    }
+}
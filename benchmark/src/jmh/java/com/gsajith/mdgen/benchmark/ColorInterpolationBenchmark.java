@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.ColorGradient;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame cost of transition color math: one frame updates every animated color of a Generate
+ * transition. The hsv benchmarks mirror the original ValueAnimator path, the oklab ones the
+ * {@link ColorGradient} tables the transition driver uses now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorInterpolationBenchmark {
+    /** Color animators started by one Generate click on the stock preview layout. */
+    private static final int ANIMATED_COLORS = 15;
+    private static final int FRAMES = 18;
+
+    private final float[][] from = new float[ANIMATED_COLORS][3];
+    private final float[][] to = new float[ANIMATED_COLORS][3];
+    private final float[] hsv = new float[3];
+    private final int[] fromColors = new int[ANIMATED_COLORS];
+    private final int[] toColors = new int[ANIMATED_COLORS];
+    private final ColorGradient[] gradients = new ColorGradient[ANIMATED_COLORS];
+    private int frame;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < ANIMATED_COLORS; i++) {
+            fromColors[i] = random.nextInt();
+            toColors[i] = random.nextInt();
+            Hsv.colorToHsv(fromColors[i], from[i]);
+            Hsv.colorToHsv(toColors[i], to[i]);
+            gradients[i] = ColorGradient.of(fromColors[i], toColors[i]);
+        }
+    }
+
+    @Benchmark
+    public void hsvFrame(Blackhole blackhole) {
+        float fraction = (frame++ % FRAMES) / (float) (FRAMES - 1);
+        for (int i = 0; i < ANIMATED_COLORS; i++) {
+            hsv[0] = from[i][0] + (to[i][0] - from[i][0]) * fraction;
+            hsv[1] = from[i][1] + (to[i][1] - from[i][1]) * fraction;
+            hsv[2] = from[i][2] + (to[i][2] - from[i][2]) * fraction;
+            blackhole.consume(Hsv.hsvToColor(hsv));
+        }
+    }
+
+    @Benchmark
+    public void hsvTransitionSetup(Blackhole blackhole) {
+        for (int i = 0; i < ANIMATED_COLORS; i++) {
+            Hsv.colorToHsv(0xFF3F51B5 + i, hsv);
+            blackhole.consume(hsv[0]);
+        }
+    }
+
+    @Benchmark
+    public void oklabFrame(Blackhole blackhole) {
+        float fraction = (frame++ % FRAMES) / (float) (FRAMES - 1);
+        for (int i = 0; i < ANIMATED_COLORS; i++) {
+            blackhole.consume(gradients[i].getColor(fraction));
+        }
+    }
+
+    /** Cache hits after the first invocation, which is the repeated-transition case. */
+    @Benchmark
+    public void oklabTransitionSetup(Blackhole blackhole) {
+        for (int i = 0; i < ANIMATED_COLORS; i++) {
+            blackhole.consume(ColorGradient.of(fromColors[i], toColors[i]));
+        }
+    }
+}
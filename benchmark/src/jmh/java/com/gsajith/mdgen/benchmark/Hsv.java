@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+/**
+ * JVM port of android.graphics.Color#colorToHSV and #HSVToColor (Skia's SkRGBToHSV and
+ * SkHSVToColor), so the per-frame color math can be measured off-device.
+ */
+final class Hsv {
+    private Hsv() {
+    }
+
+    static void colorToHsv(int color, float[] hsv) {
+        int r = (color >> 16) & 0xFF;
+        int g = (color >> 8) & 0xFF;
+        int b = color & 0xFF;
+        int max = Math.max(r, Math.max(g, b));
+        int min = Math.min(r, Math.min(g, b));
+        float v = max / 255f;
+        if (max == min) {
+            hsv[0] = 0;
+            hsv[1] = 0;
+            hsv[2] = v;
+            return;
+        }
+
+        float delta = max - min;
+        float h;
+        if (r == max) {
+            h = (g - b) / delta;
+        } else if (g == max) {
+            h = 2 + (b - r) / delta;
+        } else {
+            h = 4 + (r - g) / delta;
+        }
+        h *= 60;
+        if (h < 0) {
+            h += 360;
+        }
+        hsv[0] = h;
+        hsv[1] = delta / max;
+        hsv[2] = v;
+    }
+
+    static int hsvToColor(float[] hsv) {
+        float s = Math.max(0, Math.min(1, hsv[1]));
+        float v = Math.max(0, Math.min(1, hsv[2]));
+        int value = Math.round(v * 255);
+        if (s <= 1f / 4096) {
+            return 0xFF000000 | value << 16 | value << 8 | value;
+        }
+
+        float hx = hsv[0] < 0 || hsv[0] >= 360 ? 0 : hsv[0] / 60;
+        int w = (int) Math.floor(hx);
+        float f = hx - w;
+        int p = Math.round((1 - s) * v * 255);
+        int q = Math.round((1 - s * f) * v * 255);
+        int t = Math.round((1 - s * (1 - f)) * v * 255);
+
+        int r;
+        int g;
+        int b;
+        switch (w) {
+            case 0:
+                r = value;
+                g = t;
+                b = p;
+                break;
+            case 1:
+                r = q;
+                g = value;
+                b = p;
+                break;
+            case 2:
+                r = p;
+                g = value;
+                b = t;
+                break;
+            case 3:
+                r = p;
+                g = q;
+                b = value;
+                break;
+            case 4:
+                r = t;
+                g = p;
+                b = value;
+                break;
+            default:
+                r = value;
+                g = p;
+                b = q;
+                break;
+        }
+        return 0xFF000000 | r << 16 | g << 8 | b;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeKeyCodec;
+import com.gsajith.mdgen.core.ThemeSink;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of {@link ThemeGenerator#generateParallel} from one worker up. Each theme is packed
+ * into its key, so the sink does the work a bulk export would without serializing the workers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelGenerationBenchmark {
+    private static final int COUNT = 200_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ThemeGenerator generator;
+    private ForkJoinPool pool;
+    private final long[] keys = new long[2 * COUNT];
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        generator = new ThemeGenerator(ThemeSpec.materialDefaults(2.625f, 2.625f));
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long[] generateParallel() {
+        final ThemeKeyCodec codec = generator.getKeyCodec();
+        generator.generateParallel(seed++, COUNT, pool, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                keys[2 * index] = codec.encodeHigh(theme);
+                keys[2 * index + 1] = codec.encodeLow(theme);
+            }
+        });
+        return keys;
+    }
+}
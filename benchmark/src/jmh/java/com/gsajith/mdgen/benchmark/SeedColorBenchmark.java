@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.PaletteIndex;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Latency of nearest-neighbor palette lookups and of generating a theme around a seed color. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SeedColorBenchmark {
+    private static final int SEED_COLORS = 1024;
+
+    private ThemeGenerator generator;
+    private PaletteIndex index;
+    private final int[] seedColors = new int[SEED_COLORS];
+    private final int[] nearest = new int[8];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        generator = new ThemeGenerator(ThemeSpec.materialDefaults(2.625f, 2.625f));
+        index = generator.getAccentIndex(false);
+        Random random = new Random(1);
+        for (int i = 0; i < seedColors.length; i++) {
+            seedColors[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+    }
+
+    @Benchmark
+    public int nearest() {
+        return index.nearest(seedColors[next++ & (SEED_COLORS - 1)]);
+    }
+
+    @Benchmark
+    public int nearestEight() {
+        return index.nearest(seedColors[next++ & (SEED_COLORS - 1)], nearest);
+    }
+
+    @Benchmark
+    public MaterialTheme generateFromSeedColor() {
+        int i = next++;
+        return generator.generateFromSeedColor(seedColors[i & (SEED_COLORS - 1)], i);
+    }
+}
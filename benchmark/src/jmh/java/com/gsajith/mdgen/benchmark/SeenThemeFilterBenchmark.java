@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.SeenThemeFilter;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of checking a theme against a filter of a million seen themes, and of generating a theme
+ * that skips them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SeenThemeFilterBenchmark {
+    private static final int CAPACITY = 1 << 20;
+
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+    private final MaterialTheme[] themes = new MaterialTheme[1024];
+    private File path;
+    private SeenThemeFilter filter;
+    private long next;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = File.createTempFile("seen", ".bin");
+        path.delete();
+        filter = SeenThemeFilter.open(path, generator.getKeyCodec(), CAPACITY);
+        for (long key = 0; key < CAPACITY; key++) {
+            filter.add(key * 0x9E3779B97F4A7C15L);
+        }
+        for (int i = 0; i < themes.length; i++) {
+            themes[i] = generator.generate(ThemeGenerator.seedForIndex(7, i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        filter.close();
+        path.delete();
+    }
+
+    @Benchmark
+    public boolean mightContainKey() {
+        return filter.mightContain(next++);
+    }
+
+    @Benchmark
+    public boolean mightContainTheme() {
+        return filter.mightContain(themes[(int) next++ & 1023]);
+    }
+
+    /** Baseline for {@link #generateUnseen}. */
+    @Benchmark
+    public MaterialTheme generate() {
+        return generator.generate(next++);
+    }
+
+    @Benchmark
+    public MaterialTheme generateUnseen() {
+        return generator.generateUnseen(next++, filter, 8);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal stand-in for android.view.View and the widget types the preview themes, so view tree
+ * walks can be measured on a JVM. Only the shape of the hierarchy and the class checks matter.
+ */
+class StubView {
+
+    static class Group extends StubView {
+        private final List<StubView> children = new ArrayList<>();
+
+        int getChildCount() {
+            return children.size();
+        }
+
+        StubView getChildAt(int index) {
+            return children.get(index);
+        }
+
+        void addView(StubView child) {
+            children.add(child);
+        }
+    }
+
+    static final class Card extends Group {
+    }
+
+    static final class TextInputLayout extends Group {
+    }
+
+    static final class AppBar extends Group {
+    }
+
+    static final class BottomAppBar extends Group {
+    }
+
+    static final class Button extends StubView {
+    }
+
+    static final class EditText extends StubView {
+    }
+
+    static final class Fab extends StubView {
+    }
+
+    /**
+     * Builds a tree {@code depth} levels deep under a card, where every group has
+     * {@code fanOut} children and the themed widget types are spread evenly across levels.
+     */
+    static Group buildTree(int depth, int fanOut) {
+        Group root = new Card();
+        populate(root, depth, fanOut, 0);
+        return root;
+    }
+
+    private static int populate(Group parent, int depth, int fanOut, int counter) {
+        for (int i = 0; i < fanOut; i++) {
+            counter++;
+            if (depth <= 1) {
+                parent.addView(createLeaf(counter));
+            } else {
+                Group group = createGroup(counter);
+                parent.addView(group);
+                counter = populate(group, depth - 1, fanOut, counter);
+            }
+        }
+        return counter;
+    }
+
+    private static StubView createLeaf(int counter) {
+        switch (counter % 4) {
+            case 0:
+                return new Button();
+            case 1:
+                return new EditText();
+            case 2:
+                return new Fab();
+            default:
+                return new StubView();
+        }
+    }
+
+    private static Group createGroup(int counter) {
+        switch (counter % 5) {
+            case 0:
+                return new Card();
+            case 1:
+                return new TextInputLayout();
+            case 2:
+                return new AppBar();
+            case 3:
+                return new BottomAppBar();
+            default:
+                return new Group();
+        }
+    }
+}
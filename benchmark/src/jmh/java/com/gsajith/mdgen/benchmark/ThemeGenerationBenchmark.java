@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSink;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Throughput of the theme generation that used to live in MainActivity.generateRandomTheme. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ThemeGenerationBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+
+    private ThemeGenerator generator;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        generator = new ThemeGenerator(ThemeSpec.materialDefaults(2.625f, 2.625f));
+    }
+
+    @Benchmark
+    public MaterialTheme generate() {
+        return generator.generate(seed++);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void generateBatch(final Blackhole blackhole) {
+        generator.generateBatch(seed++, BATCH_SIZE, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                blackhole.consume(theme.colorPrimary);
+                blackhole.consume(theme.smallTextSize);
+            }
+        });
+    }
+}
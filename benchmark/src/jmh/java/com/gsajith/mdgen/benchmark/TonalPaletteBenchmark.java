@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import com.gsajith.mdgen.core.ColorSet;
+import com.gsajith.mdgen.core.TonalPalette;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of deriving palettes from arbitrary base colors, in bulk and through the cache. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TonalPaletteBenchmark {
+    private static final int COUNT = 50_000;
+
+    private final int[] colors = new int[COUNT];
+    private final int[] variants = new int[COUNT];
+    private final int[] onColors = new int[COUNT];
+    private TonalPalette palette;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        for (int i = 0; i < COUNT; i++) {
+            colors[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        palette = new TonalPalette(4096);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int[] deriveAll() {
+        TonalPalette.deriveAll(colors, variants, onColors, 0, COUNT);
+        return variants;
+    }
+
+    /** Cycles through fewer colors than the cache holds, so this measures cache hits. */
+    @Benchmark
+    public ColorSet cachedGet() {
+        return palette.get(colors[next++ & 1023]);
+    }
+}
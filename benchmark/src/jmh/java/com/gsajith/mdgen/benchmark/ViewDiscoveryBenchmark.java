@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of discovering the themeable views over synthetic trees of increasing depth: the seven
+ * findViewsWithType walks onCreate used to do, against the single classifying pass
+ * ThemeableViewIndex does now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ViewDiscoveryBenchmark {
+    private static final int FAN_OUT = 3;
+
+    // Same order as ThemeableViewIndex
+    private static final Class<?>[] TYPES = {
+            StubView.Card.class,
+            StubView.Button.class,
+            StubView.TextInputLayout.class,
+            StubView.EditText.class,
+            StubView.AppBar.class,
+            StubView.BottomAppBar.class,
+            StubView.Fab.class
+    };
+
+    @Param({"2", "4", "6", "8"})
+    public int depth;
+
+    private StubView.Group root;
+
+    @Setup
+    public void setUp() {
+        root = StubView.buildTree(depth, FAN_OUT);
+    }
+
+    /** The seven findViewsWithType walks (and two reversals) onCreate performs. */
+    @Benchmark
+    public void findViewsWithType(Blackhole blackhole) {
+        blackhole.consume(findViewsWithType(root, StubView.Card.class));
+        blackhole.consume(findViewsWithType(root, StubView.Button.class));
+        List<StubView.TextInputLayout> textInputLayouts = findViewsWithType(root,
+                StubView.TextInputLayout.class);
+        Collections.reverse(textInputLayouts);
+        blackhole.consume(textInputLayouts);
+        List<StubView.EditText> editTexts = findViewsWithType(root, StubView.EditText.class);
+        Collections.reverse(editTexts);
+        blackhole.consume(editTexts);
+        blackhole.consume(findViewsWithType(root, StubView.AppBar.class));
+        blackhole.consume(findViewsWithType(root, StubView.BottomAppBar.class));
+        blackhole.consume(findViewsWithType(root, StubView.Fab.class));
+    }
+
+    /** One pass over the tree, resolving each concrete class to a type through a cache. */
+    @Benchmark
+    public void singlePassIndex(Blackhole blackhole) {
+        List<List<StubView>> views = new ArrayList<>(TYPES.length);
+        for (int i = 0; i < TYPES.length; i++) {
+            views.add(new ArrayList<StubView>());
+        }
+        index(root, new HashMap<Class<?>, Integer>(), views);
+        blackhole.consume(views);
+    }
+
+    private static void index(StubView view, Map<Class<?>, Integer> typeCache,
+            List<List<StubView>> views) {
+        Class<?> viewClass = view.getClass();
+        Integer type = typeCache.get(viewClass);
+        if (type == null) {
+            type = -1;
+            for (int i = 0; i < TYPES.length; i++) {
+                if (TYPES[i].isAssignableFrom(viewClass)) {
+                    type = i;
+                    break;
+                }
+            }
+            typeCache.put(viewClass, type);
+        }
+        if (type >= 0) {
+            views.get(type).add(view);
+        }
+
+        if (view instanceof StubView.Group) {
+            StubView.Group viewGroup = (StubView.Group) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                index(viewGroup.getChildAt(i), typeCache, views);
+            }
+        }
+    }
+
+    static <T extends StubView> List<T> findViewsWithType(StubView root, Class<T> type) {
+        List<T> views = new ArrayList<>();
+        findViewsWithType(root, type, views);
+        return views;
+    }
+
+    private static <T extends StubView> void findViewsWithType(StubView view, Class<T> type,
+            List<T> views) {
+        if (type.isInstance(view)) {
+            views.add(type.cast(view));
+        }
+
+        if (view instanceof StubView.Group) {
+            StubView.Group viewGroup = (StubView.Group) view;
+            for (int i = 0; i < viewGroup.getChildCount(); i++) {
+                findViewsWithType(viewGroup.getChildAt(i), type, views);
+            }
+        }
+    }
+}
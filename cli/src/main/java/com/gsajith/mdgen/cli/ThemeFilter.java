@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.cli;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+
+/**
+ * Matches themes against a filter expression such as {@code mode=dark,appbar=top|bottom}.
+ *
+ * <p>An expression is a comma-separated list of clauses that must all match. Each clause names
+ * an attribute and one or more {@code |}-separated values, any of which may match:
+ * <ul>
+ * <li>{@code mode}: {@code light} or {@code dark}
+ * <li>{@code corners}: {@code rounded} or {@code cut}
+ * <li>{@code appbar}: {@code top}, {@code bottom} or {@code none}
+ * </ul>
+ * Every clause compiles to a bitmask, so matching a theme is three bit tests.
+ */
+final class ThemeFilter {
+    static final ThemeFilter ALL = new ThemeFilter(-1, -1, -1);
+
+    private static final String[] MODES = {"light", "dark"};
+    private static final String[] CORNERS = {"rounded", "cut"};
+    private static final String[] APP_BARS = {"top", "bottom", "none"};
+
+    private final int modes;
+    private final int corners;
+    private final int appBars;
+
+    private ThemeFilter(int modes, int corners, int appBars) {
+        this.modes = modes;
+        this.corners = corners;
+        this.appBars = appBars;
+    }
+
+    /** Compiles {@code expression}. Throws IllegalArgumentException if it is malformed. */
+    static ThemeFilter parse(String expression) {
+        int modes = -1;
+        int corners = -1;
+        int appBars = -1;
+        for (String clause : expression.split(",")) {
+            int equals = clause.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("Filter clause '" + clause.trim()
+                        + "' is not of the form name=value");
+            }
+            String name = clause.substring(0, equals).trim();
+            String values = clause.substring(equals + 1);
+            if (name.equals("mode")) {
+                modes &= parseValues(name, values, MODES);
+            } else if (name.equals("corners")) {
+                corners &= parseValues(name, values, CORNERS);
+            } else if (name.equals("appbar")) {
+                appBars &= parseValues(name, values, APP_BARS);
+            } else {
+                throw new IllegalArgumentException("Unknown filter attribute '" + name
+                        + "', expected mode, corners or appbar");
+            }
+        }
+        return new ThemeFilter(modes, corners, appBars);
+    }
+
+    boolean matches(MaterialTheme theme) {
+        return (modes & 1 << (theme.isDarkTheme ? 1 : 0)) != 0
+                && (corners & 1 << theme.cornerFamily) != 0
+                && (appBars & 1 << theme.appBarVisibility) != 0;
+    }
+
+    /** Returns a mask with bit {@code i} set for each value naming {@code names[i]}. */
+    private static int parseValues(String attribute, String values, String[] names) {
+        int mask = 0;
+        for (String value : values.split("\\|")) {
+            int bit = indexOf(names, value.trim());
+            if (bit < 0) {
+                throw new IllegalArgumentException("Unknown " + attribute + " '" + value.trim()
+                        + "', expected " + join(names));
+            }
+            mask |= 1 << bit;
+        }
+        return mask;
+    }
+
+    private static int indexOf(String[] names, String value) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String join(String[] names) {
+        StringBuilder joined = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                joined.append(i == names.length - 1 ? " or " : ", ");
+            }
+            joined.append(names[i]);
+        }
+        return joined.toString();
+    }
+}
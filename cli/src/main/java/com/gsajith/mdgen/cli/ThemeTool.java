@@ -0,0 +1,331 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.cli;
+
+import com.gsajith.mdgen.core.ContrastIndex;
+import com.gsajith.mdgen.core.MaterialTheme;
+import com.gsajith.mdgen.core.ThemeExporter;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSink;
+import com.gsajith.mdgen.core.ThemeSpec;
+import com.gsajith.mdgen.core.ThemeSpecFile;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line entry point that generates themes headlessly and streams them as JSON lines or
+ * Android resources.
+ *
+ * <p>Theme {@code i} is always {@code generate(seedForIndex(seed, i))}, or with seed colors
+ * {@code generateFromSeedColor(seedColors[i % seedColors.length], seedForIndex(seed, i))}, and
+ * its index is kept in the output, so a filtered run emits a reproducible subset of the
+ * unfiltered one. Themes are
+ * generated in fixed-size chunks and written through {@link ThemeExporter}'s buffers, so the
+ * heap stays flat however large {@code --count} is.
+ */
+public final class ThemeTool {
+    static final String USAGE = "usage: mdgen [options]\n"
+            + "  --seed N            batch seed (default 0)\n"
+            + "  --count N           number of matching themes to write (default 100)\n"
+            + "  --filter EXPR       e.g. mode=dark,corners=cut,appbar=top|bottom\n"
+            + "  --format FORMAT     ndjson (default) or android\n"
+            + "  --output PATH       ndjson file (default stdout), or android resource directory\n"
+            + "  --density D         display density the dimensions are scaled by (default 1)\n"
+            + "  --spec FILE         generator tuning, see ThemeSpecFile for the keys\n"
+            + "  --seed-color COLOR  build themes around a color such as #3F51B5; repeatable\n"
+            + "  --seed-colors FILE  build themes around the colors in FILE, one per line\n"
+            + "  --check-contrast    list palette entries and surfaces that fail their contrast\n"
+            + "                      check and are never generated, then exit\n";
+
+    static final String FORMAT_NDJSON = "ndjson";
+    static final String FORMAT_ANDROID = "android";
+
+    /** Themes generated per call into the core library. */
+    private static final int CHUNK_SIZE = 4096;
+
+    private ThemeTool() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("mdgen: " + e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.print(USAGE);
+            return;
+        }
+        try {
+            if (options.checkContrast) {
+                checkContrast(options, System.out);
+            } else {
+                run(options, System.err);
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            // Unreadable output or a malformed --spec file
+            System.err.println("mdgen: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Generates and writes the themes {@code options} ask for, reporting throughput to log. */
+    static void run(Options options, PrintStream log) throws IOException {
+        ThemeGenerator generator = new ThemeGenerator(readSpec(options));
+        int[] seedColors = readSeedColors(options);
+        ThemeExporter exporter;
+        if (options.format.equals(FORMAT_ANDROID)) {
+            exporter = ThemeExporter.toDirectory(options.output.toPath(), options.density,
+                    options.density);
+        } else if (options.output != null) {
+            exporter = ThemeExporter.toJsonLines(FileChannel.open(options.output.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING));
+        } else {
+            exporter = ThemeExporter.toJsonLines(new FileOutputStream(FileDescriptor.out)
+                    .getChannel());
+        }
+
+        FilteringSink sink = new FilteringSink(options.filter, exporter, options.count);
+        long startNanos = System.nanoTime();
+        int generated = 0;
+        try {
+            while (sink.remaining > 0 && generated <= Integer.MAX_VALUE - CHUNK_SIZE) {
+                if (seedColors != null) {
+                    generator.generateBatchFromSeedColors(seedColors, options.seed, generated,
+                            generated + CHUNK_SIZE, sink);
+                } else {
+                    generator.generateBatch(options.seed, generated, generated + CHUNK_SIZE,
+                            sink);
+                }
+                generated += CHUNK_SIZE;
+            }
+        } catch (ThemeExporter.ExportException e) {
+            throw e.getCause();
+        } finally {
+            exporter.close();
+        }
+
+        double generateSeconds = (System.nanoTime() - startNanos - sink.writeNanos) / 1e9;
+        log.println(String.format(Locale.US,
+                "generate: %d themes in %.2f s (%.0f themes/s), %d matched the filter",
+                generated, generateSeconds, generated / generateSeconds,
+                exporter.getThemeCount()));
+        log.println("write: " + exporter.describeThroughput());
+        if (sink.remaining > 0) {
+            log.println("mdgen: ran out of seeds after " + exporter.getThemeCount()
+                    + " matching themes");
+        }
+    }
+
+    /**
+     * Prints each palette entry and surface of the spec whose text fails the minimum contrast,
+     * which the generator leaves out, so a {@code --spec} file can be checked before use.
+     */
+    static void checkContrast(Options options, PrintStream out) throws IOException {
+        List<String> entries = new ContrastIndex(readSpec(options)).describeInvalidEntries();
+        for (String entry : entries) {
+            out.println(entry);
+        }
+        out.println(entries.size() + " entries excluded for low contrast");
+    }
+
+    private static ThemeSpec readSpec(Options options) throws IOException {
+        if (options.spec == null) {
+            return ThemeSpec.materialDefaults(options.density, options.density);
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(options.spec),
+                StandardCharsets.UTF_8)) {
+            return ThemeSpecFile.read(reader, options.density, options.density);
+        }
+    }
+
+    /**
+     * Returns the {@code --seed-color} colors followed by those in the {@code --seed-colors}
+     * file, or null if there are none. Blank lines in the file are skipped.
+     */
+    private static int[] readSeedColors(Options options) throws IOException {
+        List<Integer> colors = new ArrayList<>(options.seedColors);
+        if (options.seedColorFile != null) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(options.seedColorFile), StandardCharsets.UTF_8))) {
+                int lineNumber = 0;
+                for (String line; (line = reader.readLine()) != null; ) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (!line.isEmpty()) {
+                        colors.add(Options.parseColor(options.seedColorFile + ":" + lineNumber,
+                                line));
+                    }
+                }
+            }
+            if (colors.size() == options.seedColors.size()) {
+                throw new IllegalArgumentException(options.seedColorFile
+                        + " has no seed colors");
+            }
+        }
+        if (colors.isEmpty()) {
+            return null;
+        }
+        int[] seedColors = new int[colors.size()];
+        for (int i = 0; i < seedColors.length; i++) {
+            seedColors[i] = colors.get(i);
+        }
+        return seedColors;
+    }
+
+    /** Passes matching themes on to the exporter until enough have been written. */
+    private static final class FilteringSink implements ThemeSink {
+        private final ThemeFilter filter;
+        private final ThemeSink exporter;
+        long remaining;
+        long writeNanos;
+
+        FilteringSink(ThemeFilter filter, ThemeSink exporter, long count) {
+            this.filter = filter;
+            this.exporter = exporter;
+            remaining = count;
+        }
+
+        @Override
+        public void accept(int index, MaterialTheme theme) {
+            if (remaining > 0 && filter.matches(theme)) {
+                long start = System.nanoTime();
+                exporter.accept(index, theme);
+                writeNanos += System.nanoTime() - start;
+                remaining--;
+            }
+        }
+    }
+
+    /** Parsed command-line options. */
+    static final class Options {
+        long seed;
+        long count = 100;
+        ThemeFilter filter = ThemeFilter.ALL;
+        String format = FORMAT_NDJSON;
+        File output;
+        File spec;
+        float density = 1;
+        final List<Integer> seedColors = new ArrayList<>();
+        File seedColorFile;
+        boolean checkContrast;
+        boolean help;
+
+        /** Parses {@code args}. Throws IllegalArgumentException on anything unrecognized. */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.equals("-h") || arg.equals("--help")) {
+                    options.help = true;
+                    continue;
+                } else if (arg.equals("--check-contrast")) {
+                    options.checkContrast = true;
+                    continue;
+                }
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException(arg.startsWith("--")
+                            ? "Missing value for " + arg : "Unknown argument '" + arg + "'");
+                }
+                String value = args[++i];
+                if (arg.equals("--seed")) {
+                    options.seed = parseLong(arg, value);
+                } else if (arg.equals("--count")) {
+                    options.count = parseLong(arg, value);
+                    if (options.count < 0) {
+                        throw new IllegalArgumentException("--count must not be negative");
+                    }
+                } else if (arg.equals("--filter")) {
+                    options.filter = ThemeFilter.parse(value);
+                } else if (arg.equals("--format")) {
+                    if (!value.equals(FORMAT_NDJSON) && !value.equals(FORMAT_ANDROID)) {
+                        throw new IllegalArgumentException("Unknown format '" + value
+                                + "', expected " + FORMAT_NDJSON + " or " + FORMAT_ANDROID);
+                    }
+                    options.format = value;
+                } else if (arg.equals("--output")) {
+                    options.output = new File(value);
+                } else if (arg.equals("--spec")) {
+                    options.spec = new File(value);
+                } else if (arg.equals("--density")) {
+                    options.density = parseDensity(value);
+                } else if (arg.equals("--seed-color")) {
+                    options.seedColors.add(parseColor(arg, value));
+                } else if (arg.equals("--seed-colors")) {
+                    options.seedColorFile = new File(value);
+                } else {
+                    throw new IllegalArgumentException("Unknown option '" + arg + "'");
+                }
+            }
+            if (options.format.equals(FORMAT_ANDROID) && options.output == null) {
+                throw new IllegalArgumentException("--format android needs an --output directory");
+            }
+            return options;
+        }
+
+        private static long parseLong(String option, String value) {
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(option + " expects an integer, got '"
+                        + value + "'");
+            }
+        }
+
+        /** Parses an opaque {@code #RRGGBB} color, with or without the {@code #}. */
+        static int parseColor(String source, String value) {
+            String hex = value.startsWith("#") ? value.substring(1) : value;
+            if (hex.length() == 6 && hex.matches("[0-9A-Fa-f]+")) {
+                return 0xFF000000 | Integer.parseInt(hex, 16);
+            }
+            throw new IllegalArgumentException(source + " expects a color like #3F51B5, got '"
+                    + value + "'");
+        }
+
+        private static float parseDensity(String value) {
+            try {
+                float density = Float.parseFloat(value);
+                if (density > 0) {
+                    return density;
+                }
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+            throw new IllegalArgumentException("--density expects a positive number, got '"
+                    + value + "'");
+        }
+    }
+}
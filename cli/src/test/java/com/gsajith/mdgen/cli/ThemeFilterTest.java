@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.cli;
+
+import com.gsajith.mdgen.core.MaterialTheme;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeFilterTest {
+    @Test
+    public void parse_requiresEveryClause() {
+        ThemeFilter filter = ThemeFilter.parse("mode=dark, corners=cut");
+        assertTrue(filter.matches(theme(true, MaterialTheme.CORNER_CUT,
+                MaterialTheme.APP_BAR_NONE)));
+        assertFalse(filter.matches(theme(false, MaterialTheme.CORNER_CUT,
+                MaterialTheme.APP_BAR_NONE)));
+        assertFalse(filter.matches(theme(true, MaterialTheme.CORNER_ROUNDED,
+                MaterialTheme.APP_BAR_NONE)));
+    }
+
+    @Test
+    public void parse_acceptsAnyOfSeveralValues() {
+        ThemeFilter filter = ThemeFilter.parse("appbar=top|bottom");
+        assertTrue(filter.matches(theme(false, MaterialTheme.CORNER_ROUNDED,
+                MaterialTheme.APP_BAR_TOP)));
+        assertTrue(filter.matches(theme(true, MaterialTheme.CORNER_CUT,
+                MaterialTheme.APP_BAR_BOTTOM)));
+        assertFalse(filter.matches(theme(false, MaterialTheme.CORNER_ROUNDED,
+                MaterialTheme.APP_BAR_NONE)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsUnknownValues() {
+        ThemeFilter.parse("mode=dim");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsUnknownAttributes() {
+        ThemeFilter.parse("elevation=2");
+    }
+
+    private static MaterialTheme theme(boolean isDarkTheme, int cornerFamily,
+            int appBarVisibility) {
+        MaterialTheme theme = new MaterialTheme();
+        theme.isDarkTheme = isDarkTheme;
+        theme.cornerFamily = cornerFamily;
+        theme.appBarVisibility = appBarVisibility;
+        return theme;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.cli;
+
+import com.gsajith.mdgen.core.ThemeExporter;
+import com.gsajith.mdgen.core.ThemeGenerator;
+import com.gsajith.mdgen.core.ThemeSpec;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeToolTest {
+    private File directory;
+
+    @Before
+    public void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("mdgen").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void run_writesRequestedCountOfMatchingThemes() throws Exception {
+        File output = new File(directory, "themes.jsonl");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ThemeTool.run(ThemeTool.Options.parse(new String[]{"--seed", "3", "--count", "5000",
+                "--filter", "mode=dark,appbar=none", "--output", output.getPath()}),
+                new PrintStream(log, true, "UTF-8"));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.US_ASCII);
+        assertEquals(5000, lines.size());
+        for (String line : lines) {
+            assertTrue(line.contains("\"isDarkTheme\":true"));
+            assertTrue(line.contains("\"appBarVisibility\":2"));
+        }
+        String report = log.toString("UTF-8");
+        assertTrue(report.startsWith("generate: "));
+        assertTrue(report.contains("write: 5000 themes"));
+    }
+
+    @Test
+    public void run_appliesSpecFile() throws Exception {
+        File spec = new File(directory, "spec.properties");
+        Files.write(spec.toPath(), "dark.probability = 1\n".getBytes(StandardCharsets.UTF_8));
+        File output = new File(directory, "themes.jsonl");
+        ThemeTool.run(ThemeTool.Options.parse(new String[]{"--count", "50", "--spec",
+                spec.getPath(), "--output", output.getPath()}),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+
+        for (String line : Files.readAllLines(output.toPath(), StandardCharsets.US_ASCII)) {
+            assertTrue(line.contains("\"isDarkTheme\":true"));
+        }
+    }
+
+    @Test
+    public void run_writesAndroidResources() throws Exception {
+        ThemeTool.run(ThemeTool.Options.parse(new String[]{"--count", "3", "--format",
+                "android", "--output", directory.getPath()}),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+        assertTrue(new File(directory, "styles.xml").length() > 0);
+    }
+
+    @Test
+    public void run_buildsThemesAroundSeedColors() throws Exception {
+        File colors = new File(directory, "colors.txt");
+        Files.write(colors.toPath(), "#2196F3\n\ne91e63\n".getBytes(StandardCharsets.UTF_8));
+        File output = new File(directory, "themes.jsonl");
+        ThemeTool.run(ThemeTool.Options.parse(new String[]{"--seed", "7", "--count", "10",
+                "--seed-color", "#4CAF50", "--seed-colors", colors.getPath(),
+                "--output", output.getPath()}),
+                new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+
+        File expected = new File(directory, "expected.jsonl");
+        ThemeExporter exporter = ThemeExporter.toJsonLines(FileChannel.open(expected.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+        new ThemeGenerator(ThemeSpec.materialDefaults(1, 1)).generateBatchFromSeedColors(
+                new int[] {0xFF4CAF50, 0xFF2196F3, 0xFFE91E63}, 7, 0, 10, exporter);
+        exporter.close();
+        assertEquals(Files.readAllLines(expected.toPath(), StandardCharsets.US_ASCII),
+                Files.readAllLines(output.toPath(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void checkContrast_listsExcludedEntries() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ThemeTool.checkContrast(ThemeTool.Options.parse(new String[]{"--check-contrast"}),
+                new PrintStream(out, true, "UTF-8"));
+
+        String[] lines = out.toString("UTF-8").split("\n");
+        assertTrue(lines.length > 1);
+        assertTrue(lines[0].contains(" on #"));
+        assertEquals((lines.length - 1) + " entries excluded for low contrast",
+                lines[lines.length - 1]);
+    }
+
+    @Test
+    public void parse_acceptsColorsWithOrWithoutHash() {
+        assertEquals(0xFF3F51B5, ThemeTool.Options.parseColor("test", "#3F51B5"));
+        assertEquals(0xFF3F51B5, ThemeTool.Options.parseColor("test", "3f51b5"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsMalformedSeedColor() {
+        ThemeTool.Options.parse(new String[]{"--seed-color", "#-12345"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_requiresOutputForAndroidFormat() {
+        ThemeTool.Options.parse(new String[]{"--format", "android"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsMissingValues() {
+        ThemeTool.Options.parse(new String[]{"--count"});
+    }
+}
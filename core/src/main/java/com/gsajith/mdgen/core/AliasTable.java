@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Walker's alias method for drawing from a fixed discrete distribution in constant time.
+ *
+ * <p>Built with Vose's algorithm: each of the {@code n} columns keeps its own outcome with some
+ * probability and otherwise yields one alias. A draw scales a single random double by {@code n},
+ * taking the integer part as the column and the fraction as the coin, so it costs one random
+ * number however many outcomes there are. With equal weights every column keeps its own outcome
+ * and a draw is exactly {@link SplitMix64#nextInt(int)}, so uniform tables reproduce the
+ * sequences of plain uniform draws.
+ */
+final class AliasTable {
+    private final double[] keep;
+    private final int[] alias;
+
+    /**
+     * Builds a table over {@code weights}, which need not be normalized. Throws
+     * IllegalArgumentException if a weight is negative or not finite, or if none is positive.
+     */
+    AliasTable(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            }
+            total += weight;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("No positive weight");
+        }
+
+        keep = new double[n];
+        alias = new int[n];
+        // Small and large columns share one array, filled from opposite ends
+        int[] worklist = new int[n];
+        int small = 0;
+        int large = n;
+        for (int i = 0; i < n; i++) {
+            keep[i] = weights[i] * n / total;
+            alias[i] = i;
+            if (keep[i] < 1) {
+                worklist[small++] = i;
+            } else {
+                worklist[--large] = i;
+            }
+        }
+        while (small > 0 && large < n) {
+            int less = worklist[--small];
+            int more = worklist[large++];
+            alias[less] = more;
+            keep[more] -= 1 - keep[less];
+            if (keep[more] < 1) {
+                worklist[small++] = more;
+            } else {
+                worklist[--large] = more;
+            }
+        }
+        // Whatever is left over is only off 1 by rounding error
+        while (small > 0) {
+            keep[worklist[--small]] = 1;
+        }
+        while (large < n) {
+            keep[worklist[large++]] = 1;
+        }
+    }
+
+    int size() {
+        return keep.length;
+    }
+
+    int sample(SplitMix64 random) {
+        double scaled = random.nextDouble() * keep.length;
+        int column = (int) scaled;
+        return scaled - column < keep[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Buffered ASCII text output to a {@link WritableByteChannel}. Numbers and colors are formatted
+ * straight into the buffer, so writing a theme allocates nothing and memory stays constant no
+ * matter how much is written.
+ */
+final class ChannelWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEX_DIGITS = {
+            '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1000, 10000, 100000, 1000000};
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private long bytesWritten;
+
+    ChannelWriter(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    /** Writes {@code text}, which must be ASCII. */
+    ChannelWriter write(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+        return this;
+    }
+
+    ChannelWriter write(char c) throws IOException {
+        writeByte(c);
+        return this;
+    }
+
+    ChannelWriter write(long value) throws IOException {
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        while (count > 0) {
+            writeByte(digits[--count]);
+        }
+        return this;
+    }
+
+    /** Writes {@code value} rounded to exactly {@code fractionDigits} decimal places. */
+    ChannelWriter write(float value, int fractionDigits) throws IOException {
+        long scale = POWERS_OF_TEN[fractionDigits];
+        long scaled = Math.round(Math.abs((double) value) * scale);
+        if (value < 0 && scaled != 0) {
+            writeByte('-');
+        }
+        write(scaled / scale);
+        if (fractionDigits > 0) {
+            writeByte('.');
+            long fraction = scaled % scale;
+            for (long place = scale / 10; place > 0; place /= 10) {
+                writeByte('0' + (int) (fraction / place % 10));
+            }
+        }
+        return this;
+    }
+
+    /** Writes {@code color} as {@code #AARRGGBB}. */
+    ChannelWriter writeColor(int color) throws IOException {
+        writeByte('#');
+        for (int shift = 28; shift >= 0; shift -= 4) {
+            writeByte(HEX_DIGITS[(color >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) b);
+    }
+}
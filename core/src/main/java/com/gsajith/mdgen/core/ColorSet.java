@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+public final class ColorSet {
+    public final int color;
+    public final int colorVariant;
+    public final int colorOn;
+
+    public ColorSet(int color, int colorVariant, int colorOn) {
+        this.color = color;
+        this.colorVariant = colorVariant;
+        this.colorOn = colorOn;
+    }
+
+    /**
+     * Zips palette tables into color sets. Entries whose variant and on-color are both zero get
+     * them from {@link TonalPalette#derive}.
+     */
+    static ColorSet[] fromTables(int[] colors, int[] variants, int[] onColors) {
+        ColorSet[] colorSets = new ColorSet[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            colorSets[i] = variants[i] == 0 && onColors[i] == 0 ? TonalPalette.derive(colors[i])
+                    : new ColorSet(colors[i], variants[i], onColors[i]);
+        }
+        return colorSets;
+    }
+}
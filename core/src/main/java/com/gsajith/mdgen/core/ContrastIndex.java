@@ -0,0 +1,298 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Precomputed WCAG contrast checks over every accent and surface combination of a
+ * {@link ThemeSpec}.
+ *
+ * <p>Each palette and surface entry's relative luminance is computed once. For each theme mode, a
+ * bitset records which (surface, accent) pairs pass. A pair passes when:
+ * <ul>
+ * <li>the surface meets the text threshold against its on-surface color,
+ * <li>the accent meets the text threshold against its own on-color, and
+ * <li>the accent meets the component threshold against the surface.
+ * </ul>
+ * The passing pairs are also flattened into dense arrays with {@link AliasTable}s over the
+ * spec's palette weights, so {@link ThemeGenerator} can draw a valid combination with a single
+ * random number instead of rejecting and retrying.
+ */
+public final class ContrastIndex {
+    /** WCAG AA minimum for normal-size text. */
+    public static final float AA_TEXT = 4.5f;
+    /** WCAG AA minimum for large text and user interface components. */
+    public static final float AA_COMPONENT = 3f;
+
+    private final Table light;
+    private final Table dark;
+
+    public ContrastIndex(ThemeSpec spec) {
+        // Dark themes pull their accents from the light palette and vice versa
+        light = new Table("light", "dark palette", spec.darkColors, spec.darkColorWeights,
+                spec.lightSurfaceColors, spec.colorOnSurface, spec.colorOnBackground,
+                spec.minTextContrast, spec.minComponentContrast);
+        dark = new Table("dark", "light palette", spec.lightColors, spec.lightColorWeights,
+                spec.darkSurfaceColors, spec.darkColorOnSurface, spec.darkColorOnBackground,
+                spec.minTextContrast, spec.minComponentContrast);
+    }
+
+    /** Returns the WCAG relative luminance of an sRGB color, ignoring alpha. */
+    public static double luminance(int color) {
+        return .2126 * linear((color >> 16) & 0xFF) + .7152 * linear((color >> 8) & 0xFF)
+                + .0722 * linear(color & 0xFF);
+    }
+
+    /** Returns the WCAG contrast ratio between two colors, from 1 to 21. */
+    public static double contrast(int first, int second) {
+        return contrastOfLuminance(luminance(first), luminance(second));
+    }
+
+    /**
+     * Returns whether accent {@code accentIndex} passes on surface {@code surfaceIndex}. The
+     * accent indexes the palette that themes of this mode draw from.
+     */
+    public boolean isValid(boolean isDarkTheme, int surfaceIndex, int accentIndex) {
+        return table(isDarkTheme).isValid(surfaceIndex, accentIndex);
+    }
+
+    public int getValidCombinationCount(boolean isDarkTheme) {
+        return table(isDarkTheme).validPairs.length;
+    }
+
+    /** Describes every palette entry and surface that fails its own contrast check. */
+    public List<String> describeInvalidEntries() {
+        List<String> entries = new ArrayList<>();
+        light.describeInvalidEntries(entries);
+        dark.describeInvalidEntries(entries);
+        return entries;
+    }
+
+    /**
+     * Returns a packed {@code surfaceIndex << 16 | accentIndex} drawn from the valid pairs in
+     * proportion to the accent's weight.
+     */
+    int samplePair(boolean isDarkTheme, SplitMix64 random) {
+        Table table = table(isDarkTheme);
+        return table.validPairs[table.pairSampler.sample(random)];
+    }
+
+    /**
+     * Returns an accent that passes on {@code surfaceIndex}, by weight, or uniformly if every
+     * such accent has zero weight.
+     */
+    int sampleAccent(boolean isDarkTheme, int surfaceIndex, SplitMix64 random) {
+        Table table = table(isDarkTheme);
+        int[] accents = table.accentsBySurface[surfaceIndex];
+        AliasTable sampler = table.accentSamplers[surfaceIndex];
+        return accents[sampler != null ? sampler.sample(random)
+                : random.nextInt(accents.length)];
+    }
+
+    /** Returns a surface that accent {@code accentIndex} passes on, or -1 if there is none. */
+    int sampleSurface(boolean isDarkTheme, int accentIndex, SplitMix64 random) {
+        int[] surfaces = table(isDarkTheme).surfacesByAccent[accentIndex];
+        return surfaces.length > 0 ? surfaces[random.nextInt(surfaces.length)] : -1;
+    }
+
+    /** Returns whether accent {@code accentIndex} has a nonzero weight and passes somewhere. */
+    boolean hasValidSurface(boolean isDarkTheme, int accentIndex) {
+        Table table = table(isDarkTheme);
+        return table.accentWeights[accentIndex] > 0
+                && table.surfacesByAccent[accentIndex].length > 0;
+    }
+
+    boolean hasWeight(boolean isDarkTheme, int accentIndex) {
+        return table(isDarkTheme).accentWeights[accentIndex] > 0;
+    }
+
+    int sampleBackground(boolean isDarkTheme, SplitMix64 random) {
+        int[] backgrounds = table(isDarkTheme).validBackgrounds;
+        return backgrounds[random.nextInt(backgrounds.length)];
+    }
+
+    private Table table(boolean isDarkTheme) {
+        return isDarkTheme ? dark : light;
+    }
+
+    private static double contrastOfLuminance(double first, double second) {
+        return (Math.max(first, second) + .05) / (Math.min(first, second) + .05);
+    }
+
+    private static double linear(int channel) {
+        double c = channel / 255.0;
+        return c <= .03928 ? c / 12.92 : Math.pow((c + .055) / 1.055, 2.4);
+    }
+
+    private static final class Table {
+        final String name;
+        final String paletteName;
+        final ColorSet[] accents;
+        final double[] accentWeights;
+        final int[] surfaces;
+        final int onSurface;
+        final int onBackground;
+        final float minTextContrast;
+
+        final int wordsPerSurface;
+        final long[] bits;
+        final int[] validPairs;
+        final int[][] accentsBySurface;
+        final int[][] surfacesByAccent;
+        final int[] validBackgrounds;
+        final AliasTable pairSampler;
+        /** Per surface, a sampler over its accents, or null if they all have zero weight. */
+        final AliasTable[] accentSamplers;
+
+        Table(String name, String paletteName, ColorSet[] accents, double[] accentWeights,
+                int[] surfaces, int onSurface, int onBackground, float minTextContrast,
+                float minComponentContrast) {
+            this.name = name;
+            this.paletteName = paletteName;
+            this.accents = accents;
+            this.accentWeights = accentWeights;
+            this.surfaces = surfaces;
+            this.onSurface = onSurface;
+            this.onBackground = onBackground;
+            this.minTextContrast = minTextContrast;
+
+            double[] accentLuminance = new double[accents.length];
+            boolean[] accentValid = new boolean[accents.length];
+            for (int i = 0; i < accents.length; i++) {
+                accentLuminance[i] = luminance(accents[i].color);
+                accentValid[i] = contrastOfLuminance(accentLuminance[i],
+                        luminance(accents[i].colorOn)) >= minTextContrast;
+            }
+
+            double onSurfaceLuminance = luminance(onSurface);
+            double onBackgroundLuminance = luminance(onBackground);
+            wordsPerSurface = (accents.length + 63) >>> 6;
+            bits = new long[surfaces.length * wordsPerSurface];
+            accentsBySurface = new int[surfaces.length][];
+            int[] backgrounds = new int[surfaces.length];
+            int backgroundCount = 0;
+            int pairCount = 0;
+
+            for (int s = 0; s < surfaces.length; s++) {
+                double surfaceLuminance = luminance(surfaces[s]);
+                if (contrastOfLuminance(surfaceLuminance, onBackgroundLuminance)
+                        >= minTextContrast) {
+                    backgrounds[backgroundCount++] = s;
+                }
+
+                int[] valid = new int[accents.length];
+                int validCount = 0;
+                if (contrastOfLuminance(surfaceLuminance, onSurfaceLuminance)
+                        >= minTextContrast) {
+                    for (int a = 0; a < accents.length; a++) {
+                        if (accentValid[a] && contrastOfLuminance(surfaceLuminance,
+                                accentLuminance[a]) >= minComponentContrast) {
+                            bits[s * wordsPerSurface + (a >>> 6)] |= 1L << a;
+                            valid[validCount++] = a;
+                        }
+                    }
+                }
+                accentsBySurface[s] = trim(valid, validCount);
+                pairCount += validCount;
+            }
+
+            if (pairCount == 0 || backgroundCount == 0) {
+                throw new IllegalArgumentException("No " + name
+                        + " theme combination meets the minimum contrast");
+            }
+
+            validBackgrounds = trim(backgrounds, backgroundCount);
+            validPairs = new int[pairCount];
+            double[] pairWeights = new double[pairCount];
+            double totalWeight = 0;
+            accentSamplers = new AliasTable[surfaces.length];
+            int[] surfaceCounts = new int[accents.length];
+            int next = 0;
+            for (int s = 0; s < surfaces.length; s++) {
+                int[] valid = accentsBySurface[s];
+                double[] weights = new double[valid.length];
+                double surfaceWeight = 0;
+                for (int i = 0; i < valid.length; i++) {
+                    int a = valid[i];
+                    weights[i] = accentWeights[a];
+                    surfaceWeight += weights[i];
+                    pairWeights[next] = weights[i];
+                    validPairs[next++] = s << 16 | a;
+                    surfaceCounts[a]++;
+                }
+                if (surfaceWeight > 0) {
+                    accentSamplers[s] = new AliasTable(weights);
+                }
+                totalWeight += surfaceWeight;
+            }
+            if (totalWeight == 0) {
+                throw new IllegalArgumentException("Every " + name + " theme combination that"
+                        + " meets the minimum contrast has zero weight");
+            }
+            pairSampler = new AliasTable(pairWeights);
+
+            surfacesByAccent = new int[accents.length][];
+            for (int a = 0; a < accents.length; a++) {
+                surfacesByAccent[a] = new int[surfaceCounts[a]];
+                surfaceCounts[a] = 0;
+            }
+            for (int s = 0; s < surfaces.length; s++) {
+                for (int a : accentsBySurface[s]) {
+                    surfacesByAccent[a][surfaceCounts[a]++] = s;
+                }
+            }
+        }
+
+        boolean isValid(int surfaceIndex, int accentIndex) {
+            return (bits[surfaceIndex * wordsPerSurface + (accentIndex >>> 6)]
+                    & 1L << accentIndex) != 0;
+        }
+
+        void describeInvalidEntries(List<String> entries) {
+            for (int i = 0; i < accents.length; i++) {
+                ColorSet accent = accents[i];
+                double contrast = contrast(accent.color, accent.colorOn);
+                if (contrast < minTextContrast) {
+                    entries.add(describe(paletteName, i, accent.color, accent.colorOn,
+                            contrast));
+                }
+            }
+            for (int i = 0; i < surfaces.length; i++) {
+                double contrast = contrast(surfaces[i], onSurface);
+                if (contrast < minTextContrast) {
+                    entries.add(describe(name + " surfaces", i, surfaces[i], onSurface, contrast));
+                }
+            }
+        }
+
+        private String describe(String kind, int index, int color, int colorOn,
+                double contrast) {
+            return String.format(Locale.US, "%s %d: #%06X on #%06X is %.2f:1, needs %.1f:1",
+                    kind, index, colorOn & 0xFFFFFF, color & 0xFFFFFF, contrast,
+                    minTextContrast);
+        }
+    }
+
+    private static int[] trim(int[] values, int length) {
+        int[] trimmed = new int[length];
+        System.arraycopy(values, 0, trimmed, 0, length);
+        return trimmed;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Append-only list of favorite themes kept in a memory-mapped file.
+ *
+ * <p>The file is a 32 byte header followed by fixed-width 16 byte records, each holding a
+ * {@link ThemeKeyCodec} key. The header records the codec fingerprint and the number of committed
+ * records. Opening a store maps the file and indexes the keys in memory, so {@link #indexOf}
+ * is a hash lookup rather than a scan of the file; themes are decoded one at a time as they're
+ * asked for.
+ *
+ * <p>Appending writes the record before bumping the count, so a process killed mid-append leaves
+ * the store at its previous length. Writes reach the page cache straight away; call
+ * {@link #force()} when they must survive losing power as well. The file grows by doubling, so
+ * appends are amortized constant time.
+ */
+public final class FavoritesStore implements Closeable {
+    private static final int MAGIC = 0x4D444746; // "MDGF"
+    private static final int VERSION = 1;
+
+    // Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int FINGERPRINT_OFFSET = 8;
+    private static final int COUNT_OFFSET = 16;
+    private static final int HEADER_BYTES = 32;
+
+    private static final int RECORD_BYTES = 16;
+    private static final int INITIAL_RECORDS = 256;
+    private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+    private static final int MIN_INDEX_CAPACITY = 64;
+
+    private final ThemeKeyCodec codec;
+    private final RandomAccessFile file;
+    private MappedByteBuffer buffer;
+    private int size;
+
+    // Open-addressing index from key to record; a slot holds the record index plus one, or 0
+    private long[] indexKeys;
+    private int[] indexRecords;
+
+    private FavoritesStore(ThemeKeyCodec codec, RandomAccessFile file, MappedByteBuffer buffer,
+            int size) {
+        this.codec = codec;
+        this.file = file;
+        this.buffer = buffer;
+        this.size = size;
+        int capacity = MIN_INDEX_CAPACITY;
+        while (capacity < 2 * size) {
+            capacity *= 2;
+        }
+        indexKeys = new long[2 * capacity];
+        indexRecords = new int[capacity];
+        for (int i = 0, offset = HEADER_BYTES; i < size; i++, offset += RECORD_BYTES) {
+            index(buffer.getLong(offset), buffer.getLong(offset + 8), i);
+        }
+    }
+
+    /**
+     * Opens the store at {@code path}, creating it if it doesn't exist. Throws IOException if the
+     * file isn't a store or was written by a codec with a different fingerprint.
+     */
+    public static FavoritesStore open(File path, ThemeKeyCodec codec) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            long length = file.length();
+            MappedByteBuffer buffer;
+            int size;
+            if (length == 0) {
+                length = HEADER_BYTES + (long) INITIAL_RECORDS * RECORD_BYTES;
+                file.setLength(length);
+                buffer = map(file, length);
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putLong(FINGERPRINT_OFFSET, codec.getFingerprint());
+                buffer.putLong(COUNT_OFFSET, 0);
+                size = 0;
+            } else {
+                if (length < HEADER_BYTES || length > MAX_FILE_BYTES) {
+                    throw new IOException(path + " is not a favorites store");
+                }
+                buffer = map(file, length);
+                if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                    throw new IOException(path + " is not a favorites store");
+                } else if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException(path + " has unsupported version "
+                            + buffer.getInt(VERSION_OFFSET));
+                } else if (buffer.getLong(FINGERPRINT_OFFSET) != codec.getFingerprint()) {
+                    throw new IOException(path + " was written for a different palette");
+                }
+                long count = buffer.getLong(COUNT_OFFSET);
+                if (count < 0 || count > (length - HEADER_BYTES) / RECORD_BYTES) {
+                    throw new IOException(path + " is corrupt: " + count + " records in "
+                            + length + " bytes");
+                }
+                size = (int) count;
+            }
+            return new FavoritesStore(codec, file, buffer, size);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Appends {@code theme}, which must come from a spec with this store's fingerprint. */
+    public synchronized void add(MaterialTheme theme) throws IOException {
+        long high = codec.encodeHigh(theme);
+        long low = codec.encodeLow(theme);
+        ensureOpen();
+        int offset = HEADER_BYTES + size * RECORD_BYTES;
+        if (offset + RECORD_BYTES > buffer.capacity()) {
+            grow();
+        }
+        buffer.putLong(offset, high);
+        buffer.putLong(offset + 8, low);
+        buffer.putLong(COUNT_OFFSET, size + 1);
+        index(high, low, size++);
+        if (size * 2 > indexRecords.length) {
+            growIndex();
+        }
+    }
+
+    /** Decodes the theme at {@code index}, in the order it was added. */
+    public synchronized MaterialTheme get(int index) {
+        ensureOpen();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+        int offset = HEADER_BYTES + index * RECORD_BYTES;
+        return codec.decode(buffer.getLong(offset), buffer.getLong(offset + 8));
+    }
+
+    /** Returns the index of the first record equal to {@code theme}'s key, or -1. */
+    public synchronized int indexOf(MaterialTheme theme) {
+        long high = codec.encodeHigh(theme);
+        long low = codec.encodeLow(theme);
+        ensureOpen();
+        return indexRecords[find(indexKeys, indexRecords, high, low)] - 1;
+    }
+
+    /** Flushes appended records to the storage device. */
+    public synchronized void force() {
+        ensureOpen();
+        buffer.force();
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once the buffer is garbage collected,
+     * since Java offers no way to unmap it explicitly.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer = null;
+            file.close();
+        }
+    }
+
+    private void grow() throws IOException {
+        long length = HEADER_BYTES + 2L * (buffer.capacity() - HEADER_BYTES);
+        if (length > MAX_FILE_BYTES) {
+            throw new IOException("Favorites store is full at " + size + " themes");
+        }
+        file.setLength(length);
+        buffer = map(file, length);
+    }
+
+    /** Indexes a record unless an earlier record has the same key. */
+    private void index(long high, long low, int record) {
+        int slot = find(indexKeys, indexRecords, high, low);
+        if (indexRecords[slot] == 0) {
+            indexKeys[2 * slot] = high;
+            indexKeys[2 * slot + 1] = low;
+            indexRecords[slot] = record + 1;
+        }
+    }
+
+    private void growIndex() {
+        long[] oldKeys = indexKeys;
+        int[] oldRecords = indexRecords;
+        indexKeys = new long[oldKeys.length * 2];
+        indexRecords = new int[oldRecords.length * 2];
+        for (int i = 0; i < oldRecords.length; i++) {
+            if (oldRecords[i] != 0) {
+                index(oldKeys[2 * i], oldKeys[2 * i + 1], oldRecords[i] - 1);
+            }
+        }
+    }
+
+    /** Returns the index slot holding the key, or the empty slot where it belongs. */
+    private static int find(long[] keys, int[] records, long high, long low) {
+        int mask = records.length - 1;
+        int slot = (int) SplitMix64.mix64(high * 31 + low) & mask;
+        while (records[slot] != 0 && (keys[2 * slot] != high || keys[2 * slot + 1] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void ensureOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("Favorites store is closed");
+        }
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile file, long length) throws IOException {
+        return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+}
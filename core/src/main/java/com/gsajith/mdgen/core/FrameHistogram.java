@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of frame durations with one bucket per millisecond up to
+ * {@link #MAX_TRACKED_MILLIS} and a single overflow bucket above that. Recording allocates
+ * nothing. The class is not synchronized.
+ */
+public final class FrameHistogram {
+    public static final int MAX_TRACKED_MILLIS = 100;
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private final long[] buckets = new long[MAX_TRACKED_MILLIS + 1];
+    private long count;
+    private long maxNanos;
+
+    public void record(long durationNanos) {
+        int bucket = (int) Math.min(Math.max(durationNanos, 0) / NANOS_PER_MILLI,
+                MAX_TRACKED_MILLIS);
+        buckets[bucket]++;
+        count++;
+        maxNanos = Math.max(maxNanos, durationNanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Returns the frame duration in milliseconds at or below which {@code percentile} percent of
+     * the recorded frames fall, rounded up to the bucket boundary. Frames in the overflow bucket
+     * report the slowest frame seen. Returns 0 if nothing was recorded.
+     */
+    public double getPercentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        long seen = 0;
+        for (int i = 0; i < MAX_TRACKED_MILLIS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i + 1;
+            }
+        }
+        return maxNanos / (double) NANOS_PER_MILLI;
+    }
+
+    public void clear() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        maxNanos = 0;
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+public final class MaterialTheme {
+    /** Matches {@code com.google.android.material.shape.CornerFamily.ROUNDED}. */
+    public static final int CORNER_ROUNDED = 0;
+    /** Matches {@code com.google.android.material.shape.CornerFamily.CUT}. */
+    public static final int CORNER_CUT = 1;
+
+    public static final int APP_BAR_TOP = 0;
+    public static final int APP_BAR_BOTTOM = 1;
+    public static final int APP_BAR_NONE = 2;
+
+    public boolean isDarkTheme;
+
+    public ColorSet colorPrimary;
+    public ColorSet colorSecondary;
+
+    public int colorBackground;
+    public int colorOnBackground;
+
+    public int colorError;
+    public int colorOnError;
+
+    public int colorSurface;
+    public int colorOnSurface;
+
+    public float elevation;
+
+    public float letterSpacingSmall;
+
+    public float smallTextSize;
+    public float smallPadding;
+    public boolean smallTextAllCaps;
+
+    public float mediumPadding;
+    public float xSmallPadding;
+    public int appBarVisibility;
+    public boolean isOutlinedTextField;
+
+    /** Corner family shared by the small and medium component shapes. */
+    public int cornerFamily;
+    public int smallCornerSize;
+    public int mediumCornerSize;
+}
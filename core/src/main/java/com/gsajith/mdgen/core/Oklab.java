@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Conversions between packed sRGB colors and the Oklab perceptual color space.
+ *
+ * <p>Converting to Oklab uses floating point, because it happens once per color. Converting back
+ * is done in 16.16 fixed point with lookup tables for the sRGB transfer curve, so it can build
+ * gradient tables without touching {@code Math.pow} or {@code Math.cbrt}.
+ */
+public final class Oklab {
+    /** Scale of the fixed-point L, a and b values produced by {@link #toFixed}. */
+    static final int ONE = 1 << 16;
+
+    private static final int LINEAR_TO_SRGB_BITS = 12;
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final byte[] LINEAR_TO_SRGB = new byte[(1 << LINEAR_TO_SRGB_BITS) + 1];
+
+    // Oklab to LMS (cube root) coefficients
+    private static final int L_A = fixed(0.3963377774);
+    private static final int L_B = fixed(0.2158037573);
+    private static final int M_A = fixed(-0.1055613458);
+    private static final int M_B = fixed(-0.0638541728);
+    private static final int S_A = fixed(-0.0894841775);
+    private static final int S_B = fixed(-1.2914855480);
+
+    // LMS to linear sRGB coefficients
+    private static final int R_L = fixed(4.0767416621);
+    private static final int R_M = fixed(-3.3077115913);
+    private static final int R_S = fixed(0.2309699292);
+    private static final int G_L = fixed(-1.2684380046);
+    private static final int G_M = fixed(2.6097574011);
+    private static final int G_S = fixed(-0.3413193965);
+    private static final int B_L = fixed(-0.0041960863);
+    private static final int B_M = fixed(-0.7034186147);
+    private static final int B_S = fixed(1.7076147010);
+
+    static {
+        for (int i = 0; i < SRGB_TO_LINEAR.length; i++) {
+            double c = i / 255.0;
+            SRGB_TO_LINEAR[i] = (float) (c <= 0.04045 ? c / 12.92
+                    : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+        int maxIndex = LINEAR_TO_SRGB.length - 1;
+        for (int i = 0; i <= maxIndex; i++) {
+            double c = i / (double) maxIndex;
+            c = c <= 0.0031308 ? c * 12.92 : 1.055 * Math.pow(c, 1 / 2.4) - 0.055;
+            LINEAR_TO_SRGB[i] = (byte) Math.round(c * 255);
+        }
+    }
+
+    private Oklab() {
+    }
+
+    /** Writes the L, a and b components of {@code color} to {@code lab}. Alpha is ignored. */
+    public static void fromColor(int color, float[] lab) {
+        float r = SRGB_TO_LINEAR[(color >> 16) & 0xFF];
+        float g = SRGB_TO_LINEAR[(color >> 8) & 0xFF];
+        float b = SRGB_TO_LINEAR[color & 0xFF];
+
+        double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+        double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+        double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+        lab[0] = (float) (0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s);
+        lab[1] = (float) (1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s);
+        lab[2] = (float) (0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s);
+    }
+
+    /** Writes the L, a and b components of {@code color} to {@code lab} in 16.16 fixed point. */
+    static void toFixed(int color, int[] lab, float[] scratch) {
+        fromColor(color, scratch);
+        lab[0] = fixed(scratch[0]);
+        lab[1] = fixed(scratch[1]);
+        lab[2] = fixed(scratch[2]);
+    }
+
+    /** Converts fixed-point L, a and b to an opaque sRGB color, clipping out-of-gamut values. */
+    static int fixedToColor(int lightness, int a, int b) {
+        long l = lightness + mul(L_A, a) + mul(L_B, b);
+        long m = lightness + mul(M_A, a) + mul(M_B, b);
+        long s = lightness + mul(S_A, a) + mul(S_B, b);
+        l = (l * l >> 16) * l >> 16;
+        m = (m * m >> 16) * m >> 16;
+        s = (s * s >> 16) * s >> 16;
+
+        int red = toSrgb((R_L * l + R_M * m + R_S * s) >> 16);
+        int green = toSrgb((G_L * l + G_M * m + G_S * s) >> 16);
+        int blue = toSrgb((B_L * l + B_M * m + B_S * s) >> 16);
+        return 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    private static int toSrgb(long linear) {
+        if (linear <= 0) {
+            return 0;
+        } else if (linear >= ONE) {
+            return 0xFF;
+        }
+        return LINEAR_TO_SRGB[(int) (linear >> (16 - LINEAR_TO_SRGB_BITS))] & 0xFF;
+    }
+
+    private static long mul(int a, int b) {
+        return (long) a * b >> 16;
+    }
+
+    private static int fixed(double value) {
+        return (int) Math.round(value * ONE);
+    }
+}
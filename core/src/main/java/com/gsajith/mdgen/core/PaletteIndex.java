@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Nearest-neighbor index over a set of colors in Oklab, where Euclidean distance approximates
+ * perceived difference.
+ *
+ * <p>The colors form a balanced k-d tree stored implicitly in flat arrays: each range's median
+ * element is its node, split on L, a and b in turn, so there are no node objects to chase.
+ * Instances are immutable once built and can be queried from any number of threads.
+ */
+public final class PaletteIndex {
+    private static final int DIMENSIONS = 3;
+
+    /** Oklab coordinates in tree order. */
+    private final float[] points;
+    /** Index into the source colors of each tree slot. */
+    private final int[] order;
+
+    public PaletteIndex(int[] colors) {
+        int size = colors.length;
+        float[] lab = new float[DIMENSIONS * size];
+        order = new int[size];
+        float[] color = new float[DIMENSIONS];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            Oklab.fromColor(colors[i], color);
+            System.arraycopy(color, 0, lab, DIMENSIONS * i, DIMENSIONS);
+        }
+        build(lab, 0, size, 0);
+
+        points = new float[DIMENSIONS * size];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(lab, DIMENSIONS * order[i], points, DIMENSIONS * i, DIMENSIONS);
+        }
+    }
+
+    /** Indexes the main color of each entry of a palette. */
+    public static PaletteIndex of(ColorSet[] colorSets) {
+        int[] colors = new int[colorSets.length];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = colorSets[i].color;
+        }
+        return new PaletteIndex(colors);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    /** Returns the index of the color nearest to {@code color}, or -1 if the index is empty. */
+    public int nearest(int color) {
+        int[] nearest = new int[1];
+        return nearest(color, nearest) > 0 ? nearest[0] : -1;
+    }
+
+    /**
+     * Writes the indices of the colors nearest to {@code color} to {@code nearest}, closest
+     * first, and returns how many were written.
+     */
+    public int nearest(int color, int[] nearest) {
+        float[] lab = new float[DIMENSIONS];
+        Oklab.fromColor(color, lab);
+        return nearest(lab, nearest.length, nearest, new float[nearest.length]);
+    }
+
+    /**
+     * Like {@link #nearest(int, int[])} for an Oklab query and at most {@code k} results, with
+     * caller-owned scratch space.
+     */
+    int nearest(float[] lab, int k, int[] nearest, float[] distances) {
+        k = Math.min(k, order.length);
+        for (int i = 0; i < k; i++) {
+            distances[i] = Float.POSITIVE_INFINITY;
+        }
+        if (k > 0) {
+            search(lab, 0, order.length, 0, nearest, distances, k);
+        }
+        return k;
+    }
+
+    private void search(float[] lab, int from, int to, int axis, int[] nearest,
+            float[] distances, int k) {
+        if (from >= to) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        int point = DIMENSIONS * mid;
+        float dl = lab[0] - points[point];
+        float da = lab[1] - points[point + 1];
+        float db = lab[2] - points[point + 2];
+        float distance = dl * dl + da * da + db * db;
+        if (distance < distances[k - 1]) {
+            insert(order[mid], distance, nearest, distances, k);
+        }
+
+        float split = lab[axis] - points[point + axis];
+        int next = axis == DIMENSIONS - 1 ? 0 : axis + 1;
+        if (split < 0) {
+            search(lab, from, mid, next, nearest, distances, k);
+            if (split * split < distances[k - 1]) {
+                search(lab, mid + 1, to, next, nearest, distances, k);
+            }
+        } else {
+            search(lab, mid + 1, to, next, nearest, distances, k);
+            if (split * split < distances[k - 1]) {
+                search(lab, from, mid, next, nearest, distances, k);
+            }
+        }
+    }
+
+    /** Inserts into the sorted candidate list, dropping the current worst. */
+    private static void insert(int index, float distance, int[] nearest, float[] distances,
+            int k) {
+        int i = k - 1;
+        while (i > 0 && distances[i - 1] > distance) {
+            distances[i] = distances[i - 1];
+            nearest[i] = nearest[i - 1];
+            i--;
+        }
+        distances[i] = distance;
+        nearest[i] = index;
+    }
+
+    /** Arranges {@code order[from, to)} so each range's median splits it on {@code axis}. */
+    private void build(float[] lab, int from, int to, int axis) {
+        if (to - from <= 1) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        select(lab, from, to - 1, mid, axis);
+        int next = axis == DIMENSIONS - 1 ? 0 : axis + 1;
+        build(lab, from, mid, next);
+        build(lab, mid + 1, to, next);
+    }
+
+    /** Quickselect: moves the {@code target}th smallest on {@code axis} into place. */
+    private void select(float[] lab, int left, int right, int target, int axis) {
+        while (left < right) {
+            float pivot = lab[DIMENSIONS * order[(left + right) >>> 1] + axis];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (lab[DIMENSIONS * order[i] + axis] < pivot) {
+                    i++;
+                }
+                while (lab[DIMENSIONS * order[j] + axis] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int swap = order[i];
+                    order[i] = order[j];
+                    order[j] = swap;
+                    i++;
+                    j--;
+                }
+            }
+            if (target <= j) {
+                right = j;
+            } else if (target >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Drawing surface for {@link ThemePreviewRasterizer}. Android implementations wrap a
+ * {@code Canvas}; tests can record the calls instead. Coordinates, sizes and text sizes are in
+ * output pixels, letter spacing is in ems, and shapes take a {@link MaterialTheme} corner family.
+ */
+public interface PreviewCanvas {
+    void fillRect(float left, float top, float right, float bottom, int color);
+
+    void fillShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, int color);
+
+    void strokeShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, float strokeWidth, int color);
+
+    void fillCircle(float centerX, float centerY, float radius, int color);
+
+    /** Draws the shadow a shape casts at {@code elevation}, without the shape itself. */
+    void drawShadow(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize, float elevation);
+
+    /** Clips everything drawn until the next {@link #restore()} to a shape. */
+    void clipShape(float left, float top, float right, float bottom, int cornerFamily,
+            float cornerSize);
+
+    void restore();
+
+    float measureText(String text, float textSize, float letterSpacing);
+
+    void drawText(String text, float x, float baseline, float textSize, float letterSpacing,
+            int color);
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Remembers which themes were recently shown, in a fixed-size Bloom filter kept in a
+ * memory-mapped file so it survives across sessions.
+ *
+ * <p>Themes are keyed by {@link ThemeKeyCodec#encodeCoarse}, so themes that only differ in
+ * their exact dimensions count as the same. The filter is blocked: a key's {@link #HASHES} bits
+ * all fall in one 64 byte block, so a lookup touches a single cache line per generation and
+ * allocates nothing.
+ *
+ * <p>There are two generations of {@code capacity} keys each. New keys go into the current
+ * generation; once it is full the older generation is cleared and becomes current. Lookups check
+ * both, so the filter always remembers at least the last {@code capacity} themes and at most
+ * twice that, and the file never grows. At {@link #BITS_PER_KEY} bits per key about 1% of unseen
+ * themes are reported as seen.
+ *
+ * <p>Adding sets bits before bumping the count, and rotation clears the old generation before
+ * switching to it, so a process killed mid-write at worst forgets some themes.
+ */
+public final class SeenThemeFilter implements Closeable {
+    /** Filter bits allotted to each key of a generation. */
+    public static final int BITS_PER_KEY = 12;
+    /** Bits set per key. */
+    public static final int HASHES = 7;
+    /** Largest capacity per generation, which makes a 200 MB file. */
+    public static final int MAX_CAPACITY = 1 << 26;
+
+    private static final int MAGIC = 0x4D444753; // "MDGS"
+    private static final int VERSION = 1;
+
+    // Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int FINGERPRINT_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int CURRENT_OFFSET = 20;
+    private static final int COUNT_OFFSET = 24;
+    private static final int HEADER_BYTES = 64;
+
+    private static final int BLOCK_BYTES = 64;
+    private static final int BLOCK_BITS = BLOCK_BYTES * 8;
+    private static final int BIT_INDEX_BITS = 9;
+
+    private final ThemeKeyCodec codec;
+    private final RandomAccessFile file;
+    private final int capacity;
+    private final int blocks;
+    private final int generationBytes;
+    private MappedByteBuffer buffer;
+    private int current;
+    private int count;
+
+    private SeenThemeFilter(ThemeKeyCodec codec, RandomAccessFile file, MappedByteBuffer buffer,
+            int capacity) {
+        this.codec = codec;
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        blocks = blocksFor(capacity);
+        generationBytes = blocks * BLOCK_BYTES;
+        current = buffer.getInt(CURRENT_OFFSET);
+        count = buffer.getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * Opens the filter at {@code path}, creating it for {@code capacity} keys per generation if
+     * it doesn't exist. Throws IOException if the file isn't a filter, or was created for a
+     * different capacity or codec fingerprint.
+     */
+    public static SeenThemeFilter open(File path, ThemeKeyCodec codec, int capacity)
+            throws IOException {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is not between 1 and "
+                    + MAX_CAPACITY);
+        }
+        long length = HEADER_BYTES + 2L * blocksFor(capacity) * BLOCK_BYTES;
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        try {
+            MappedByteBuffer buffer;
+            if (file.length() == 0) {
+                file.setLength(length);
+                buffer = map(file, length);
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(VERSION_OFFSET, VERSION);
+                buffer.putLong(FINGERPRINT_OFFSET, codec.getFingerprint());
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                buffer.putInt(CURRENT_OFFSET, 0);
+                buffer.putInt(COUNT_OFFSET, 0);
+            } else {
+                if (file.length() < HEADER_BYTES) {
+                    throw new IOException(path + " is not a seen theme filter");
+                }
+                buffer = map(file, HEADER_BYTES);
+                if (buffer.getInt(MAGIC_OFFSET) != MAGIC) {
+                    throw new IOException(path + " is not a seen theme filter");
+                } else if (buffer.getInt(VERSION_OFFSET) != VERSION) {
+                    throw new IOException(path + " has unsupported version "
+                            + buffer.getInt(VERSION_OFFSET));
+                } else if (buffer.getLong(FINGERPRINT_OFFSET) != codec.getFingerprint()) {
+                    throw new IOException(path + " was written for a different palette");
+                } else if (buffer.getInt(CAPACITY_OFFSET) != capacity) {
+                    throw new IOException(path + " holds " + buffer.getInt(CAPACITY_OFFSET)
+                            + " themes per generation, not " + capacity);
+                } else if (file.length() != length) {
+                    throw new IOException(path + " is corrupt: " + file.length()
+                            + " bytes instead of " + length);
+                }
+                int current = buffer.getInt(CURRENT_OFFSET);
+                int count = buffer.getInt(COUNT_OFFSET);
+                if ((current & ~1) != 0 || count < 0 || count > capacity) {
+                    throw new IOException(path + " is corrupt: generation " + current
+                            + " holds " + count + " themes");
+                }
+                buffer = map(file, length);
+            }
+            return new SeenThemeFilter(codec, file, buffer, capacity);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Returns the number of themes added to the current generation. */
+    public synchronized int getCurrentCount() {
+        return count;
+    }
+
+    /** Returns whether {@code theme} was probably added within the last one or two generations. */
+    public boolean mightContain(MaterialTheme theme) {
+        return mightContain(codec.encodeCoarse(theme));
+    }
+
+    /** Like {@link #mightContain(MaterialTheme)}, for a {@link ThemeKeyCodec#encodeCoarse} key. */
+    public synchronized boolean mightContain(long key) {
+        ensureOpen();
+        long hash = SplitMix64.mix64(key);
+        int block = block(hash);
+        long bits = SplitMix64.mix64(hash);
+        return contains(HEADER_BYTES + block * BLOCK_BYTES, bits)
+                || contains(HEADER_BYTES + generationBytes + block * BLOCK_BYTES, bits);
+    }
+
+    /** Records {@code theme} as seen, rotating generations when the current one is full. */
+    public void add(MaterialTheme theme) {
+        add(codec.encodeCoarse(theme));
+    }
+
+    public synchronized void add(long key) {
+        ensureOpen();
+        long hash = SplitMix64.mix64(key);
+        int offset = HEADER_BYTES + current * generationBytes + block(hash) * BLOCK_BYTES;
+        long bits = SplitMix64.mix64(hash);
+        if (contains(offset, bits)) {
+            return;
+        }
+        if (count == capacity) {
+            rotate();
+            offset = HEADER_BYTES + current * generationBytes + block(hash) * BLOCK_BYTES;
+        }
+        for (int i = 0; i < HASHES; i++, bits >>>= BIT_INDEX_BITS) {
+            int bit = (int) bits & (BLOCK_BITS - 1);
+            int word = offset + (bit >>> 6) * 8;
+            buffer.putLong(word, buffer.getLong(word) | 1L << bit);
+        }
+        buffer.putInt(COUNT_OFFSET, ++count);
+    }
+
+    /** Flushes recorded themes to the storage device. */
+    public synchronized void force() {
+        ensureOpen();
+        buffer.force();
+    }
+
+    /**
+     * Closes the file. The mapping itself is released once the buffer is garbage collected,
+     * since Java offers no way to unmap it explicitly.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer = null;
+            file.close();
+        }
+    }
+
+    private boolean contains(int offset, long bits) {
+        for (int i = 0; i < HASHES; i++, bits >>>= BIT_INDEX_BITS) {
+            int bit = (int) bits & (BLOCK_BITS - 1);
+            if ((buffer.getLong(offset + (bit >>> 6) * 8) & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotate() {
+        int next = current ^ 1;
+        int start = HEADER_BYTES + next * generationBytes;
+        for (int offset = start; offset < start + generationBytes; offset += 8) {
+            buffer.putLong(offset, 0);
+        }
+        buffer.putInt(COUNT_OFFSET, 0);
+        buffer.putInt(CURRENT_OFFSET, next);
+        current = next;
+        count = 0;
+    }
+
+    /** Maps the top half of {@code hash} onto a block with a multiply instead of a division. */
+    private int block(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32);
+    }
+
+    private void ensureOpen() {
+        if (buffer == null) {
+            throw new IllegalStateException("Seen theme filter is closed");
+        }
+    }
+
+    private static int blocksFor(int capacity) {
+        return (int) (((long) capacity * BITS_PER_KEY + BLOCK_BITS - 1) / BLOCK_BITS);
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile file, long length) throws IOException {
+        return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+}
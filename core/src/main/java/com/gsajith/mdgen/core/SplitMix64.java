@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Small, unsynchronized SplitMix64 generator. It produces the same sequence as
+ * {@code java.util.SplittableRandom} for a given seed, but is available on every API level and
+ * lets a batch reuse one instance instead of allocating a generator per theme.
+ */
+final class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    SplitMix64(long seed) {
+        state = seed;
+    }
+
+    void setSeed(long seed) {
+        state = seed;
+    }
+
+    long nextLong() {
+        return mix64(state += GOLDEN_GAMMA);
+    }
+
+    /** Returns a uniformly distributed value in [0, 1). */
+    double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /** Returns a uniformly distributed value in [0, bound). */
+    int nextInt(int bound) {
+        return (int) (nextDouble() * bound);
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.Locale;
+
+/** Human-readable summary of how two {@link MaterialTheme}s differ, for diagnostics. */
+public final class ThemeDiff {
+
+    private ThemeDiff() {
+    }
+
+    /**
+     * Returns one "field from -> to" entry per changed field, separated by commas, or
+     * "no changes".
+     */
+    public static String describe(MaterialTheme from, MaterialTheme to) {
+        StringBuilder diff = new StringBuilder();
+        if (from.isDarkTheme != to.isDarkTheme) {
+            entry(diff, "isDarkTheme", String.valueOf(from.isDarkTheme),
+                    String.valueOf(to.isDarkTheme));
+        }
+        color(diff, "colorPrimary", from.colorPrimary.color, to.colorPrimary.color);
+        color(diff, "colorSecondary", from.colorSecondary.color, to.colorSecondary.color);
+        color(diff, "colorBackground", from.colorBackground, to.colorBackground);
+        color(diff, "colorSurface", from.colorSurface, to.colorSurface);
+        color(diff, "colorOnSurface", from.colorOnSurface, to.colorOnSurface);
+        if (from.cornerFamily != to.cornerFamily) {
+            entry(diff, "cornerFamily", cornerFamilyName(from.cornerFamily),
+                    cornerFamilyName(to.cornerFamily));
+        }
+        number(diff, "smallCornerSize", from.smallCornerSize, to.smallCornerSize);
+        number(diff, "mediumCornerSize", from.mediumCornerSize, to.mediumCornerSize);
+        number(diff, "elevation", from.elevation, to.elevation);
+        number(diff, "letterSpacingSmall", from.letterSpacingSmall, to.letterSpacingSmall);
+        number(diff, "smallTextSize", from.smallTextSize, to.smallTextSize);
+        number(diff, "smallPadding", from.smallPadding, to.smallPadding);
+        number(diff, "mediumPadding", from.mediumPadding, to.mediumPadding);
+        number(diff, "xSmallPadding", from.xSmallPadding, to.xSmallPadding);
+        if (from.smallTextAllCaps != to.smallTextAllCaps) {
+            entry(diff, "smallTextAllCaps", String.valueOf(from.smallTextAllCaps),
+                    String.valueOf(to.smallTextAllCaps));
+        }
+        if (from.appBarVisibility != to.appBarVisibility) {
+            entry(diff, "appBarVisibility", appBarName(from.appBarVisibility),
+                    appBarName(to.appBarVisibility));
+        }
+        if (from.isOutlinedTextField != to.isOutlinedTextField) {
+            entry(diff, "isOutlinedTextField", String.valueOf(from.isOutlinedTextField),
+                    String.valueOf(to.isOutlinedTextField));
+        }
+        return diff.length() == 0 ? "no changes" : diff.toString();
+    }
+
+    private static void color(StringBuilder diff, String name, int from, int to) {
+        if (from != to) {
+            entry(diff, name, String.format("#%08X", from), String.format("#%08X", to));
+        }
+    }
+
+    private static void number(StringBuilder diff, String name, float from, float to) {
+        if (from != to) {
+            entry(diff, name, String.format(Locale.US, "%.2f", from),
+                    String.format(Locale.US, "%.2f", to));
+        }
+    }
+
+    private static void entry(StringBuilder diff, String name, String from, String to) {
+        if (diff.length() > 0) {
+            diff.append(", ");
+        }
+        diff.append(name).append(' ').append(from).append(" -> ").append(to);
+    }
+
+    private static String cornerFamilyName(int cornerFamily) {
+        return cornerFamily == MaterialTheme.CORNER_CUT ? "cut" : "rounded";
+    }
+
+    private static String appBarName(int appBarVisibility) {
+        switch (appBarVisibility) {
+            case MaterialTheme.APP_BAR_TOP:
+                return "top";
+            case MaterialTheme.APP_BAR_BOTTOM:
+                return "bottom";
+            default:
+                return "none";
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+/**
+ * Streams generated themes to disk as JSON lines and as Android {@code colors.xml},
+ * {@code dimens.xml} and {@code styles.xml} resources.
+ *
+ * <p>Each theme is formatted straight into fixed-size buffers in front of NIO channels, so an
+ * export of any size runs in constant memory. The exporter is a {@link ThemeSink} and can be
+ * handed directly to {@link ThemeGenerator#generateBatch}. Sink callbacks can't throw checked
+ * exceptions, so write failures surface from {@code accept} as {@link ExportException}.
+ *
+ * <p>{@link #toJsonLines} skips the resources, for callers that only want the JSON stream.
+ * JSON lines keep the raw pixel values from {@link MaterialTheme}. The XML resources convert
+ * them back to dp and sp using the densities the spec was built with.
+ */
+public final class ThemeExporter implements ThemeSink, Closeable {
+    public static final String JSON_LINES_FILE = "themes.jsonl";
+    public static final String COLORS_FILE = "colors.xml";
+    public static final String DIMENS_FILE = "dimens.xml";
+    public static final String STYLES_FILE = "styles.xml";
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"utf-8\"?>\n"
+            + "<resources>\n";
+    private static final String XML_FOOTER = "</resources>\n";
+
+    private final ChannelWriter json;
+    /** The resource writers, or null when only JSON lines are exported. */
+    private final ChannelWriter colors;
+    private final ChannelWriter dimens;
+    private final ChannelWriter styles;
+    private final float density;
+    private final float scaledDensity;
+    private final long startNanos = System.nanoTime();
+    private long endNanos;
+    private long themeCount;
+    private boolean closed;
+
+    /**
+     * Exports into the channels given, taking ownership of them. {@code density} and
+     * {@code scaledDensity} are the values the exported themes' spec was built with.
+     */
+    public ThemeExporter(WritableByteChannel json, WritableByteChannel colors,
+            WritableByteChannel dimens, WritableByteChannel styles, float density,
+            float scaledDensity) throws IOException {
+        this.json = new ChannelWriter(json);
+        this.colors = new ChannelWriter(colors);
+        this.dimens = new ChannelWriter(dimens);
+        this.styles = new ChannelWriter(styles);
+        this.density = density;
+        this.scaledDensity = scaledDensity;
+
+        this.colors.write(XML_HEADER);
+        this.dimens.write(XML_HEADER);
+        this.styles.write(XML_HEADER);
+    }
+
+    private ThemeExporter(WritableByteChannel json) {
+        this.json = new ChannelWriter(json);
+        colors = null;
+        dimens = null;
+        styles = null;
+        density = 0;
+        scaledDensity = 0;
+    }
+
+    /** Exports only JSON lines into {@code json}, taking ownership of it. */
+    public static ThemeExporter toJsonLines(WritableByteChannel json) {
+        return new ThemeExporter(json);
+    }
+
+    /** Exports into the standard file names in {@code directory}, replacing existing files. */
+    public static ThemeExporter toDirectory(Path directory, float density, float scaledDensity)
+            throws IOException {
+        Files.createDirectories(directory);
+        return new ThemeExporter(open(directory.resolve(JSON_LINES_FILE)),
+                open(directory.resolve(COLORS_FILE)), open(directory.resolve(DIMENS_FILE)),
+                open(directory.resolve(STYLES_FILE)), density, scaledDensity);
+    }
+
+    /**
+     * Generates {@code count} themes with {@code seed} into {@code directory} and returns the
+     * finished exporter, which can describe its throughput.
+     */
+    public static ThemeExporter export(ThemeGenerator generator, long seed, int count,
+            Path directory, float density, float scaledDensity) throws IOException {
+        ThemeExporter exporter = toDirectory(directory, density, scaledDensity);
+        try {
+            generator.generateBatch(seed, count, exporter);
+        } catch (ExportException e) {
+            throw e.getCause();
+        } finally {
+            exporter.close();
+        }
+        return exporter;
+    }
+
+    @Override
+    public void accept(int index, MaterialTheme theme) {
+        try {
+            writeJson(index, theme);
+            if (colors != null) {
+                writeColors(index, theme);
+                writeDimens(index, theme);
+                writeStyles(index, theme);
+            }
+            themeCount++;
+        } catch (IOException e) {
+            throw new ExportException(e);
+        }
+    }
+
+    public long getThemeCount() {
+        return themeCount;
+    }
+
+    /** Returns the bytes written so far across all outputs, including buffered bytes. */
+    public long getBytesWritten() {
+        long bytes = json.getBytesWritten();
+        if (colors != null) {
+            bytes += colors.getBytesWritten() + dimens.getBytesWritten()
+                    + styles.getBytesWritten();
+        }
+        return bytes;
+    }
+
+    /** Returns the time since the exporter was created, or until it was closed. */
+    public long getElapsedNanos() {
+        return (closed ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /** Returns a one-line summary of themes and bytes written and the rate of each. */
+    public String describeThroughput() {
+        double seconds = getElapsedNanos() / 1e9;
+        double megabytes = getBytesWritten() / (1024.0 * 1024.0);
+        return String.format(Locale.US, "%d themes, %.1f MB in %.2f s (%.0f themes/s, %.1f MB/s)",
+                themeCount, megabytes, seconds, themeCount / seconds, megabytes / seconds);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException failure = null;
+        for (ChannelWriter writer : new ChannelWriter[]{json, colors, dimens, styles}) {
+            if (writer == null) {
+                continue;
+            }
+            try {
+                if (writer != json) {
+                    writer.write(XML_FOOTER);
+                }
+                writer.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        endNanos = System.nanoTime();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void writeJson(int index, MaterialTheme theme) throws IOException {
+        json.write("{\"index\":").write(index)
+                .write(",\"isDarkTheme\":").write(theme.isDarkTheme ? "true" : "false");
+        writeJsonColorSet("colorPrimary", theme.colorPrimary);
+        writeJsonColorSet("colorSecondary", theme.colorSecondary);
+        writeJsonColor("colorBackground", theme.colorBackground);
+        writeJsonColor("colorOnBackground", theme.colorOnBackground);
+        writeJsonColor("colorError", theme.colorError);
+        writeJsonColor("colorOnError", theme.colorOnError);
+        writeJsonColor("colorSurface", theme.colorSurface);
+        writeJsonColor("colorOnSurface", theme.colorOnSurface);
+        json.write(",\"cornerFamily\":\"").write(cornerFamilyName(theme.cornerFamily))
+                .write("\",\"smallCornerSize\":").write(theme.smallCornerSize)
+                .write(",\"mediumCornerSize\":").write(theme.mediumCornerSize)
+                .write(",\"elevation\":").write(theme.elevation, 2)
+                .write(",\"letterSpacingSmall\":").write(theme.letterSpacingSmall, 4)
+                .write(",\"smallTextSize\":").write(theme.smallTextSize, 2)
+                .write(",\"smallPadding\":").write(theme.smallPadding, 2)
+                .write(",\"smallTextAllCaps\":").write(theme.smallTextAllCaps ? "true" : "false")
+                .write(",\"mediumPadding\":").write(theme.mediumPadding, 2)
+                .write(",\"xSmallPadding\":").write(theme.xSmallPadding, 2)
+                .write(",\"appBarVisibility\":").write(theme.appBarVisibility)
+                .write(",\"isOutlinedTextField\":")
+                .write(theme.isOutlinedTextField ? "true" : "false")
+                .write("}\n");
+    }
+
+    private void writeJsonColorSet(String name, ColorSet colorSet) throws IOException {
+        json.write(",\"").write(name).write("\":{\"color\":\"").writeColor(colorSet.color)
+                .write("\",\"colorVariant\":\"").writeColor(colorSet.colorVariant)
+                .write("\",\"colorOn\":\"").writeColor(colorSet.colorOn).write("\"}");
+    }
+
+    private void writeJsonColor(String name, int color) throws IOException {
+        json.write(",\"").write(name).write("\":\"").writeColor(color).write("\"");
+    }
+
+    private void writeColors(int index, MaterialTheme theme) throws IOException {
+        writeColor(index, "primary", theme.colorPrimary.color);
+        writeColor(index, "primary_variant", theme.colorPrimary.colorVariant);
+        writeColor(index, "on_primary", theme.colorPrimary.colorOn);
+        writeColor(index, "secondary", theme.colorSecondary.color);
+        writeColor(index, "secondary_variant", theme.colorSecondary.colorVariant);
+        writeColor(index, "on_secondary", theme.colorSecondary.colorOn);
+        writeColor(index, "background", theme.colorBackground);
+        writeColor(index, "on_background", theme.colorOnBackground);
+        writeColor(index, "error", theme.colorError);
+        writeColor(index, "on_error", theme.colorOnError);
+        writeColor(index, "surface", theme.colorSurface);
+        writeColor(index, "on_surface", theme.colorOnSurface);
+    }
+
+    private void writeColor(int index, String name, int color) throws IOException {
+        colors.write("    <color name=\"mdgen_").write(index).write('_').write(name).write("\">")
+                .writeColor(color).write("</color>\n");
+    }
+
+    private void writeDimens(int index, MaterialTheme theme) throws IOException {
+        writeDimen(index, "small_corner_size", theme.smallCornerSize / density, "dp");
+        writeDimen(index, "medium_corner_size", theme.mediumCornerSize / density, "dp");
+        writeDimen(index, "elevation", theme.elevation / density, "dp");
+        writeDimen(index, "small_text_size", theme.smallTextSize / scaledDensity, "sp");
+        writeDimen(index, "small_padding", theme.smallPadding / density, "dp");
+        writeDimen(index, "medium_padding", theme.mediumPadding / density, "dp");
+        writeDimen(index, "xsmall_padding", theme.xSmallPadding / density, "dp");
+    }
+
+    private void writeDimen(int index, String name, float value, String unit)
+            throws IOException {
+        dimens.write("    <dimen name=\"mdgen_").write(index).write('_').write(name).write("\">")
+                .write(value, 2).write(unit).write("</dimen>\n");
+    }
+
+    private void writeStyles(int index, MaterialTheme theme) throws IOException {
+        styles.write("    <style name=\"Theme.MDGen.Generated.").write(index)
+                .write(theme.isDarkTheme ? "\" parent=\"Theme.MaterialComponents.NoActionBar\">\n"
+                        : "\" parent=\"Theme.MaterialComponents.Light.NoActionBar\">\n");
+        writeColorItem(index, "colorPrimary", "primary");
+        writeColorItem(index, "colorPrimaryVariant", "primary_variant");
+        writeColorItem(index, "colorOnPrimary", "on_primary");
+        writeColorItem(index, "colorSecondary", "secondary");
+        writeColorItem(index, "colorSecondaryVariant", "secondary_variant");
+        writeColorItem(index, "colorOnSecondary", "on_secondary");
+        writeColorItem(index, "android:colorBackground", "background");
+        writeColorItem(index, "colorOnBackground", "on_background");
+        writeColorItem(index, "colorError", "error");
+        writeColorItem(index, "colorOnError", "on_error");
+        writeColorItem(index, "colorSurface", "surface");
+        writeColorItem(index, "colorOnSurface", "on_surface");
+        styles.write("        <item name=\"shapeAppearanceSmallComponent\">")
+                .write("@style/ShapeAppearance.MDGen.Generated.").write(index)
+                .write(".SmallComponent</item>\n")
+                .write("        <item name=\"shapeAppearanceMediumComponent\">")
+                .write("@style/ShapeAppearance.MDGen.Generated.").write(index)
+                .write(".MediumComponent</item>\n")
+                .write("        <item name=\"textAppearanceButton\">")
+                .write("@style/TextAppearance.MDGen.Generated.").write(index)
+                .write(".Button</item>\n")
+                .write("    </style>\n");
+
+        writeShapeStyle(index, "SmallComponent", theme.cornerFamily, "small_corner_size");
+        writeShapeStyle(index, "MediumComponent", theme.cornerFamily, "medium_corner_size");
+
+        styles.write("    <style name=\"TextAppearance.MDGen.Generated.").write(index)
+                .write(".Button\" parent=\"TextAppearance.MaterialComponents.Button\">\n")
+                .write("        <item name=\"android:textSize\">@dimen/mdgen_").write(index)
+                .write("_small_text_size</item>\n")
+                .write("        <item name=\"android:letterSpacing\">")
+                .write(theme.letterSpacingSmall, 4).write("</item>\n")
+                .write("        <item name=\"android:textAllCaps\">")
+                .write(theme.smallTextAllCaps ? "true" : "false").write("</item>\n")
+                .write("    </style>\n");
+    }
+
+    private void writeColorItem(int index, String attribute, String name) throws IOException {
+        styles.write("        <item name=\"").write(attribute).write("\">@color/mdgen_")
+                .write(index).write('_').write(name).write("</item>\n");
+    }
+
+    private void writeShapeStyle(int index, String component, int cornerFamily,
+            String cornerSizeName) throws IOException {
+        styles.write("    <style name=\"ShapeAppearance.MDGen.Generated.").write(index)
+                .write('.').write(component)
+                .write("\" parent=\"ShapeAppearance.MaterialComponents.").write(component)
+                .write("\">\n        <item name=\"cornerFamily\">")
+                .write(cornerFamilyName(cornerFamily)).write("</item>\n")
+                .write("        <item name=\"cornerSize\">@dimen/mdgen_").write(index)
+                .write('_').write(cornerSizeName).write("</item>\n")
+                .write("    </style>\n");
+    }
+
+    private static String cornerFamilyName(int cornerFamily) {
+        return cornerFamily == MaterialTheme.CORNER_CUT ? "cut" : "rounded";
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /** Unchecked wrapper for a write failure inside {@link #accept}. */
+    public static final class ExportException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExportException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
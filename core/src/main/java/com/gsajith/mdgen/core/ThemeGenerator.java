@@ -0,0 +1,342 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates random {@link MaterialTheme}s from a {@link ThemeSpec}. Every theme is a pure
+ * function of the spec and a seed, so the same seed always yields the same theme on any JVM or
+ * device. Instances are immutable and can be shared between threads.
+ */
+public final class ThemeGenerator {
+    /** Palette colors nearest a seed color that are considered for primary and secondary. */
+    private static final int SEED_NEIGHBORS = 8;
+    /** Themes generated by each leaf task of {@link #generateParallel}. */
+    private static final int PARALLEL_LEAF_SIZE = 1024;
+
+    private final ThemeSpec spec;
+    private final ContrastIndex contrastIndex;
+    private final ThemeKeyCodec keyCodec;
+    private final PaletteIndex lightAccentIndex;
+    private final PaletteIndex darkAccentIndex;
+    private final PaletteIndex lightSurfaceIndex;
+    private final PaletteIndex darkSurfaceIndex;
+    private final int maxIndexSize;
+    private final AliasTable appBarSampler;
+
+    /**
+     * Builds the spec's {@link ContrastIndex} and {@link PaletteIndex}es up front. Throws
+     * IllegalArgumentException if either theme mode has no surface and accent combination that
+     * meets the minimum contrast.
+     */
+    public ThemeGenerator(ThemeSpec spec) {
+        this.spec = spec;
+        contrastIndex = new ContrastIndex(spec);
+        keyCodec = new ThemeKeyCodec(spec);
+        // Dark themes pull their accents from the light palette and vice versa
+        lightAccentIndex = PaletteIndex.of(spec.darkColors);
+        darkAccentIndex = PaletteIndex.of(spec.lightColors);
+        lightSurfaceIndex = new PaletteIndex(spec.lightSurfaceColors);
+        darkSurfaceIndex = new PaletteIndex(spec.darkSurfaceColors);
+        appBarSampler = new AliasTable(spec.appBarWeights);
+        maxIndexSize = Math.max(Math.max(spec.lightColors.length, spec.darkColors.length),
+                Math.max(spec.lightSurfaceColors.length, spec.darkSurfaceColors.length));
+    }
+
+    public ThemeSpec getSpec() {
+        return spec;
+    }
+
+    public ContrastIndex getContrastIndex() {
+        return contrastIndex;
+    }
+
+    /** Returns the codec that packs this generator's themes into {@link ThemeKeyCodec} keys. */
+    public ThemeKeyCodec getKeyCodec() {
+        return keyCodec;
+    }
+
+    /** Returns the index over the palette that themes of the given mode draw accents from. */
+    public PaletteIndex getAccentIndex(boolean isDarkTheme) {
+        return isDarkTheme ? darkAccentIndex : lightAccentIndex;
+    }
+
+    /** Returns the seed used for theme {@code index} of a batch started with {@code seed}. */
+    public static long seedForIndex(long seed, long index) {
+        return SplitMix64.mix64(seed + index * 0x9e3779b97f4a7c15L);
+    }
+
+    public MaterialTheme generate(long seed) {
+        MaterialTheme theme = new MaterialTheme();
+        generate(new SplitMix64(seed), theme);
+        return theme;
+    }
+
+    /**
+     * Generates {@code count} themes into {@code sink}. Theme {@code i} is identical to
+     * {@code generate(seedForIndex(seed, i))}; a single theme instance and random source are
+     * reused for the whole batch.
+     */
+    public void generateBatch(long seed, int count, ThemeSink sink) {
+        generateBatch(seed, 0, count, sink);
+    }
+
+    /**
+     * Generates themes {@code from} up to {@code to} of the batch started with {@code seed}, so
+     * a long batch can be produced in pieces.
+     */
+    public void generateBatch(long seed, int from, int to, ThemeSink sink) {
+        SplitMix64 random = new SplitMix64(seed);
+        MaterialTheme theme = new MaterialTheme();
+        for (int i = from; i < to; i++) {
+            random.setSeed(seedForIndex(seed, i));
+            generate(random, theme);
+            sink.accept(i, theme);
+        }
+    }
+
+    /**
+     * Generates {@code count} themes into {@code sink} on the workers of {@code pool}. Every
+     * index derives its own random stream, so theme {@code i} is identical to
+     * {@code generate(seedForIndex(seed, i))} whatever the pool's parallelism.
+     *
+     * <p>The sink is called concurrently from several threads, each time with a distinct index.
+     * As in {@link #generateBatch}, the theme it receives is reused once it returns.
+     */
+    public void generateParallel(long seed, int count, ForkJoinPool pool, ThemeSink sink) {
+        pool.invoke(new GenerateTask(seed, 0, count, sink));
+    }
+
+    /**
+     * Generates a theme built around {@code seedColor}. The primary color is the palette color
+     * nearest to the seed in Oklab that passes on some surface, and the secondary is drawn from
+     * the seed's other near neighbors. Half the time the surface is the valid one nearest to the
+     * seed, so tinted surfaces follow its hue. Everything else is drawn as in
+     * {@link #generate(long)}.
+     */
+    public MaterialTheme generateFromSeedColor(int seedColor, long seed) {
+        MaterialTheme theme = new MaterialTheme();
+        SeedQuery query = new SeedQuery(maxIndexSize);
+        Oklab.fromColor(seedColor, query.lab);
+        generateFromSeed(new SplitMix64(seed), query, theme);
+        return theme;
+    }
+
+    /**
+     * Generates one theme per seed color into {@code sink}. Theme {@code i} is identical to
+     * {@code generateFromSeedColor(seedColors[i], seedForIndex(seed, i))}.
+     */
+    public void generateBatchFromSeedColors(int[] seedColors, long seed, ThemeSink sink) {
+        generateBatchFromSeedColors(seedColors, seed, 0, seedColors.length, sink);
+    }
+
+    /**
+     * Generates themes {@code from} up to {@code to} of the batch started with {@code seed},
+     * cycling through the seed colors: theme {@code i} is built around
+     * {@code seedColors[i % seedColors.length]}.
+     */
+    public void generateBatchFromSeedColors(int[] seedColors, long seed, int from, int to,
+            ThemeSink sink) {
+        SplitMix64 random = new SplitMix64(seed);
+        SeedQuery query = new SeedQuery(maxIndexSize);
+        MaterialTheme theme = new MaterialTheme();
+        for (int i = from; i < to; i++) {
+            random.setSeed(seedForIndex(seed, i));
+            Oklab.fromColor(seedColors[i % seedColors.length], query.lab);
+            generateFromSeed(random, query, theme);
+            sink.accept(i, theme);
+        }
+    }
+
+    /**
+     * Generates the theme for {@code seed} unless {@code seen} already contains it, in which case
+     * the themes for {@code seedForIndex(seed, 1)}, {@code seedForIndex(seed, 2)} and so on are
+     * tried in turn. Gives up after {@code maxAttempts} themes and returns the last one.
+     */
+    public MaterialTheme generateUnseen(long seed, SeenThemeFilter seen, int maxAttempts) {
+        SplitMix64 random = new SplitMix64(seed);
+        MaterialTheme theme = new MaterialTheme();
+        generate(random, theme);
+        for (int attempt = 1; attempt < maxAttempts && seen.mightContain(theme); attempt++) {
+            random.setSeed(seedForIndex(seed, attempt));
+            generate(random, theme);
+        }
+        return theme;
+    }
+
+    private void generate(SplitMix64 random, MaterialTheme theme) {
+        boolean isDarkTheme = random.nextDouble() < spec.darkThemeProbability;
+        theme.isDarkTheme = isDarkTheme;
+
+        // Only draw from surface and accent combinations that pass the contrast checks
+        int pair = contrastIndex.samplePair(isDarkTheme, random);
+        int surfaceIndex = pair >>> 16;
+        setSurfaceAndPrimary(random, theme, surfaceIndex, pair & 0xFFFF);
+        theme.colorSecondary = accents(isDarkTheme)[contrastIndex.sampleAccent(isDarkTheme,
+                surfaceIndex, random)];
+        generateShape(random, theme);
+    }
+
+    private void generateFromSeed(SplitMix64 random, SeedQuery query, MaterialTheme theme) {
+        boolean isDarkTheme = random.nextDouble() < spec.darkThemeProbability;
+        theme.isDarkTheme = isDarkTheme;
+        int[] nearest = query.nearest;
+
+        PaletteIndex accentIndex = getAccentIndex(isDarkTheme);
+        int count = accentIndex.nearest(query.lab, SEED_NEIGHBORS, nearest, query.distances);
+        int primaryIndex = firstWithValidSurface(isDarkTheme, nearest, count);
+        if (primaryIndex < 0) {
+            // No close color passes anywhere; widen the search to the whole palette
+            count = accentIndex.nearest(query.lab, accentIndex.size(), nearest,
+                    query.distances);
+            primaryIndex = firstWithValidSurface(isDarkTheme, nearest, count);
+        }
+
+        int surfaceIndex = -1;
+        if (random.nextDouble() < .5) {
+            PaletteIndex surfaceIndexes = isDarkTheme ? darkSurfaceIndex : lightSurfaceIndex;
+            int surfaces = surfaceIndexes.nearest(query.lab, surfaceIndexes.size(),
+                    query.nearestSurfaces, query.distances);
+            for (int i = 0; i < surfaces && surfaceIndex < 0; i++) {
+                if (contrastIndex.isValid(isDarkTheme, query.nearestSurfaces[i], primaryIndex)) {
+                    surfaceIndex = query.nearestSurfaces[i];
+                }
+            }
+        } else {
+            surfaceIndex = contrastIndex.sampleSurface(isDarkTheme, primaryIndex, random);
+        }
+        setSurfaceAndPrimary(random, theme, surfaceIndex, primaryIndex);
+
+        // Prefer neighbors of the seed for the secondary, keeping it in the seed's family
+        int candidates = 0;
+        for (int i = 0; i < count && i < SEED_NEIGHBORS; i++) {
+            int accent = nearest[i];
+            if (accent != primaryIndex && contrastIndex.hasWeight(isDarkTheme, accent)
+                    && contrastIndex.isValid(isDarkTheme, surfaceIndex, accent)) {
+                nearest[candidates++] = accent;
+            }
+        }
+        int secondaryIndex = candidates > 0 ? nearest[random.nextInt(candidates)]
+                : contrastIndex.sampleAccent(isDarkTheme, surfaceIndex, random);
+        theme.colorSecondary = accents(isDarkTheme)[secondaryIndex];
+        generateShape(random, theme);
+    }
+
+    private int firstWithValidSurface(boolean isDarkTheme, int[] accents, int count) {
+        for (int i = 0; i < count; i++) {
+            if (contrastIndex.hasValidSurface(isDarkTheme, accents[i])) {
+                return accents[i];
+            }
+        }
+        return -1;
+    }
+
+    private void setSurfaceAndPrimary(SplitMix64 random, MaterialTheme theme, int surfaceIndex,
+            int primaryIndex) {
+        boolean isDarkTheme = theme.isDarkTheme;
+        int[] surfaceColors = isDarkTheme ? spec.darkSurfaceColors : spec.lightSurfaceColors;
+        theme.colorSurface = surfaceColors[surfaceIndex];
+        theme.colorOnSurface = isDarkTheme ? spec.darkColorOnSurface : spec.colorOnSurface;
+
+        theme.colorBackground = surfaceColors[contrastIndex.sampleBackground(isDarkTheme, random)];
+        theme.colorOnBackground = isDarkTheme ? spec.darkColorOnBackground
+                : spec.colorOnBackground;
+
+        theme.colorError = isDarkTheme ? spec.darkColorError : spec.colorError;
+        theme.colorOnError = isDarkTheme ? spec.darkColorOnError : spec.colorOnError;
+
+        theme.colorPrimary = accents(isDarkTheme)[primaryIndex];
+    }
+
+    private ColorSet[] accents(boolean isDarkTheme) {
+        // Dark themes pull their accents from the light palette and vice versa
+        return isDarkTheme ? spec.lightColors : spec.darkColors;
+    }
+
+    private void generateShape(SplitMix64 random, MaterialTheme theme) {
+        boolean isDarkTheme = theme.isDarkTheme;
+        boolean useCutCorners = random.nextDouble() < spec.cutCornerProbability;
+        theme.cornerFamily = useCutCorners ? MaterialTheme.CORNER_CUT
+                : MaterialTheme.CORNER_ROUNDED;
+        theme.smallCornerSize = random.nextInt(spec.smallCornerRadiusVariance);
+        theme.mediumCornerSize = (int) (random.nextDouble() * (spec.mediumCornerRadiusMax
+                - spec.mediumCornerRadiusMin)) + spec.mediumCornerRadiusMin;
+
+        // Float dimensions land on the key codec's quantization steps so keys round-trip
+        theme.elevation = range(random, ThemeKeyCodec.ELEVATION);
+        theme.letterSpacingSmall = range(random, ThemeKeyCodec.LETTER_SPACING);
+
+        theme.smallTextSize = range(random, ThemeKeyCodec.SMALL_TEXT_SIZE);
+        theme.smallPadding = range(random, ThemeKeyCodec.SMALL_PADDING);
+        theme.smallTextAllCaps = random.nextDouble() < spec.allCapsProbability;
+
+        theme.mediumPadding = range(random, ThemeKeyCodec.MEDIUM_PADDING);
+        theme.xSmallPadding = range(random, ThemeKeyCodec.XSMALL_PADDING);
+
+        theme.isOutlinedTextField = !isDarkTheme;
+
+        theme.appBarVisibility = appBarSampler.sample(random);
+    }
+
+    private float range(SplitMix64 random, int dimension) {
+        return keyCodec.dequantize(dimension, random.nextInt(ThemeKeyCodec.LEVELS));
+    }
+
+    /** Splits an index range in half until it is small enough to generate on one worker. */
+    private final class GenerateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long seed;
+        private final int from;
+        private final int to;
+        private final ThemeSink sink;
+
+        GenerateTask(long seed, int from, int to, ThemeSink sink) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_LEAF_SIZE) {
+                generateBatch(seed, from, to, sink);
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new GenerateTask(seed, from, mid, sink),
+                        new GenerateTask(seed, mid, to, sink));
+            }
+        }
+    }
+
+    /** Scratch space for seed color queries, so a batch allocates it once. */
+    private static final class SeedQuery {
+        final float[] lab = new float[3];
+        final int[] nearest;
+        final int[] nearestSurfaces;
+        final float[] distances;
+
+        SeedQuery(int size) {
+            nearest = new int[size];
+            nearestSurfaces = new int[size];
+            distances = new float[size];
+        }
+    }
+}
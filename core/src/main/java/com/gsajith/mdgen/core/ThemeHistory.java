@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Back and forward navigation through the most recent themes, like a browser history. Pushing a
+ * theme discards anything ahead of the current position, and once the history is full the oldest
+ * theme is dropped.
+ *
+ * <p>Themes are stored as {@link ThemeKeyCodec} keys in a fixed ring of primitive longs, so a
+ * history holds no {@link MaterialTheme} references and its footprint does not depend on how long
+ * the session runs. Stepping decodes a fresh theme, which is cheaper than generating one, unless
+ * the history was given a {@link ThemeInterner}, in which case stepping back and forth over the
+ * same themes returns their shared instances. Not thread-safe.
+ */
+public final class ThemeHistory {
+    /** Largest supported capacity, which takes 1.6 MB of keys. */
+    public static final int MAX_CAPACITY = 100000;
+
+    private final ThemeKeyCodec codec;
+    private final ThemeInterner interner;
+    private final long[] keys;
+    private final int capacity;
+
+    /** Ring slot of the oldest theme. */
+    private int first;
+    private int size;
+    /** Position of the current theme, counted from the oldest; -1 while empty. */
+    private int position = -1;
+
+    public ThemeHistory(ThemeKeyCodec codec, int capacity) {
+        this(codec, null, capacity);
+    }
+
+    /** Creates a history that returns {@code interner}'s shared themes when stepping. */
+    public ThemeHistory(ThemeInterner interner, int capacity) {
+        this(interner.getCodec(), interner, capacity);
+    }
+
+    private ThemeHistory(ThemeKeyCodec codec, ThemeInterner interner, int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY
+                    + ", was " + capacity);
+        }
+        this.codec = codec;
+        this.interner = interner;
+        this.capacity = capacity;
+        keys = new long[2 * capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Returns the current theme's position, counted from the oldest, or -1 if empty. */
+    public int getPosition() {
+        return position;
+    }
+
+    public boolean canGoBack() {
+        return position > 0;
+    }
+
+    public boolean canGoForward() {
+        return position < size - 1;
+    }
+
+    /** Makes {@code theme} the current theme, discarding any themes ahead of it. */
+    public void push(MaterialTheme theme) {
+        size = position + 1;
+        if (size == capacity) {
+            first = (first + 1) % capacity;
+            size--;
+        }
+        int slot = slot(size);
+        keys[2 * slot] = codec.encodeHigh(theme);
+        keys[2 * slot + 1] = codec.encodeLow(theme);
+        position = size++;
+    }
+
+    /** Steps back and returns the previous theme. */
+    public MaterialTheme back() {
+        if (!canGoBack()) {
+            throw new IllegalStateException("No earlier theme in history");
+        }
+        return decode(--position);
+    }
+
+    /** Steps forward and returns the next theme. */
+    public MaterialTheme forward() {
+        if (!canGoForward()) {
+            throw new IllegalStateException("No later theme in history");
+        }
+        return decode(++position);
+    }
+
+    private MaterialTheme decode(int index) {
+        int slot = slot(index);
+        long high = keys[2 * slot];
+        long low = keys[2 * slot + 1];
+        return interner != null ? interner.intern(high, low) : codec.decode(high, low);
+    }
+
+    private int slot(int index) {
+        int slot = first + index;
+        return slot < capacity ? slot : slot - capacity;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.Arrays;
+
+/**
+ * Canonicalizes themes by their {@link ThemeKeyCodec} key, so equal themes share one decoded
+ * {@link MaterialTheme}. Interned themes are shared and must not be modified.
+ *
+ * <p>Keys live in an open-addressing table of primitive longs sized for {@code maxSize} themes up
+ * front, so looking up a theme that is already interned allocates nothing. Once {@code maxSize}
+ * themes are interned the table is emptied and starts over, which keeps its footprint fixed
+ * however many distinct themes pass through; a theme interned again after that is a new instance.
+ */
+public final class ThemeInterner {
+    /** Largest supported size, whose table alone takes about 5 GB. */
+    public static final int MAX_SIZE = 1 << 26;
+
+    private final ThemeKeyCodec codec;
+    private final int maxSize;
+    private final long[] keys;
+    private final MaterialTheme[] themes;
+    private int size;
+
+    public ThemeInterner(ThemeKeyCodec codec, int maxSize) {
+        if (maxSize < 1 || maxSize > MAX_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SIZE
+                    + ", was " + maxSize);
+        }
+        this.codec = codec;
+        this.maxSize = maxSize;
+        int capacity = Integer.highestOneBit(maxSize) << 2;
+        keys = new long[2 * capacity];
+        themes = new MaterialTheme[capacity];
+    }
+
+    public ThemeKeyCodec getCodec() {
+        return codec;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Returns the shared theme for {@code theme}'s key. */
+    public MaterialTheme intern(MaterialTheme theme) {
+        return intern(codec.encodeHigh(theme), codec.encodeLow(theme));
+    }
+
+    /** Returns the shared theme for a key, decoding it the first time it is seen. */
+    public synchronized MaterialTheme intern(long high, long low) {
+        int slot = find(high, low);
+        MaterialTheme theme = themes[slot];
+        if (theme == null) {
+            if (size == maxSize) {
+                Arrays.fill(themes, null);
+                size = 0;
+                slot = find(high, low);
+            }
+            theme = codec.decode(high, low);
+            keys[2 * slot] = high;
+            keys[2 * slot + 1] = low;
+            themes[slot] = theme;
+            size++;
+        }
+        return theme;
+    }
+
+    /** Returns the slot holding the key, or the empty slot where it belongs. */
+    private int find(long high, long low) {
+        int mask = themes.length - 1;
+        int slot = (int) SplitMix64.mix64(high * 31 + low) & mask;
+        while (themes[slot] != null
+                && (keys[2 * slot] != high || keys[2 * slot + 1] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
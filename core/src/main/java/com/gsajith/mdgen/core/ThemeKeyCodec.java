@@ -0,0 +1,293 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Packs a {@link MaterialTheme} into two longs relative to the {@link ThemeSpec} it was generated
+ * from, so large theme collections can live in a flat {@code long[]}.
+ *
+ * <p>The high word holds the discrete fields: the dark flag, corner family, all-caps, outlined
+ * text fields, app bar visibility, the primary, secondary, surface and background indices into
+ * the spec's tables, and both corner sizes as steps between the spec's corner bounds. The low
+ * word holds the six float dimensions, each quantized to {@link #LEVELS} steps between the spec's
+ * bounds. {@link ThemeGenerator} only produces values that sit on those steps, and corner ranges
+ * are narrower than their step count, so generated themes round-trip exactly.
+ *
+ * <p>Since every size is stored relative to bounds that scale with display density and font
+ * scale, a key decodes to the same theme in dp and sp after either changes, and the fingerprint
+ * only covers the color tables.
+ */
+public final class ThemeKeyCodec {
+    /** Number of steps each float dimension is quantized to. */
+    public static final int LEVELS = 1 << 10;
+
+    // Float dimensions, in low word order
+    static final int ELEVATION = 0;
+    static final int LETTER_SPACING = 1;
+    static final int SMALL_TEXT_SIZE = 2;
+    static final int SMALL_PADDING = 3;
+    static final int MEDIUM_PADDING = 4;
+    static final int XSMALL_PADDING = 5;
+    private static final int DIMENSIONS = 6;
+
+    /** Bumped whenever the meaning of key bits changes, so older stored keys are rejected. */
+    private static final int KEY_FORMAT = 2;
+
+    private static final int LEVEL_BITS = 10;
+    private static final int LEVEL_MASK = LEVELS - 1;
+
+    // High word layout
+    private static final int DARK_SHIFT = 0;
+    private static final int CORNER_FAMILY_SHIFT = 1;
+    private static final int ALL_CAPS_SHIFT = 2;
+    private static final int OUTLINED_SHIFT = 3;
+    private static final int APP_BAR_SHIFT = 4;
+    private static final int PRIMARY_SHIFT = 6;
+    private static final int SECONDARY_SHIFT = 14;
+    private static final int SURFACE_SHIFT = 22;
+    private static final int BACKGROUND_SHIFT = 30;
+    private static final int SMALL_CORNER_SHIFT = 38;
+    private static final int MEDIUM_CORNER_SHIFT = 48;
+    /** High word bits of the choices that make two themes look alike at a glance. */
+    private static final long COARSE_MASK = (1L << SMALL_CORNER_SHIFT) - 1
+            & ~(1L << ALL_CAPS_SHIFT) & ~(1L << OUTLINED_SHIFT);
+    private static final int INDEX_MASK = 0xFF;
+    private static final int CORNER_MASK = 0x3FF;
+
+    private final ThemeSpec spec;
+    private final float[] min = new float[DIMENSIONS];
+    private final float[] max = new float[DIMENSIONS];
+    private final int smallCornerMax;
+    private final int mediumCornerMin;
+    private final int mediumCornerMax;
+    private final long fingerprint;
+
+    public ThemeKeyCodec(ThemeSpec spec) {
+        if (spec.lightColors.length > INDEX_MASK + 1 || spec.darkColors.length > INDEX_MASK + 1
+                || spec.lightSurfaceColors.length > INDEX_MASK + 1
+                || spec.darkSurfaceColors.length > INDEX_MASK + 1) {
+            throw new IllegalArgumentException("Palettes and surface tables are limited to "
+                    + (INDEX_MASK + 1) + " entries");
+        }
+        if (spec.smallCornerRadiusVariance > CORNER_MASK
+                || spec.mediumCornerRadiusMax - spec.mediumCornerRadiusMin > CORNER_MASK) {
+            throw new IllegalArgumentException("Corner ranges are limited to " + CORNER_MASK
+                    + " pixels");
+        }
+        this.spec = spec;
+        smallCornerMax = spec.smallCornerRadiusVariance;
+        mediumCornerMin = spec.mediumCornerRadiusMin;
+        mediumCornerMax = spec.mediumCornerRadiusMax;
+        setBounds(ELEVATION, spec.minElevation, spec.maxElevation);
+        setBounds(LETTER_SPACING, 0, spec.maxLetterSpacing);
+        setBounds(SMALL_TEXT_SIZE, spec.minSmallTextSize, spec.maxSmallTextSize);
+        setBounds(SMALL_PADDING, spec.minSmallPadding, spec.maxSmallPadding);
+        setBounds(MEDIUM_PADDING, spec.minMediumPadding, spec.maxMediumPadding);
+        setBounds(XSMALL_PADDING, spec.minXSmallPadding, spec.maxXSmallPadding);
+        fingerprint = fingerprint(spec);
+    }
+
+    public ThemeSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Returns a hash of the tables keys index into. Keys are only meaningful to codecs with the
+     * same fingerprint, so stored keys should be kept alongside it.
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the high word of {@code theme}'s key. Throws IllegalArgumentException if the
+     * theme's colors aren't taken from this codec's spec.
+     */
+    public long encodeHigh(MaterialTheme theme) {
+        boolean dark = theme.isDarkTheme;
+        ColorSet[] accents = accents(dark);
+        int[] surfaces = surfaces(dark);
+        return bit(dark, DARK_SHIFT)
+                | (long) (theme.cornerFamily & 1) << CORNER_FAMILY_SHIFT
+                | bit(theme.smallTextAllCaps, ALL_CAPS_SHIFT)
+                | bit(theme.isOutlinedTextField, OUTLINED_SHIFT)
+                | (long) (theme.appBarVisibility & 3) << APP_BAR_SHIFT
+                | (long) indexOf(accents, theme.colorPrimary) << PRIMARY_SHIFT
+                | (long) indexOf(accents, theme.colorSecondary) << SECONDARY_SHIFT
+                | (long) indexOf(surfaces, theme.colorSurface) << SURFACE_SHIFT
+                | (long) indexOf(surfaces, theme.colorBackground) << BACKGROUND_SHIFT
+                | (long) corner(theme.smallCornerSize, 0, smallCornerMax) << SMALL_CORNER_SHIFT
+                | (long) corner(theme.mediumCornerSize, mediumCornerMin, mediumCornerMax)
+                        << MEDIUM_CORNER_SHIFT;
+    }
+
+    /**
+     * Returns a key for {@code theme}'s look: its mode, colors, corner family and app bar. Themes
+     * that only differ in dimensions or text casing share a coarse key.
+     */
+    public long encodeCoarse(MaterialTheme theme) {
+        return encodeHigh(theme) & COARSE_MASK;
+    }
+
+    /** Returns the low word of {@code theme}'s key. */
+    public long encodeLow(MaterialTheme theme) {
+        return quantize(ELEVATION, theme.elevation)
+                | quantize(LETTER_SPACING, theme.letterSpacingSmall)
+                | quantize(SMALL_TEXT_SIZE, theme.smallTextSize)
+                | quantize(SMALL_PADDING, theme.smallPadding)
+                | quantize(MEDIUM_PADDING, theme.mediumPadding)
+                | quantize(XSMALL_PADDING, theme.xSmallPadding);
+    }
+
+    /** Writes {@code theme}'s key to {@code keys[2 * index]} and {@code keys[2 * index + 1]}. */
+    public void encode(MaterialTheme theme, long[] keys, int index) {
+        keys[2 * index] = encodeHigh(theme);
+        keys[2 * index + 1] = encodeLow(theme);
+    }
+
+    public MaterialTheme decode(long high, long low) {
+        MaterialTheme theme = new MaterialTheme();
+        decode(high, low, theme);
+        return theme;
+    }
+
+    /** Decodes a key into an existing theme instance. */
+    public void decode(long high, long low, MaterialTheme theme) {
+        boolean dark = (high >>> DARK_SHIFT & 1) != 0;
+        ColorSet[] accents = accents(dark);
+        int[] surfaces = surfaces(dark);
+
+        theme.isDarkTheme = dark;
+        theme.colorPrimary = accents[(int) (high >>> PRIMARY_SHIFT) & INDEX_MASK];
+        theme.colorSecondary = accents[(int) (high >>> SECONDARY_SHIFT) & INDEX_MASK];
+        theme.colorSurface = surfaces[(int) (high >>> SURFACE_SHIFT) & INDEX_MASK];
+        theme.colorBackground = surfaces[(int) (high >>> BACKGROUND_SHIFT) & INDEX_MASK];
+        theme.colorOnSurface = dark ? spec.darkColorOnSurface : spec.colorOnSurface;
+        theme.colorOnBackground = dark ? spec.darkColorOnBackground : spec.colorOnBackground;
+        theme.colorError = dark ? spec.darkColorError : spec.colorError;
+        theme.colorOnError = dark ? spec.darkColorOnError : spec.colorOnError;
+
+        theme.cornerFamily = (int) (high >>> CORNER_FAMILY_SHIFT) & 1;
+        theme.smallCornerSize = cornerSize((int) (high >>> SMALL_CORNER_SHIFT) & CORNER_MASK, 0,
+                smallCornerMax);
+        theme.mediumCornerSize = cornerSize((int) (high >>> MEDIUM_CORNER_SHIFT) & CORNER_MASK,
+                mediumCornerMin, mediumCornerMax);
+        theme.smallTextAllCaps = (high >>> ALL_CAPS_SHIFT & 1) != 0;
+        theme.isOutlinedTextField = (high >>> OUTLINED_SHIFT & 1) != 0;
+        theme.appBarVisibility = (int) (high >>> APP_BAR_SHIFT) & 3;
+
+        theme.elevation = dequantize(ELEVATION, level(low, ELEVATION));
+        theme.letterSpacingSmall = dequantize(LETTER_SPACING, level(low, LETTER_SPACING));
+        theme.smallTextSize = dequantize(SMALL_TEXT_SIZE, level(low, SMALL_TEXT_SIZE));
+        theme.smallPadding = dequantize(SMALL_PADDING, level(low, SMALL_PADDING));
+        theme.mediumPadding = dequantize(MEDIUM_PADDING, level(low, MEDIUM_PADDING));
+        theme.xSmallPadding = dequantize(XSMALL_PADDING, level(low, XSMALL_PADDING));
+    }
+
+    /** Returns the value of {@code dimension} at quantization step {@code level}. */
+    float dequantize(int dimension, int level) {
+        return min[dimension] + (max[dimension] - min[dimension]) * level / (LEVELS - 1);
+    }
+
+    private long quantize(int dimension, float value) {
+        float range = max[dimension] - min[dimension];
+        int level = range > 0 ? Math.round((value - min[dimension]) / range * (LEVELS - 1)) : 0;
+        level = Math.min(Math.max(level, 0), LEVEL_MASK);
+        return (long) level << (dimension * LEVEL_BITS);
+    }
+
+    private static int level(long low, int dimension) {
+        return (int) (low >>> (dimension * LEVEL_BITS)) & LEVEL_MASK;
+    }
+
+    private void setBounds(int dimension, float min, float max) {
+        this.min[dimension] = min;
+        this.max[dimension] = max;
+    }
+
+    private ColorSet[] accents(boolean dark) {
+        // Dark themes pull their accents from the light palette and vice versa
+        return dark ? spec.lightColors : spec.darkColors;
+    }
+
+    private int[] surfaces(boolean dark) {
+        return dark ? spec.darkSurfaceColors : spec.lightSurfaceColors;
+    }
+
+    private static long fingerprint(ThemeSpec spec) {
+        long hash = (long) KEY_FORMAT << 32 | LEVELS;
+        hash = hash(hash, spec.lightColors);
+        hash = hash(hash, spec.darkColors);
+        hash = hash(hash, spec.lightSurfaceColors);
+        hash = hash(hash, spec.darkSurfaceColors);
+        return hash;
+    }
+
+    private static long hash(long hash, ColorSet[] colorSets) {
+        hash = SplitMix64.mix64(hash + colorSets.length);
+        for (ColorSet colorSet : colorSets) {
+            hash = SplitMix64.mix64(hash + colorSet.color);
+            hash = SplitMix64.mix64(hash + colorSet.colorVariant);
+            hash = SplitMix64.mix64(hash + colorSet.colorOn);
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, int[] colors) {
+        hash = SplitMix64.mix64(hash + colors.length);
+        for (int color : colors) {
+            hash = SplitMix64.mix64(hash + color);
+        }
+        return hash;
+    }
+
+    private static long bit(boolean value, int shift) {
+        return value ? 1L << shift : 0;
+    }
+
+    /** Returns the step of {@code cornerSize} between {@code min} and {@code max}. */
+    private static int corner(int cornerSize, int min, int max) {
+        if (cornerSize < min || cornerSize > max) {
+            throw new IllegalArgumentException("Corner size " + cornerSize + " is outside "
+                    + min + " to " + max);
+        }
+        return max > min ? Math.round((float) (cornerSize - min) * CORNER_MASK / (max - min)) : 0;
+    }
+
+    private static int cornerSize(int step, int min, int max) {
+        return min + Math.round((float) (max - min) * step / CORNER_MASK);
+    }
+
+    private static int indexOf(ColorSet[] colorSets, ColorSet colorSet) {
+        for (int i = 0; i < colorSets.length; i++) {
+            if (colorSets[i] == colorSet) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Color set is not from this spec's palette");
+    }
+
+    private static int indexOf(int[] colors, int color) {
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i] == color) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(
+                String.format("Surface color #%08X is not from this spec", color));
+    }
+}
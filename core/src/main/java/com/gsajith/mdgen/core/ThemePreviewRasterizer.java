@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.Locale;
+
+/**
+ * Draws an approximation of the themed preview layout straight onto a {@link PreviewCanvas}, so
+ * thumbnails of many themes can be rendered without inflating a view hierarchy per theme.
+ *
+ * <p>The preview mirrors themed_layout.xml inside the main screen's card: the top app bar, the
+ * username and password fields, the Cancel and Next buttons, and the bottom app bar with its
+ * FAB. It is laid out at {@link #WIDTH_DP} by {@link #HEIGHT_DP} and scaled to fit the output.
+ * Colors, corner sizes and families, elevation, padding and text metrics are taken from the
+ * theme the same way ThemeTransitionDriver applies them to the live views. Instances hold no
+ * mutable state, so one rasterizer can serve any number of threads, each with its own canvas.
+ */
+public final class ThemePreviewRasterizer {
+    public static final int WIDTH_DP = 320;
+    public static final int HEIGHT_DP = 480;
+
+    private static final float CARD_MARGIN = 8;
+    private static final float CONTENT_MARGIN = 28;
+    private static final float APP_BAR_HEIGHT = 56;
+    private static final float APP_BAR_ELEVATION = 4;
+    private static final float FIELD_HEIGHT = 56;
+    private static final float FIELD_MARGIN = 4;
+    private static final float ERROR_HEIGHT = 16;
+    private static final float BUTTON_HEIGHT = 36;
+    private static final float BUTTON_MIN_WIDTH = 64;
+    private static final float BUTTON_GAP = 8;
+    private static final float BUTTON_ROW_PADDING = 16;
+    private static final float FAB_RADIUS = 28;
+    private static final float FAB_CRADLE_MARGIN = 5;
+    private static final float FAB_ELEVATION = 6;
+    private static final float ICON_SIZE = 18;
+    private static final float CONTENT_HEIGHT = FIELD_MARGIN + FIELD_HEIGHT + 2 * FIELD_MARGIN
+            + FIELD_HEIGHT + ERROR_HEIGHT + FIELD_MARGIN + BUTTON_HEIGHT + BUTTON_ROW_PADDING;
+
+    /** Collapsed hint size relative to the text size. */
+    private static final float LABEL_SCALE = .75f;
+    /** Offset from a line's vertical center to its baseline, in text sizes. */
+    private static final float BASELINE_OFFSET = .35f;
+    private static final int FILLED_BOX_ALPHA = 0x14;
+
+    private static final String TITLE = "Material Design Generator";
+    private static final String USERNAME_HINT = "Username";
+    private static final String USERNAME = "gsajith";
+    private static final String PASSWORD_HINT = "Password";
+    private static final String CANCEL = "Cancel";
+    private static final String NEXT = "Next";
+
+    private final float density;
+
+    /** Creates a rasterizer for themes whose pixel values were generated at {@code density}. */
+    public ThemePreviewRasterizer(float density) {
+        this.density = density;
+    }
+
+    /** Draws {@code theme}'s preview centered in a {@code width} by {@code height} area. */
+    public void draw(MaterialTheme theme, PreviewCanvas canvas, float width, float height) {
+        float scale = Math.min(width / (WIDTH_DP * density), height / (HEIGHT_DP * density));
+        float dp = density * scale;
+        float left = (width - WIDTH_DP * dp) / 2 + CARD_MARGIN * dp;
+        float top = (height - HEIGHT_DP * dp) / 2 + CARD_MARGIN * dp;
+        float right = left + (WIDTH_DP - 2 * CARD_MARGIN) * dp;
+        float bottom = top + (HEIGHT_DP - 2 * CARD_MARGIN) * dp;
+        float cardRadius = theme.mediumCornerSize * scale;
+
+        // The card's corners are always rounded, as CardView only supports a radius
+        canvas.drawShadow(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, cardRadius,
+                theme.elevation * scale);
+        canvas.fillShape(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, cardRadius,
+                theme.colorSurface);
+        canvas.clipShape(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, cardRadius);
+
+        if (theme.appBarVisibility == MaterialTheme.APP_BAR_TOP) {
+            drawTopAppBar(theme, canvas, scale, dp, left, top, right);
+        }
+
+        float contentLeft = left + CONTENT_MARGIN * dp;
+        float contentRight = right - CONTENT_MARGIN * dp;
+        float y = (top + bottom - CONTENT_HEIGHT * dp) / 2 + FIELD_MARGIN * dp;
+        drawTextField(theme, canvas, scale, dp, contentLeft, y, contentRight, USERNAME_HINT,
+                USERNAME);
+        y += (FIELD_HEIGHT + 2 * FIELD_MARGIN) * dp;
+        drawTextField(theme, canvas, scale, dp, contentLeft, y, contentRight, PASSWORD_HINT,
+                null);
+        y += (FIELD_HEIGHT + ERROR_HEIGHT + FIELD_MARGIN) * dp;
+        drawButtons(theme, canvas, scale, dp, y, contentRight - BUTTON_ROW_PADDING * dp);
+
+        if (theme.appBarVisibility == MaterialTheme.APP_BAR_BOTTOM) {
+            drawBottomAppBar(theme, canvas, dp, left, right, bottom);
+        }
+        canvas.restore();
+    }
+
+    private static void drawTopAppBar(MaterialTheme theme, PreviewCanvas canvas, float scale,
+            float dp, float left, float top, float right) {
+        float bottom = top + APP_BAR_HEIGHT * dp;
+        float textSize = theme.smallTextSize * scale;
+        canvas.drawShadow(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, 0,
+                APP_BAR_ELEVATION * dp);
+        canvas.fillRect(left, top, right, bottom, theme.colorPrimary.color);
+        canvas.drawText(text(theme, TITLE), left + 16 * dp,
+                (top + bottom) / 2 + textSize * BASELINE_OFFSET, textSize,
+                theme.letterSpacingSmall, theme.colorPrimary.colorOn);
+    }
+
+    private static void drawTextField(MaterialTheme theme, PreviewCanvas canvas, float scale,
+            float dp, float left, float top, float right, String hint, String text) {
+        float bottom = top + FIELD_HEIGHT * dp;
+        float corner = theme.smallCornerSize * scale;
+        float textSize = theme.smallTextSize * scale;
+        float labelSize = textSize * LABEL_SCALE;
+        float letterSpacing = theme.letterSpacingSmall;
+        float textX = left + theme.xSmallPadding * scale;
+        int primary = theme.colorPrimary.color;
+
+        float textBaseline;
+        if (theme.isOutlinedTextField) {
+            canvas.strokeShape(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, corner, dp,
+                    primary);
+            if (text != null) {
+                // The collapsed hint sits on a gap in the outline
+                float labelWidth = canvas.measureText(hint, labelSize, letterSpacing);
+                canvas.fillRect(textX - 4 * dp, top - labelSize / 2,
+                        textX + labelWidth + 4 * dp, top + labelSize / 2, theme.colorSurface);
+                canvas.drawText(hint, textX, top + labelSize * BASELINE_OFFSET, labelSize,
+                        letterSpacing, primary);
+            }
+            textBaseline = (top + bottom) / 2 + textSize * BASELINE_OFFSET;
+        } else {
+            // Filled boxes only round their top corners
+            canvas.clipShape(left, top, right, bottom, MaterialTheme.CORNER_ROUNDED, 0);
+            canvas.fillShape(left, top, right, bottom + corner, MaterialTheme.CORNER_ROUNDED,
+                    corner, (theme.colorOnSurface & 0xFFFFFF) | FILLED_BOX_ALPHA << 24);
+            canvas.restore();
+            canvas.fillRect(left, bottom - dp, right, bottom, primary);
+            if (text != null) {
+                canvas.drawText(hint, textX, top + FIELD_HEIGHT * dp * .36f, labelSize,
+                        letterSpacing, primary);
+                textBaseline = top + FIELD_HEIGHT * dp * .75f;
+            } else {
+                textBaseline = (top + bottom) / 2 + textSize * BASELINE_OFFSET;
+            }
+        }
+
+        if (text != null) {
+            canvas.drawText(text, textX, textBaseline, textSize, letterSpacing,
+                    theme.colorOnSurface);
+        } else {
+            canvas.drawText(hint, textX, textBaseline, textSize, letterSpacing, primary);
+        }
+    }
+
+    private static void drawButtons(MaterialTheme theme, PreviewCanvas canvas, float scale,
+            float dp, float top, float right) {
+        float bottom = top + BUTTON_HEIGHT * dp;
+        float corner = theme.smallCornerSize * scale;
+        float textSize = theme.smallTextSize * scale;
+        float baseline = (top + bottom) / 2 + textSize * BASELINE_OFFSET;
+        ColorSet primary = theme.colorPrimary;
+
+        String next = text(theme, NEXT);
+        float nextWidth = buttonWidth(theme, canvas, scale, dp, next);
+        float nextLeft = right - nextWidth;
+        canvas.drawShadow(nextLeft, top, right, bottom, theme.cornerFamily, corner,
+                theme.elevation * scale);
+        canvas.fillShape(nextLeft, top, right, bottom, theme.cornerFamily, corner, primary.color);
+        drawCenteredText(theme, canvas, next, nextLeft, right, baseline, textSize,
+                primary.colorOn);
+
+        String cancel = text(theme, CANCEL);
+        float cancelRight = nextLeft - BUTTON_GAP * dp;
+        float cancelLeft = cancelRight - buttonWidth(theme, canvas, scale, dp, cancel);
+        canvas.strokeShape(cancelLeft, top, cancelRight, bottom, theme.cornerFamily, corner, dp,
+                primary.color);
+        drawCenteredText(theme, canvas, cancel, cancelLeft, cancelRight, baseline, textSize,
+                primary.color);
+    }
+
+    private static void drawBottomAppBar(MaterialTheme theme, PreviewCanvas canvas, float dp,
+            float left, float right, float bottom) {
+        float top = bottom - APP_BAR_HEIGHT * dp;
+        canvas.fillRect(left, top, right, bottom, theme.colorPrimary.color);
+
+        float iconLeft = left + 16 * dp;
+        float iconCenter = top + APP_BAR_HEIGHT / 2 * dp;
+        for (int i = -1; i <= 1; i++) {
+            float lineCenter = iconCenter + i * 6 * dp;
+            canvas.fillRect(iconLeft, lineCenter - dp, iconLeft + ICON_SIZE * dp,
+                    lineCenter + dp, theme.colorPrimary.colorOn);
+        }
+
+        // The FAB sits centered on the bar's top edge, in a cradle cut out of the bar
+        float centerX = (left + right) / 2;
+        float radius = FAB_RADIUS * dp;
+        canvas.fillCircle(centerX, top, radius + FAB_CRADLE_MARGIN * dp, theme.colorSurface);
+        canvas.drawShadow(centerX - radius, top - radius, centerX + radius, top + radius,
+                MaterialTheme.CORNER_ROUNDED, radius, FAB_ELEVATION * dp);
+        canvas.fillCircle(centerX, top, radius, theme.colorSecondary.color);
+        float arm = ICON_SIZE / 2 * dp;
+        canvas.fillRect(centerX - arm, top - dp, centerX + arm, top + dp,
+                theme.colorSecondary.colorOn);
+        canvas.fillRect(centerX - dp, top - arm, centerX + dp, top + arm,
+                theme.colorSecondary.colorOn);
+    }
+
+    private static float buttonWidth(MaterialTheme theme, PreviewCanvas canvas, float scale,
+            float dp, String text) {
+        float width = canvas.measureText(text, theme.smallTextSize * scale,
+                theme.letterSpacingSmall) + 2 * theme.smallPadding * scale;
+        return Math.max(width, BUTTON_MIN_WIDTH * dp);
+    }
+
+    private static void drawCenteredText(MaterialTheme theme, PreviewCanvas canvas, String text,
+            float left, float right, float baseline, float textSize, int color) {
+        float width = canvas.measureText(text, textSize, theme.letterSpacingSmall);
+        canvas.drawText(text, (left + right - width) / 2, baseline, textSize,
+                theme.letterSpacingSmall, color);
+    }
+
+    private static String text(MaterialTheme theme, String text) {
+        return theme.smallTextAllCaps ? text.toUpperCase(Locale.US) : text;
+    }
+}
@@ -14,13 +14,13 @@
  * limitations under the License.
  */
 
-package com.gsajith.mdgen;
+package com.gsajith.mdgen.core;
 
-import java.util.concurrent.Callable;
-
-public abstract class ColorCallable implements Callable {
-    int color;
-
-    @Override
-    public abstract Object call();
+/** Receives themes produced by {@link ThemeGenerator#generateBatch}. */
+public interface ThemeSink {
+    /**
+     * Called once per generated theme. The theme instance is reused for the next index, so copy
+     * anything that needs to outlive the call.
+     */
+    void accept(int index, MaterialTheme theme);
 }
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of everything {@link ThemeGenerator} draws from: the palettes and their
+ * weights, the surface colors, the probability of each discrete choice and the pixel bounds of
+ * every generated dimension. Android callers build one from their resources; headless callers
+ * can start from {@link #materialDefaults(float, float)}. Either can be tuned by a
+ * {@link ThemeSpecFile}.
+ */
+public final class ThemeSpec {
+    final ColorSet[] lightColors;
+    final ColorSet[] darkColors;
+    /** Relative weight of each palette entry, parallel to the palette. */
+    final double[] lightColorWeights;
+    final double[] darkColorWeights;
+    final int[] lightSurfaceColors;
+    final int[] darkSurfaceColors;
+
+    final int colorOnSurface;
+    final int colorOnBackground;
+    final int colorError;
+    final int colorOnError;
+    final int darkColorOnSurface;
+    final int darkColorOnBackground;
+    final int darkColorError;
+    final int darkColorOnError;
+
+    final int smallCornerRadiusVariance;
+    final int mediumCornerRadiusMin;
+    final int mediumCornerRadiusMax;
+    final int minElevation;
+    final int maxElevation;
+    final float maxLetterSpacing;
+    final float minSmallTextSize;
+    final float maxSmallTextSize;
+    final float minSmallPadding;
+    final float maxSmallPadding;
+    final float minMediumPadding;
+    final float maxMediumPadding;
+    final float minXSmallPadding;
+    final float maxXSmallPadding;
+
+    final float minTextContrast;
+    final float minComponentContrast;
+
+    final float darkThemeProbability;
+    final float cutCornerProbability;
+    final float allCapsProbability;
+    /** Relative weights of the app bar visibilities, indexed by their constants. */
+    final double[] appBarWeights;
+
+    private ThemeSpec(Builder builder, double[] lightColorWeights, double[] darkColorWeights) {
+        lightColors = builder.lightColors.clone();
+        darkColors = builder.darkColors.clone();
+        this.lightColorWeights = lightColorWeights;
+        this.darkColorWeights = darkColorWeights;
+        lightSurfaceColors = builder.lightSurfaceColors.clone();
+        darkSurfaceColors = builder.darkSurfaceColors.clone();
+        colorOnSurface = builder.colorOnSurface;
+        colorOnBackground = builder.colorOnBackground;
+        colorError = builder.colorError;
+        colorOnError = builder.colorOnError;
+        darkColorOnSurface = builder.darkColorOnSurface;
+        darkColorOnBackground = builder.darkColorOnBackground;
+        darkColorError = builder.darkColorError;
+        darkColorOnError = builder.darkColorOnError;
+        smallCornerRadiusVariance = builder.smallCornerRadiusVariance;
+        mediumCornerRadiusMin = builder.mediumCornerRadiusMin;
+        mediumCornerRadiusMax = builder.mediumCornerRadiusMax;
+        minElevation = builder.minElevation;
+        maxElevation = builder.maxElevation;
+        maxLetterSpacing = builder.maxLetterSpacing;
+        minSmallTextSize = builder.minSmallTextSize;
+        maxSmallTextSize = builder.maxSmallTextSize;
+        minSmallPadding = builder.minSmallPadding;
+        maxSmallPadding = builder.maxSmallPadding;
+        minMediumPadding = builder.minMediumPadding;
+        maxMediumPadding = builder.maxMediumPadding;
+        minXSmallPadding = builder.minXSmallPadding;
+        maxXSmallPadding = builder.maxXSmallPadding;
+        minTextContrast = builder.minTextContrast;
+        minComponentContrast = builder.minComponentContrast;
+        darkThemeProbability = builder.darkThemeProbability;
+        cutCornerProbability = builder.cutCornerProbability;
+        allCapsProbability = builder.allCapsProbability;
+        appBarWeights = builder.appBarWeights.clone();
+    }
+
+    /** Returns the names of the built-in palette families, for {@link Builder#setFamilyWeight}. */
+    public static String[] getFamilyNames() {
+        return PaletteTables.FAMILY_NAMES.clone();
+    }
+
+    /**
+     * Returns the spec the app uses on a device with the given display densities, mirroring
+     * app/src/main/res/values/dimens.xml and the design_default_color_* overrides.
+     */
+    public static ThemeSpec materialDefaults(float density, float scaledDensity) {
+        return materialDefaultsBuilder(density, scaledDensity).build();
+    }
+
+    /** Returns a builder preset to {@link #materialDefaults(float, float)}, for tuning it. */
+    public static Builder materialDefaultsBuilder(float density, float scaledDensity) {
+        return new Builder()
+                .setSmallCornerRadiusVariance((int) (18 * density + .5f))
+                .setMediumCornerRadius((int) (2 * density + .5f), (int) (24 * density + .5f))
+                .setElevation((int) (2 * density + .5f), (int) (16 * density + .5f))
+                .setSmallTextSize(12 * scaledDensity, 16 * scaledDensity)
+                .setSmallPadding(16 * density, 36 * density)
+                .setMediumPadding(24 * density, 48 * density)
+                .setXSmallPadding(8 * density, 24 * density);
+    }
+
+    /**
+     * Returns the built-in light surface table: the default surface seven times (so plain
+     * surfaces stay the most likely pick), the default background, then the tinted surfaces
+     * from base.palette.
+     */
+    public static int[] defaultLightSurfaceColors(int surface, int background) {
+        int[] colors = new int[8 + PaletteTables.LIGHT_SURFACE.length];
+        Arrays.fill(colors, 0, 7, surface);
+        colors[7] = background;
+        System.arraycopy(PaletteTables.LIGHT_SURFACE, 0, colors, 8,
+                PaletteTables.LIGHT_SURFACE.length);
+        return colors;
+    }
+
+    /** Dark counterpart of {@link #defaultLightSurfaceColors(int, int)}. */
+    public static int[] defaultDarkSurfaceColors(int surface, int background) {
+        int[] colors = new int[2 + PaletteTables.DARK_SURFACE.length];
+        colors[0] = surface;
+        colors[1] = background;
+        System.arraycopy(PaletteTables.DARK_SURFACE, 0, colors, 2,
+                PaletteTables.DARK_SURFACE.length);
+        return colors;
+    }
+
+    public static final class Builder {
+        private static final int DEFAULT_SURFACE = 0xFFFFFFFF;
+        private static final int DEFAULT_BACKGROUND = 0xFFFFFFFF;
+        private static final int DEFAULT_DARK_SURFACE = 0xFF121212;
+        private static final int DEFAULT_DARK_BACKGROUND = 0xFF121212;
+
+        private ColorSet[] lightColors = ColorSet.fromTables(PaletteTables.LIGHT_COLOR,
+                PaletteTables.LIGHT_COLOR_VARIANT, PaletteTables.LIGHT_COLOR_ON);
+        private ColorSet[] darkColors = ColorSet.fromTables(PaletteTables.DARK_COLOR,
+                PaletteTables.DARK_COLOR_VARIANT, PaletteTables.DARK_COLOR_ON);
+        private int[] lightSurfaceColors = defaultLightSurfaceColors(DEFAULT_SURFACE,
+                DEFAULT_BACKGROUND);
+        private int[] darkSurfaceColors = defaultDarkSurfaceColors(DEFAULT_DARK_SURFACE,
+                DEFAULT_DARK_BACKGROUND);
+
+        private int colorOnSurface = 0xFF000000;
+        private int colorOnBackground = 0xFF000000;
+        private int colorError = 0xFFB00020;
+        private int colorOnError = 0xFFFFFFFF;
+        private int darkColorOnSurface = 0xFFFFFFFF;
+        private int darkColorOnBackground = 0xFFFFFFFF;
+        private int darkColorError = 0xFFCF6679;
+        private int darkColorOnError = 0xFF000000;
+
+        private int smallCornerRadiusVariance;
+        private int mediumCornerRadiusMin;
+        private int mediumCornerRadiusMax;
+        private int minElevation;
+        private int maxElevation;
+        private float maxLetterSpacing = .17f;
+        private float minSmallTextSize;
+        private float maxSmallTextSize;
+        private float minSmallPadding;
+        private float maxSmallPadding;
+        private float minMediumPadding;
+        private float maxMediumPadding;
+        private float minXSmallPadding;
+        private float maxXSmallPadding;
+        private float minTextContrast = ContrastIndex.AA_TEXT;
+        private float minComponentContrast = ContrastIndex.AA_COMPONENT;
+
+        private boolean defaultPalettes = true;
+        private final double[] familyWeights = filled(PaletteTables.FAMILY_NAMES.length, 1);
+        private double[] lightColorWeights;
+        private double[] darkColorWeights;
+        private float darkThemeProbability = .3f;
+        private float cutCornerProbability = .25f;
+        private float allCapsProbability = .5f;
+        private double[] appBarWeights = {3, 3, 4};
+
+        /**
+         * Replaces the built-in palettes. Their entries are weighted equally unless
+         * {@link #setPaletteWeights} says otherwise; family weights only apply to the built-in
+         * palettes.
+         */
+        public Builder setPalettes(ColorSet[] lightColors, ColorSet[] darkColors) {
+            this.lightColors = lightColors;
+            this.darkColors = darkColors;
+            defaultPalettes = false;
+            return this;
+        }
+
+        /** Sets the relative weight of each palette entry, overriding any family weights. */
+        public Builder setPaletteWeights(double[] lightColorWeights, double[] darkColorWeights) {
+            this.lightColorWeights = lightColorWeights.clone();
+            this.darkColorWeights = darkColorWeights.clone();
+            return this;
+        }
+
+        /**
+         * Scales the weight of every built-in palette entry in {@code family}, one of
+         * {@link #getFamilyNames()}. Entries default to a weight of 1; 0 leaves the family out.
+         */
+        public Builder setFamilyWeight(String family, double weight) {
+            for (int i = 0; i < PaletteTables.FAMILY_NAMES.length; i++) {
+                if (PaletteTables.FAMILY_NAMES[i].equals(family)) {
+                    familyWeights[i] = weight;
+                    return this;
+                }
+            }
+            throw new IllegalArgumentException("Unknown palette family '" + family + "'");
+        }
+
+        public Builder setDarkThemeProbability(float probability) {
+            darkThemeProbability = probability;
+            return this;
+        }
+
+        public Builder setCutCornerProbability(float probability) {
+            cutCornerProbability = probability;
+            return this;
+        }
+
+        public Builder setAllCapsProbability(float probability) {
+            allCapsProbability = probability;
+            return this;
+        }
+
+        /** Sets the relative weights of top, bottom and no app bar. */
+        public Builder setAppBarWeights(double top, double bottom, double none) {
+            appBarWeights = new double[]{top, bottom, none};
+            return this;
+        }
+
+        public Builder setSurfaceColors(int[] lightSurfaceColors, int[] darkSurfaceColors) {
+            this.lightSurfaceColors = lightSurfaceColors;
+            this.darkSurfaceColors = darkSurfaceColors;
+            return this;
+        }
+
+        public Builder setLightOnColors(int colorOnSurface, int colorOnBackground, int colorError,
+                int colorOnError) {
+            this.colorOnSurface = colorOnSurface;
+            this.colorOnBackground = colorOnBackground;
+            this.colorError = colorError;
+            this.colorOnError = colorOnError;
+            return this;
+        }
+
+        public Builder setDarkOnColors(int colorOnSurface, int colorOnBackground, int colorError,
+                int colorOnError) {
+            this.darkColorOnSurface = colorOnSurface;
+            this.darkColorOnBackground = colorOnBackground;
+            this.darkColorError = colorError;
+            this.darkColorOnError = colorOnError;
+            return this;
+        }
+
+        public Builder setSmallCornerRadiusVariance(int variance) {
+            smallCornerRadiusVariance = variance;
+            return this;
+        }
+
+        public Builder setMediumCornerRadius(int min, int max) {
+            mediumCornerRadiusMin = min;
+            mediumCornerRadiusMax = max;
+            return this;
+        }
+
+        public Builder setElevation(int min, int max) {
+            minElevation = min;
+            maxElevation = max;
+            return this;
+        }
+
+        public Builder setMaxLetterSpacing(float maxLetterSpacing) {
+            this.maxLetterSpacing = maxLetterSpacing;
+            return this;
+        }
+
+        public Builder setSmallTextSize(float min, float max) {
+            minSmallTextSize = min;
+            maxSmallTextSize = max;
+            return this;
+        }
+
+        public Builder setSmallPadding(float min, float max) {
+            minSmallPadding = min;
+            maxSmallPadding = max;
+            return this;
+        }
+
+        public Builder setMediumPadding(float min, float max) {
+            minMediumPadding = min;
+            maxMediumPadding = max;
+            return this;
+        }
+
+        public Builder setXSmallPadding(float min, float max) {
+            minXSmallPadding = min;
+            maxXSmallPadding = max;
+            return this;
+        }
+
+        /**
+         * Sets the minimum WCAG contrast for text on a color ({@code text}) and for accents on
+         * the surface ({@code component}). Defaults to AA; pass 1 to disable either check.
+         */
+        public Builder setMinimumContrast(float text, float component) {
+            minTextContrast = text;
+            minComponentContrast = component;
+            return this;
+        }
+
+        public ThemeSpec build() {
+            if (lightColors.length == 0 || darkColors.length == 0
+                    || lightSurfaceColors.length == 0 || darkSurfaceColors.length == 0) {
+                throw new IllegalStateException("Palettes and surface tables must not be empty");
+            }
+            checkProbability("Dark theme", darkThemeProbability);
+            checkProbability("Cut corner", cutCornerProbability);
+            checkProbability("All caps", allCapsProbability);
+
+            double[] lightWeights = lightColorWeights;
+            double[] darkWeights = darkColorWeights;
+            if (lightWeights == null) {
+                lightWeights = defaultPalettes
+                        ? familyWeights(PaletteTables.LIGHT_FAMILY, familyWeights)
+                        : filled(lightColors.length, 1);
+                darkWeights = defaultPalettes
+                        ? familyWeights(PaletteTables.DARK_FAMILY, familyWeights)
+                        : filled(darkColors.length, 1);
+            }
+            if (lightWeights.length != lightColors.length
+                    || darkWeights.length != darkColors.length) {
+                throw new IllegalStateException("Palette weights must match the palettes");
+            }
+            checkWeights(lightWeights);
+            checkWeights(darkWeights);
+            checkWeights(appBarWeights);
+            return new ThemeSpec(this, lightWeights, darkWeights);
+        }
+
+        private static void checkProbability(String name, float probability) {
+            if (!(probability >= 0 && probability <= 1)) {
+                throw new IllegalStateException(name + " probability " + probability
+                        + " is not between 0 and 1");
+            }
+        }
+
+        private static void checkWeights(double[] weights) {
+            for (double weight : weights) {
+                if (!(weight >= 0) || Double.isInfinite(weight)) {
+                    throw new IllegalStateException("Invalid weight " + weight);
+                }
+            }
+        }
+
+        private static double[] familyWeights(int[] families, double[] familyWeights) {
+            double[] weights = new double[families.length];
+            for (int i = 0; i < families.length; i++) {
+                weights[i] = families[i] < 0 ? 1 : familyWeights[families[i]];
+            }
+            return weights;
+        }
+
+        private static double[] filled(int length, double value) {
+            double[] values = new double[length];
+            Arrays.fill(values, value);
+            return values;
+        }
+    }
+}
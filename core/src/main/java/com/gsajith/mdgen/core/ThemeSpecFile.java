@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Properties;
+
+/**
+ * Reads generator tuning from a properties file, so probabilities, palette weights and
+ * dimension ranges can ship without a code change.
+ *
+ * <p>Every key is optional and overrides the builder it is applied to:
+ * <ul>
+ * <li>{@code dark.probability}, {@code corners.cut.probability} and
+ * {@code text.allCaps.probability}, each from 0 to 1
+ * <li>{@code appBar.top.weight}, {@code appBar.bottom.weight} and {@code appBar.none.weight},
+ * given together
+ * <li>{@code family.<name>.weight} for each of {@link ThemeSpec#getFamilyNames()}
+ * <li>{@code smallCornerRadius.max} and {@code letterSpacing.max}
+ * <li>{@code .min} and {@code .max} pairs for {@code mediumCornerRadius}, {@code elevation},
+ * {@code smallTextSize}, {@code smallPadding}, {@code mediumPadding} and {@code xSmallPadding}
+ * <li>{@code contrast.text} and {@code contrast.component}, given together
+ * </ul>
+ * Lengths are in dp, text sizes in sp and letter spacing in ems. Unknown keys and malformed
+ * values throw IllegalArgumentException, so typos don't silently fall back to defaults. The
+ * resulting weights are compiled into {@link AliasTable}s once, when the spec's
+ * {@link ThemeGenerator} is built.
+ */
+public final class ThemeSpecFile {
+    private ThemeSpecFile() {
+    }
+
+    /** Reads a spec on top of {@link ThemeSpec#materialDefaultsBuilder}. */
+    public static ThemeSpec read(Reader reader, float density, float scaledDensity)
+            throws IOException {
+        return apply(reader, ThemeSpec.materialDefaultsBuilder(density, scaledDensity),
+                density, scaledDensity).build();
+    }
+
+    /** Applies the keys in {@code reader} to {@code builder} and returns it. */
+    public static ThemeSpec.Builder apply(Reader reader, ThemeSpec.Builder builder,
+            float density, float scaledDensity) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        Properties remaining = new Properties();
+        remaining.putAll(properties);
+
+        if (has(remaining, "dark.probability")) {
+            builder.setDarkThemeProbability(take(remaining, "dark.probability"));
+        }
+        if (has(remaining, "corners.cut.probability")) {
+            builder.setCutCornerProbability(take(remaining, "corners.cut.probability"));
+        }
+        if (has(remaining, "text.allCaps.probability")) {
+            builder.setAllCapsProbability(take(remaining, "text.allCaps.probability"));
+        }
+        if (has(remaining, "appBar.top.weight") || has(remaining, "appBar.bottom.weight")
+                || has(remaining, "appBar.none.weight")) {
+            builder.setAppBarWeights(take(remaining, "appBar.top.weight"),
+                    take(remaining, "appBar.bottom.weight"),
+                    take(remaining, "appBar.none.weight"));
+        }
+        for (String family : ThemeSpec.getFamilyNames()) {
+            String key = "family." + family + ".weight";
+            if (has(remaining, key)) {
+                builder.setFamilyWeight(family, take(remaining, key));
+            }
+        }
+
+        if (has(remaining, "smallCornerRadius.max")) {
+            builder.setSmallCornerRadiusVariance(
+                    pixels(take(remaining, "smallCornerRadius.max"), density));
+        }
+        if (hasPair(remaining, "mediumCornerRadius.min", "mediumCornerRadius.max")) {
+            builder.setMediumCornerRadius(pixels(take(remaining, "mediumCornerRadius.min"),
+                    density), pixels(take(remaining, "mediumCornerRadius.max"), density));
+        }
+        if (hasPair(remaining, "elevation.min", "elevation.max")) {
+            builder.setElevation(pixels(take(remaining, "elevation.min"), density),
+                    pixels(take(remaining, "elevation.max"), density));
+        }
+        if (has(remaining, "letterSpacing.max")) {
+            builder.setMaxLetterSpacing(take(remaining, "letterSpacing.max"));
+        }
+        if (hasPair(remaining, "smallTextSize.min", "smallTextSize.max")) {
+            builder.setSmallTextSize(take(remaining, "smallTextSize.min") * scaledDensity,
+                    take(remaining, "smallTextSize.max") * scaledDensity);
+        }
+        if (hasPair(remaining, "smallPadding.min", "smallPadding.max")) {
+            builder.setSmallPadding(take(remaining, "smallPadding.min") * density,
+                    take(remaining, "smallPadding.max") * density);
+        }
+        if (hasPair(remaining, "mediumPadding.min", "mediumPadding.max")) {
+            builder.setMediumPadding(take(remaining, "mediumPadding.min") * density,
+                    take(remaining, "mediumPadding.max") * density);
+        }
+        if (hasPair(remaining, "xSmallPadding.min", "xSmallPadding.max")) {
+            builder.setXSmallPadding(take(remaining, "xSmallPadding.min") * density,
+                    take(remaining, "xSmallPadding.max") * density);
+        }
+        if (hasPair(remaining, "contrast.text", "contrast.component")) {
+            builder.setMinimumContrast(take(remaining, "contrast.text"),
+                    take(remaining, "contrast.component"));
+        }
+
+        if (!remaining.isEmpty()) {
+            throw new IllegalArgumentException("Unknown theme spec keys "
+                    + remaining.stringPropertyNames());
+        }
+        return builder;
+    }
+
+    private static boolean has(Properties properties, String key) {
+        return properties.containsKey(key);
+    }
+
+    /**
+     * Returns whether either key of a pair is present. Taking the pair then fails if the other
+     * is missing, since the builder can only set both. App bar weights work the same way.
+     */
+    private static boolean hasPair(Properties properties, String first, String second) {
+        return properties.containsKey(first) || properties.containsKey(second);
+    }
+
+    private static float take(Properties properties, String key) {
+        String value = (String) properties.remove(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Theme spec key " + key + " is missing");
+        }
+        try {
+            return Float.parseFloat(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Theme spec key " + key + " has non-numeric value '"
+                    + value + "'");
+        }
+    }
+
+    private static int pixels(float dp, float density) {
+        return (int) (dp * density + .5f);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+/**
+ * Derives the {@link ColorSet#colorVariant} and {@link ColorSet#colorOn} of a palette from its
+ * base colors, so palettes can grow without hand-picked variants.
+ *
+ * <p>The variant is the base color shifted by {@link #VARIANT_TONE_SHIFT} in Oklab
+ * lightness, keeping its hue and chroma and clipping each channel that falls out of gamut. That
+ * matches the darker variants of the Material palette to within a few sRGB steps on average;
+ * clipping rather than reducing chroma is what keeps saturated colors close to it. The
+ * on-color is black or white, whichever contrasts more with the base color.
+ *
+ * <p>Derived sets are memoized in a fixed-size, direct-mapped cache, so memory stays bounded
+ * however many distinct colors pass through. Entries are immutable and published through final
+ * fields, so the cache needs no locking; concurrent callers at worst derive a color twice.
+ */
+public final class TonalPalette {
+    /** Oklab lightness added to a base color to get its variant. */
+    public static final float VARIANT_TONE_SHIFT = -.155f;
+
+    /** Luminance below which white contrasts more than black. */
+    private static final double WHITE_ON_BELOW = Math.sqrt(.05 * 1.05) - .05;
+
+    private final ColorSet[] cache;
+
+    /** Creates a palette memoizing up to {@code cacheSize} colors, rounded to a power of two. */
+    public TonalPalette(int cacheSize) {
+        if (cacheSize < 1 || cacheSize > 1 << 24) {
+            throw new IllegalArgumentException("Invalid cache size " + cacheSize);
+        }
+        cache = new ColorSet[Integer.highestOneBit(cacheSize * 2 - 1)];
+    }
+
+    /** Returns the color set derived from {@code color}, from the cache when possible. */
+    public ColorSet get(int color) {
+        int slot = (int) SplitMix64.mix64(color) & (cache.length - 1);
+        ColorSet colorSet = cache[slot];
+        if (colorSet == null || colorSet.color != color) {
+            colorSet = derive(color);
+            cache[slot] = colorSet;
+        }
+        return colorSet;
+    }
+
+    /** Derives a color set from {@code color} without touching any cache. */
+    public static ColorSet derive(int color) {
+        return new ColorSet(color, variantOf(color, new float[3]), onColorOf(color));
+    }
+
+    /** Derives color sets for every color in {@code colors}. */
+    public static ColorSet[] deriveAll(int[] colors) {
+        int[] variants = new int[colors.length];
+        int[] onColors = new int[colors.length];
+        deriveAll(colors, variants, onColors, 0, colors.length);
+        return ColorSet.fromTables(colors, variants, onColors);
+    }
+
+    /**
+     * Writes the variant and on-color of {@code colors[from, to)} to the same positions of
+     * {@code variants} and {@code onColors}, allocating nothing.
+     */
+    public static void deriveAll(int[] colors, int[] variants, int[] onColors, int from, int to) {
+        float[] lab = new float[3];
+        for (int i = from; i < to; i++) {
+            variants[i] = variantOf(colors[i], lab);
+            onColors[i] = onColorOf(colors[i]);
+        }
+    }
+
+    private static int variantOf(int color, float[] lab) {
+        Oklab.fromColor(color, lab);
+        return Oklab.fixedToColor(fixed(lab[0] + VARIANT_TONE_SHIFT), fixed(lab[1]),
+                fixed(lab[2]));
+    }
+
+    private static int onColorOf(int color) {
+        return ContrastIndex.luminance(color) < WHITE_ON_BELOW ? 0xFFFFFFFF : 0xFF000000;
+    }
+
+    private static int fixed(float value) {
+        return Math.round(value * Oklab.ONE);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AliasTableTest {
+    @Test
+    public void sample_followsWeights() {
+        double[] weights = {1, 0, 5, 2, 0.5, 1.5};
+        AliasTable table = new AliasTable(weights);
+        int[] counts = new int[weights.length];
+        SplitMix64 random = new SplitMix64(11);
+        int draws = 1000000;
+        for (int i = 0; i < draws; i++) {
+            counts[table.sample(random)]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(weights[i] / 10, counts[i] / (double) draws, .003);
+        }
+    }
+
+    @Test
+    public void uniformWeights_drawLikeNextInt() {
+        AliasTable table = new AliasTable(new double[]{2, 2, 2, 2, 2, 2, 2});
+        SplitMix64 aliased = new SplitMix64(5);
+        SplitMix64 uniform = new SplitMix64(5);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(uniform.nextInt(7), table.sample(aliased));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsAllZeroWeights() {
+        new AliasTable(new double[]{0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNegativeWeights() {
+        new AliasTable(new double[]{1, -1});
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ColorGradientTest {
+
+    @Test
+    public void endpoints_matchRequestedColors() {
+        ColorGradient gradient = ColorGradient.of(0xFF3F51B5, 0x80E91E63);
+        assertEquals(0xFF3F51B5, gradient.getColor(0));
+        assertEquals(0x80E91E63, gradient.getColor(1));
+    }
+
+    @Test
+    public void samePair_sharesGradient() {
+        assertSame(ColorGradient.of(0xFF009688, 0xFFFF5722),
+                ColorGradient.of(0xFF009688, 0xFFFF5722));
+    }
+
+    @Test
+    public void redToBlue_doesNotPassThroughGreen() {
+        ColorGradient gradient = ColorGradient.of(0xFFFF0000, 0xFF0000FF);
+        for (int i = 0; i <= 16; i++) {
+            int color = gradient.getColor(i / 16f);
+            int green = (color >> 8) & 0xFF;
+            assertTrue(green < Math.max((color >> 16) & 0xFF, color & 0xFF));
+        }
+    }
+
+    @Test
+    public void grayRamp_staysNeutralAndMonotonic() {
+        ColorGradient gradient = ColorGradient.of(0xFF000000, 0xFFFFFFFF);
+        int previous = -1;
+        for (int i = 0; i < ColorGradient.STEPS; i++) {
+            int color = gradient.getColor(i / (float) (ColorGradient.STEPS - 1));
+            int red = (color >> 16) & 0xFF;
+            assertTrue(Math.abs(red - ((color >> 8) & 0xFF)) <= 1);
+            assertTrue(Math.abs(red - (color & 0xFF)) <= 1);
+            assertTrue(red >= previous);
+            previous = red;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContrastIndexTest {
+    private final ThemeSpec spec = ThemeSpec.materialDefaults(2.625f, 2.625f);
+
+    @Test
+    public void contrast_blackOnWhiteIsMaximal() {
+        assertEquals(21, ContrastIndex.contrast(0xFF000000, 0xFFFFFFFF), 1e-9);
+        assertEquals(1, ContrastIndex.contrast(0xFF3F51B5, 0xFF3F51B5), 1e-9);
+    }
+
+    @Test
+    public void generatedThemes_meetMinimumContrast() {
+        ThemeGenerator generator = new ThemeGenerator(spec);
+        generator.generateBatch(99, 2000, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                assertContrast(theme.colorPrimary.color, theme.colorPrimary.colorOn,
+                        ContrastIndex.AA_TEXT);
+                assertContrast(theme.colorSecondary.color, theme.colorSecondary.colorOn,
+                        ContrastIndex.AA_TEXT);
+                assertContrast(theme.colorSurface, theme.colorOnSurface, ContrastIndex.AA_TEXT);
+                assertContrast(theme.colorBackground, theme.colorOnBackground,
+                        ContrastIndex.AA_TEXT);
+                assertContrast(theme.colorPrimary.color, theme.colorSurface,
+                        ContrastIndex.AA_COMPONENT);
+                assertContrast(theme.colorSecondary.color, theme.colorSurface,
+                        ContrastIndex.AA_COMPONENT);
+            }
+        });
+    }
+
+    @Test
+    public void builtInTables_reportFailingOnColors() {
+        ContrastIndex index = new ContrastIndex(spec);
+        List<String> invalid = index.describeInvalidEntries();
+        assertFalse(invalid.isEmpty());
+
+        // Light themes draw from the dark palette, whose first failing entry must be excluded
+        for (int i = 0; i < PaletteTables.DARK_COLOR.length; i++) {
+            if (ContrastIndex.contrast(PaletteTables.DARK_COLOR[i], PaletteTables.DARK_COLOR_ON[i])
+                    < ContrastIndex.AA_TEXT) {
+                assertFalse(index.isValid(false, 0, i));
+                return;
+            }
+        }
+    }
+
+    @Test
+    public void disabledThresholds_acceptEveryCombination() {
+        ThemeSpec permissive = new ThemeSpec.Builder().setMinimumContrast(1, 1).build();
+        ContrastIndex index = new ContrastIndex(permissive);
+        assertTrue(index.describeInvalidEntries().isEmpty());
+        assertEquals(permissive.darkColors.length * permissive.lightSurfaceColors.length,
+                index.getValidCombinationCount(false));
+    }
+
+    private static void assertContrast(int first, int second, float minimum) {
+        assertTrue(ContrastIndex.contrast(first, second) >= minimum);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class FavoritesStoreTest {
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+    private File path;
+
+    @Before
+    public void createPath() throws IOException {
+        path = File.createTempFile("favorites", ".bin");
+        path.delete();
+    }
+
+    @After
+    public void deletePath() {
+        path.delete();
+    }
+
+    @Test
+    public void reopen_returnsAddedThemesInOrder() throws IOException {
+        FavoritesStore store = FavoritesStore.open(path, generator.getKeyCodec());
+        for (int i = 0; i < 1000; i++) {
+            store.add(generator.generate(i));
+        }
+        store.close();
+
+        store = FavoritesStore.open(path, generator.getKeyCodec());
+        assertEquals(1000, store.size());
+        for (int i = 0; i < 1000; i++) {
+            ThemeGeneratorTest.assertThemesEqual(generator.generate(i), store.get(i));
+        }
+        store.close();
+    }
+
+    @Test
+    public void indexOf_findsAddedThemes() throws IOException {
+        FavoritesStore store = FavoritesStore.open(path, generator.getKeyCodec());
+        store.add(generator.generate(1));
+        store.add(generator.generate(2));
+
+        assertEquals(1, store.indexOf(generator.generate(2)));
+        assertEquals(-1, store.indexOf(generator.generate(3)));
+        store.close();
+    }
+
+    @Test
+    public void indexOf_findsFirstCopyAfterGrowingAndReopening() throws IOException {
+        FavoritesStore store = FavoritesStore.open(path, generator.getKeyCodec());
+        for (int i = 0; i < 300; i++) {
+            store.add(generator.generate(i));
+        }
+        store.add(generator.generate(7));
+        store.close();
+
+        store = FavoritesStore.open(path, generator.getKeyCodec());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i, store.indexOf(generator.generate(i)));
+        }
+        assertEquals(-1, store.indexOf(generator.generate(300)));
+        store.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsStoreFromDifferentPalette() throws IOException {
+        FavoritesStore.open(path, generator.getKeyCodec()).close();
+
+        ThemeSpec otherSpec = new ThemeSpec.Builder()
+                .setSurfaceColors(new int[] {0xFFFAFAFA}, new int[] {0xFF202020})
+                .build();
+        FavoritesStore.open(path, new ThemeKeyCodec(otherSpec));
+    }
+}
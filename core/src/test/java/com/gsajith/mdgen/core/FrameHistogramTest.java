@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameHistogramTest {
+
+    @Test
+    public void percentiles_roundUpToBucketBoundary() {
+        FrameHistogram histogram = new FrameHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(16400000);
+        }
+        histogram.record(40000000);
+        histogram.record(250000000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(17, histogram.getPercentileMillis(50), 0);
+        assertEquals(17, histogram.getPercentileMillis(95), 0);
+        assertEquals(41, histogram.getPercentileMillis(99), 0);
+        assertEquals(250, histogram.getPercentileMillis(100), 0);
+    }
+
+    @Test
+    public void clear_resetsEverything() {
+        FrameHistogram histogram = new FrameHistogram();
+        histogram.record(16000000);
+        histogram.clear();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileMillis(50), 0);
+    }
+}
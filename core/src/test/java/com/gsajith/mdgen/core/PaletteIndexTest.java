@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PaletteIndexTest {
+    private final ThemeSpec spec = ThemeSpec.materialDefaults(2.625f, 2.625f);
+    private final ThemeGenerator generator = new ThemeGenerator(spec);
+
+    @Test
+    public void nearest_matchesBruteForce() {
+        int[] colors = new int[200];
+        Random random = new Random(7);
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = 0xFF000000 | random.nextInt(0x1000000);
+        }
+        PaletteIndex index = new PaletteIndex(colors);
+        int[] nearest = new int[5];
+
+        for (int query = 0; query < 500; query++) {
+            int color = 0xFF000000 | random.nextInt(0x1000000);
+            assertEquals(5, index.nearest(color, nearest));
+            double previous = -1;
+            for (int i = 0; i < nearest.length; i++) {
+                double distance = distance(color, colors[nearest[i]]);
+                assertTrue(distance >= previous);
+                assertEquals(rankedDistance(color, colors, i), distance, 1e-6);
+                previous = distance;
+            }
+        }
+    }
+
+    @Test
+    public void nearest_returnsPaletteEntryForItsOwnColor() {
+        PaletteIndex index = PaletteIndex.of(spec.lightColors);
+        for (int i = 0; i < spec.lightColors.length; i++) {
+            int nearest = index.nearest(spec.lightColors[i].color);
+            assertEquals(spec.lightColors[i].color, spec.lightColors[nearest].color);
+        }
+        assertEquals(-1, new PaletteIndex(new int[0]).nearest(0xFF000000));
+    }
+
+    @Test
+    public void generateFromSeedColor_usesNearestValidPrimary() {
+        ContrastIndex contrastIndex = new ContrastIndex(spec);
+        for (int i = 0; i < 200; i++) {
+            int accent = i % spec.darkColors.length;
+            int seedColor = spec.darkColors[accent].color;
+            MaterialTheme theme = generator.generateFromSeedColor(seedColor, i);
+            if (!theme.isDarkTheme && contrastIndex.hasValidSurface(false, accent)) {
+                assertEquals(seedColor, theme.colorPrimary.color);
+            }
+            assertTrue(ContrastIndex.contrast(theme.colorPrimary.color, theme.colorSurface)
+                    >= spec.minComponentContrast);
+            assertTrue(ContrastIndex.contrast(theme.colorSecondary.color, theme.colorSurface)
+                    >= spec.minComponentContrast);
+        }
+    }
+
+    @Test
+    public void generateBatchFromSeedColors_matchesSingleThemes() {
+        final int[] seedColors = {0xFF2196F3, 0xFFE91E63, 0xFF4CAF50, 0xFFFFEB3B, 0xFF000000};
+        generator.generateBatchFromSeedColors(seedColors, 42, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                ThemeGeneratorTest.assertThemesEqual(generator.generateFromSeedColor(
+                        seedColors[index], ThemeGenerator.seedForIndex(42, index)), theme);
+            }
+        });
+    }
+
+    @Test
+    public void generateBatchFromSeedColors_cyclesThroughColorsInPieces() {
+        final int[] seedColors = {0xFF2196F3, 0xFFE91E63, 0xFF4CAF50};
+        generator.generateBatchFromSeedColors(seedColors, 42, 4, 11, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                ThemeGeneratorTest.assertThemesEqual(generator.generateFromSeedColor(
+                        seedColors[index % 3], ThemeGenerator.seedForIndex(42, index)), theme);
+            }
+        });
+    }
+
+    private static double rankedDistance(int color, int[] colors, int rank) {
+        double[] distances = new double[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            distances[i] = distance(color, colors[i]);
+        }
+        Arrays.sort(distances);
+        return distances[rank];
+    }
+
+    private static double distance(int first, int second) {
+        float[] a = new float[3];
+        float[] b = new float[3];
+        Oklab.fromColor(first, a);
+        Oklab.fromColor(second, b);
+        double dl = a[0] - b[0];
+        double da = a[1] - b[1];
+        double db = a[2] - b[2];
+        return dl * dl + da * da + db * db;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SeenThemeFilterTest {
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+    private File path;
+
+    @Before
+    public void createPath() throws IOException {
+        path = File.createTempFile("seen", ".bin");
+        path.delete();
+    }
+
+    @After
+    public void deletePath() {
+        path.delete();
+    }
+
+    @Test
+    public void reopen_remembersAddedKeys() throws IOException {
+        SeenThemeFilter filter = SeenThemeFilter.open(path, generator.getKeyCodec(), 10000);
+        for (long key = 0; key < 5000; key++) {
+            filter.add(key * 977);
+        }
+        filter.close();
+
+        filter = SeenThemeFilter.open(path, generator.getKeyCodec(), 10000);
+        assertEquals(5000, filter.getCurrentCount());
+        for (long key = 0; key < 5000; key++) {
+            assertTrue(filter.mightContain(key * 977));
+        }
+        filter.close();
+    }
+
+    @Test
+    public void mightContain_rarelyReportsUnseenKeys() throws IOException {
+        SeenThemeFilter filter = SeenThemeFilter.open(path, generator.getKeyCodec(), 100000);
+        for (long key = 0; key < 100000; key++) {
+            filter.add(key);
+        }
+        int falsePositives = 0;
+        for (long key = 100000; key < 300000; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        filter.close();
+        assertTrue("false positive rate " + falsePositives / 200000.0,
+                falsePositives < 200000 * .015);
+    }
+
+    @Test
+    public void add_forgetsKeysTwoGenerationsOld() throws IOException {
+        SeenThemeFilter filter = SeenThemeFilter.open(path, generator.getKeyCodec(), 1000);
+        long firstRotation = -1;
+        long key = 0;
+        for (int rotations = 0; rotations < 2; key++) {
+            int count = filter.getCurrentCount();
+            filter.add(key);
+            if (filter.getCurrentCount() < count) {
+                rotations++;
+                if (firstRotation < 0) {
+                    firstRotation = key;
+                }
+            }
+        }
+
+        int remembered = 0;
+        for (long old = 0; old < firstRotation; old++) {
+            if (filter.mightContain(old)) {
+                remembered++;
+            }
+        }
+        assertTrue(remembered < firstRotation / 20);
+        for (long recent = firstRotation; recent < key; recent++) {
+            assertTrue(filter.mightContain(recent));
+        }
+        filter.close();
+    }
+
+    @Test
+    public void generateUnseen_skipsSeenThemes() throws IOException {
+        SeenThemeFilter filter = SeenThemeFilter.open(path, generator.getKeyCodec(), 1000);
+        MaterialTheme first = generator.generate(42);
+        ThemeGeneratorTest.assertThemesEqual(first, generator.generateUnseen(42, filter, 8));
+
+        filter.add(first);
+        MaterialTheme next = generator.generateUnseen(42, filter, 8);
+        assertFalse(filter.mightContain(next));
+        filter.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsDifferentCapacity() throws IOException {
+        SeenThemeFilter.open(path, generator.getKeyCodec(), 1000).close();
+        SeenThemeFilter.open(path, generator.getKeyCodec(), 2000);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeExporterTest {
+    private static final int COUNT = 25;
+
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+    private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream colors = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream dimens = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream styles = new ByteArrayOutputStream();
+
+    @Test
+    public void export_writesOneJsonLinePerTheme() throws Exception {
+        export();
+        String[] lines = json.toString("US-ASCII").split("\n");
+        assertEquals(COUNT, lines.length);
+
+        MaterialTheme first = generator.generate(ThemeGenerator.seedForIndex(7, 0));
+        assertTrue(lines[0].startsWith("{\"index\":0,\"isDarkTheme\":" + first.isDarkTheme
+                + ",\"colorPrimary\":{\"color\":\""
+                + String.format("#%08X", first.colorPrimary.color) + "\""));
+        assertTrue(lines[0].endsWith("}"));
+    }
+
+    @Test
+    public void export_writesWellFormedResources() throws Exception {
+        export();
+        assertEquals(COUNT * 12, parse(colors).getElementsByTagName("color").getLength());
+        assertEquals(COUNT * 7, parse(dimens).getElementsByTagName("dimen").getLength());
+        assertEquals(COUNT * 4, parse(styles).getElementsByTagName("style").getLength());
+    }
+
+    @Test
+    public void toJsonLines_writesOnlyJson() throws Exception {
+        ThemeExporter exporter = ThemeExporter.toJsonLines(Channels.newChannel(json));
+        generator.generateBatch(7, 5, COUNT, exporter);
+        exporter.close();
+
+        String[] lines = json.toString("US-ASCII").split("\n");
+        assertEquals(COUNT - 5, lines.length);
+        assertTrue(lines[0].startsWith("{\"index\":5,"));
+        assertEquals(json.size(), exporter.getBytesWritten());
+    }
+
+    @Test
+    public void writer_roundsDecimalsToFixedPlaces() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ChannelWriter writer = new ChannelWriter(Channels.newChannel(out));
+        writer.write(1.005f, 2).write(' ').write(-0.0001f, 2).write(' ').write(-12.5f, 1)
+                .write(' ').write(0.17f, 4);
+        writer.close();
+        assertEquals("1.00 0.00 -12.5 0.1700", out.toString("US-ASCII"));
+    }
+
+    private void export() throws Exception {
+        ThemeExporter exporter = new ThemeExporter(Channels.newChannel(json),
+                Channels.newChannel(colors), Channels.newChannel(dimens),
+                Channels.newChannel(styles), 2.625f, 2.625f);
+        generator.generateBatch(7, COUNT, exporter);
+        exporter.close();
+        assertEquals(COUNT, exporter.getThemeCount());
+        assertEquals(json.size() + colors.size() + dimens.size() + styles.size(),
+                exporter.getBytesWritten());
+    }
+
+    private static Document parse(ByteArrayOutputStream xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(xml.toByteArray()));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class ThemeGeneratorTest {
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+
+    @Test
+    public void sameSeed_generatesSameTheme() {
+        assertThemesEqual(generator.generate(42), generator.generate(42));
+    }
+
+    @Test
+    public void differentSeeds_generateDifferentThemes() {
+        MaterialTheme first = generator.generate(1);
+        MaterialTheme second = generator.generate(2);
+        assertNotEquals(first.smallTextSize, second.smallTextSize, 0f);
+    }
+
+    @Test
+    public void batch_matchesIndividualGeneration() {
+        final long seed = 1234;
+        generator.generateBatch(seed, 100, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                assertThemesEqual(generator.generate(ThemeGenerator.seedForIndex(seed, index)),
+                        theme);
+            }
+        });
+    }
+
+    @Test
+    public void parallel_matchesBatchWhateverTheParallelism() {
+        long[] expected = encodeBatch(5000);
+        for (int parallelism = 1; parallelism <= 4; parallelism++) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                final long[] keys = new long[2 * 5000];
+                generator.generateParallel(99, 5000, pool, new ThemeSink() {
+                    @Override
+                    public void accept(int index, MaterialTheme theme) {
+                        keys[2 * index] = generator.getKeyCodec().encodeHigh(theme);
+                        keys[2 * index + 1] = generator.getKeyCodec().encodeLow(theme);
+                    }
+                });
+                assertArrayEquals(expected, keys);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private long[] encodeBatch(int count) {
+        final long[] keys = new long[2 * count];
+        generator.generateBatch(99, count, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                keys[2 * index] = generator.getKeyCodec().encodeHigh(theme);
+                keys[2 * index + 1] = generator.getKeyCodec().encodeLow(theme);
+            }
+        });
+        return keys;
+    }
+
+    static void assertThemesEqual(MaterialTheme expected, MaterialTheme actual) {
+        assertEquals(expected.isDarkTheme, actual.isDarkTheme);
+        assertSame(expected.colorPrimary, actual.colorPrimary);
+        assertSame(expected.colorSecondary, actual.colorSecondary);
+        assertEquals(expected.colorBackground, actual.colorBackground);
+        assertEquals(expected.colorSurface, actual.colorSurface);
+        assertEquals(expected.colorOnSurface, actual.colorOnSurface);
+        assertEquals(expected.colorOnBackground, actual.colorOnBackground);
+        assertEquals(expected.colorError, actual.colorError);
+        assertEquals(expected.colorOnError, actual.colorOnError);
+        assertEquals(expected.cornerFamily, actual.cornerFamily);
+        assertEquals(expected.smallCornerSize, actual.smallCornerSize);
+        assertEquals(expected.mediumCornerSize, actual.mediumCornerSize);
+        assertEquals(expected.elevation, actual.elevation, 0f);
+        assertEquals(expected.letterSpacingSmall, actual.letterSpacingSmall, 0f);
+        assertEquals(expected.smallTextSize, actual.smallTextSize, 0f);
+        assertEquals(expected.smallPadding, actual.smallPadding, 0f);
+        assertEquals(expected.smallTextAllCaps, actual.smallTextAllCaps);
+        assertEquals(expected.mediumPadding, actual.mediumPadding, 0f);
+        assertEquals(expected.xSmallPadding, actual.xSmallPadding, 0f);
+        assertEquals(expected.appBarVisibility, actual.appBarVisibility);
+        assertEquals(expected.isOutlinedTextField, actual.isOutlinedTextField);
+    }
+}
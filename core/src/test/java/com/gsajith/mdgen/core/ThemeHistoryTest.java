@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeHistoryTest {
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+
+    @Test
+    public void backAndForward_returnPushedThemes() {
+        ThemeHistory history = new ThemeHistory(generator.getKeyCodec(), 10);
+        for (int i = 0; i < 5; i++) {
+            history.push(generator.generate(i));
+        }
+
+        assertFalse(history.canGoForward());
+        for (int i = 3; i >= 0; i--) {
+            ThemeGeneratorTest.assertThemesEqual(generator.generate(i), history.back());
+        }
+        assertFalse(history.canGoBack());
+        for (int i = 1; i < 5; i++) {
+            ThemeGeneratorTest.assertThemesEqual(generator.generate(i), history.forward());
+        }
+        assertFalse(history.canGoForward());
+    }
+
+    @Test
+    public void push_discardsForwardThemes() {
+        ThemeHistory history = new ThemeHistory(generator.getKeyCodec(), 10);
+        history.push(generator.generate(1));
+        history.push(generator.generate(2));
+        history.push(generator.generate(3));
+        history.back();
+        history.back();
+        history.push(generator.generate(4));
+
+        assertEquals(2, history.size());
+        assertFalse(history.canGoForward());
+        ThemeGeneratorTest.assertThemesEqual(generator.generate(1), history.back());
+    }
+
+    @Test
+    public void push_dropsOldestThemeWhenFull() {
+        ThemeHistory history = new ThemeHistory(generator.getKeyCodec(), 3);
+        for (int i = 0; i < 7; i++) {
+            history.push(generator.generate(i));
+        }
+
+        assertEquals(3, history.size());
+        ThemeGeneratorTest.assertThemesEqual(generator.generate(5), history.back());
+        ThemeGeneratorTest.assertThemesEqual(generator.generate(4), history.back());
+        assertFalse(history.canGoBack());
+        assertTrue(history.canGoForward());
+    }
+
+    @Test
+    public void internedHistory_returnsSharedThemes() {
+        ThemeInterner interner = new ThemeInterner(generator.getKeyCodec(), 16);
+        ThemeHistory history = new ThemeHistory(interner, 10);
+        history.push(generator.generate(1));
+        history.push(generator.generate(2));
+
+        MaterialTheme first = history.back();
+        history.forward();
+        ThemeGeneratorTest.assertThemesEqual(generator.generate(1), first);
+        assertSame(first, history.back());
+        assertEquals(2, interner.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsOversizedCapacity() {
+        new ThemeHistory(generator.getKeyCodec(), ThemeHistory.MAX_CAPACITY + 1);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeKeyCodecTest {
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(2.625f, 2.625f));
+    private final ThemeKeyCodec codec = generator.getKeyCodec();
+
+    @Test
+    public void generatedThemes_roundTripExactly() {
+        final long[] keys = new long[2 * 1000];
+        generator.generateBatch(5, 1000, new ThemeSink() {
+            @Override
+            public void accept(int index, MaterialTheme theme) {
+                codec.encode(theme, keys, index);
+                ThemeGeneratorTest.assertThemesEqual(theme,
+                        codec.decode(keys[2 * index], keys[2 * index + 1]));
+            }
+        });
+    }
+
+    @Test
+    public void keys_surviveDensityAndFontScaleChanges() {
+        ThemeKeyCodec other = new ThemeGenerator(ThemeSpec.materialDefaults(2f, 2.4f))
+                .getKeyCodec();
+        assertEquals(codec.getFingerprint(), other.getFingerprint());
+
+        float scale = 2f / 2.625f;
+        float fontScale = 2.4f / 2.625f;
+        for (int i = 0; i < 200; i++) {
+            MaterialTheme theme = generator.generate(i);
+            MaterialTheme moved = other.decode(codec.encodeHigh(theme), codec.encodeLow(theme));
+            assertEquals(theme.colorPrimary.color, moved.colorPrimary.color);
+            assertEquals(theme.smallTextSize * fontScale, moved.smallTextSize, .01f);
+            assertEquals(theme.smallPadding * scale, moved.smallPadding, .01f);
+            assertEquals(theme.letterSpacingSmall, moved.letterSpacingSmall, 1e-4f);
+            assertEquals(theme.mediumCornerSize * scale, moved.mediumCornerSize, 1.5f);
+            assertEquals(theme.smallCornerSize * scale, moved.smallCornerSize, 1.5f);
+        }
+    }
+
+    @Test
+    public void interner_sharesEqualThemes() {
+        ThemeInterner interner = new ThemeInterner(codec, 16);
+        MaterialTheme first = interner.intern(generator.generate(11));
+        MaterialTheme second = interner.intern(generator.generate(11));
+        MaterialTheme other = interner.intern(generator.generate(12));
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void interner_keepsEveryThemeUpToItsSize() {
+        ThemeInterner interner = new ThemeInterner(codec, 500);
+        MaterialTheme[] themes = new MaterialTheme[500];
+        for (int i = 0; i < themes.length; i++) {
+            themes[i] = interner.intern(generator.generate(i));
+        }
+        for (int i = 0; i < themes.length; i++) {
+            assertSame(themes[i], interner.intern(generator.generate(i)));
+        }
+    }
+
+    @Test
+    public void interner_startsOverOnceFull() {
+        ThemeInterner interner = new ThemeInterner(codec, 10);
+        MaterialTheme first = interner.intern(generator.generate(0));
+        for (int i = 1; i < 25; i++) {
+            interner.intern(generator.generate(i));
+            assertTrue(interner.size() <= 10);
+        }
+
+        MaterialTheme again = interner.intern(generator.generate(0));
+        assertNotSame(first, again);
+        assertSame(again, interner.intern(generator.generate(0)));
+    }
+}
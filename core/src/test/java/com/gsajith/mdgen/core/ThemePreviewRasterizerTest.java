@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ThemePreviewRasterizerTest {
+    private static final float DENSITY = 2.625f;
+    private static final float WIDTH = 240;
+    private static final float HEIGHT = 360;
+
+    private final ThemeGenerator generator = new ThemeGenerator(
+            ThemeSpec.materialDefaults(DENSITY, DENSITY));
+    private final ThemePreviewRasterizer rasterizer = new ThemePreviewRasterizer(DENSITY);
+
+    @Test
+    public void draw_staysInsideOutputBounds() {
+        for (int i = 0; i < 200; i++) {
+            RecordingCanvas canvas = draw(generator.generate(i));
+            assertEquals(0, canvas.depth);
+            for (float[] bounds : canvas.bounds) {
+                assertTrue(bounds[0] >= 0 && bounds[2] <= WIDTH);
+                assertTrue(bounds[1] >= 0 && bounds[3] <= HEIGHT);
+            }
+        }
+    }
+
+    @Test
+    public void draw_showsOnlyTheThemesAppBar() {
+        MaterialTheme theme = generator.generate(1);
+
+        theme.appBarVisibility = MaterialTheme.APP_BAR_TOP;
+        RecordingCanvas canvas = draw(theme);
+        assertTrue(canvas.texts.contains("Material Design Generator")
+                || canvas.texts.contains("MATERIAL DESIGN GENERATOR"));
+        assertFalse(canvas.circleColors.contains(theme.colorSecondary.color));
+
+        theme.appBarVisibility = MaterialTheme.APP_BAR_BOTTOM;
+        canvas = draw(theme);
+        assertEquals(5, canvas.texts.size());
+        assertTrue(canvas.circleColors.contains(theme.colorSecondary.color));
+    }
+
+    @Test
+    public void draw_followsOutlineAndCaseSettings() {
+        MaterialTheme theme = generator.generate(2);
+        theme.appBarVisibility = MaterialTheme.APP_BAR_NONE;
+
+        theme.isOutlinedTextField = true;
+        theme.smallTextAllCaps = true;
+        RecordingCanvas canvas = draw(theme);
+        assertEquals(3, canvas.strokes);
+        assertTrue(canvas.texts.contains("NEXT"));
+
+        theme.isOutlinedTextField = false;
+        theme.smallTextAllCaps = false;
+        canvas = draw(theme);
+        assertEquals(1, canvas.strokes);
+        assertTrue(canvas.texts.contains("Next"));
+    }
+
+    private RecordingCanvas draw(MaterialTheme theme) {
+        RecordingCanvas canvas = new RecordingCanvas();
+        rasterizer.draw(theme, canvas, WIDTH, HEIGHT);
+        return canvas;
+    }
+
+    private static final class RecordingCanvas implements PreviewCanvas {
+        final List<float[]> bounds = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        final List<Integer> circleColors = new ArrayList<>();
+        int strokes;
+        int depth;
+
+        @Override
+        public void fillRect(float left, float top, float right, float bottom, int color) {
+            bounds.add(new float[] {left, top, right, bottom});
+        }
+
+        @Override
+        public void fillShape(float left, float top, float right, float bottom,
+                int cornerFamily, float cornerSize, int color) {
+            bounds.add(new float[] {left, top, right, bottom});
+        }
+
+        @Override
+        public void strokeShape(float left, float top, float right, float bottom,
+                int cornerFamily, float cornerSize, float strokeWidth, int color) {
+            bounds.add(new float[] {left, top, right, bottom});
+            strokes++;
+        }
+
+        @Override
+        public void fillCircle(float centerX, float centerY, float radius, int color) {
+            bounds.add(new float[] {
+                    centerX - radius, centerY - radius, centerX + radius, centerY + radius});
+            circleColors.add(color);
+        }
+
+        @Override
+        public void drawShadow(float left, float top, float right, float bottom,
+                int cornerFamily, float cornerSize, float elevation) {
+        }
+
+        @Override
+        public void clipShape(float left, float top, float right, float bottom,
+                int cornerFamily, float cornerSize) {
+            depth++;
+        }
+
+        @Override
+        public void restore() {
+            depth--;
+        }
+
+        @Override
+        public float measureText(String text, float textSize, float letterSpacing) {
+            return text.length() * textSize * (.5f + letterSpacing);
+        }
+
+        @Override
+        public void drawText(String text, float x, float baseline, float textSize,
+                float letterSpacing, int color) {
+            texts.add(text);
+        }
+    }
+}
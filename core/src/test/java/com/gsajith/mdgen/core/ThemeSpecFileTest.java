@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ThemeSpecFileTest {
+    @Test
+    public void read_appliesProbabilitiesAndRanges() throws Exception {
+        ThemeSpec spec = read("dark.probability = 1\n"
+                + "corners.cut.probability = 0\n"
+                + "appBar.top.weight = 0\nappBar.bottom.weight = 1\nappBar.none.weight = 0\n"
+                + "smallTextSize.min = 10\nsmallTextSize.max = 11\n");
+        ThemeGenerator generator = new ThemeGenerator(spec);
+        for (int i = 0; i < 200; i++) {
+            MaterialTheme theme = generator.generate(i);
+            assertTrue(theme.isDarkTheme);
+            assertEquals(MaterialTheme.CORNER_ROUNDED, theme.cornerFamily);
+            assertEquals(MaterialTheme.APP_BAR_BOTTOM, theme.appBarVisibility);
+            assertTrue(theme.smallTextSize >= 20 && theme.smallTextSize <= 22);
+        }
+    }
+
+    @Test
+    public void familyWeights_skewPaletteDraws() throws Exception {
+        StringBuilder file = new StringBuilder("dark.probability = 0\n");
+        for (String family : ThemeSpec.getFamilyNames()) {
+            file.append("family.").append(family).append(".weight = ")
+                    .append(family.equals("Indigo") ? 1 : 0).append('\n');
+        }
+        ThemeSpec spec = read(file.toString());
+        ThemeGenerator generator = new ThemeGenerator(spec);
+        for (int i = 0; i < 200; i++) {
+            MaterialTheme theme = generator.generate(i);
+            assertEquals("Indigo", familyOf(theme.colorPrimary));
+            assertEquals("Indigo", familyOf(theme.colorSecondary));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_rejectsUnknownKeys() throws Exception {
+        read("dark.probabilty = .5\n");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_rejectsHalfARange() throws Exception {
+        read("elevation.min = 1\n");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void read_rejectsOutOfRangeProbabilities() throws Exception {
+        read("corners.cut.probability = 1.5\n");
+    }
+
+    @Test
+    public void defaults_matchMaterialDefaults() throws Exception {
+        ThemeGenerator file = new ThemeGenerator(read(""));
+        ThemeGenerator defaults = new ThemeGenerator(ThemeSpec.materialDefaults(2, 2));
+        for (int i = 0; i < 100; i++) {
+            MaterialTheme expected = defaults.generate(i);
+            MaterialTheme actual = file.generate(i);
+            assertEquals(defaults.getKeyCodec().encodeHigh(expected),
+                    file.getKeyCodec().encodeHigh(actual));
+            assertEquals(defaults.getKeyCodec().encodeLow(expected),
+                    file.getKeyCodec().encodeLow(actual));
+        }
+    }
+
+    private static ThemeSpec read(String file) throws Exception {
+        return ThemeSpecFile.read(new StringReader(file), 2, 2);
+    }
+
+    private static String familyOf(ColorSet colorSet) {
+        for (int i = 0; i < PaletteTables.DARK_COLOR.length; i++) {
+            if (PaletteTables.DARK_COLOR[i] == colorSet.color) {
+                return PaletteTables.FAMILY_NAMES[PaletteTables.DARK_FAMILY[i]];
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 Gautham Sajith
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gsajith.mdgen.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TonalPaletteTest {
+    @Test
+    public void derive_approximatesMaterialVariants() {
+        int[] colors = PaletteTables.LIGHT_COLOR;
+        int[] variants = PaletteTables.LIGHT_COLOR_VARIANT;
+        long totalError = 0;
+        for (int i = 0; i < colors.length; i++) {
+            totalError += maxChannelError(TonalPalette.derive(colors[i]).colorVariant,
+                    variants[i]);
+        }
+        assertTrue(totalError < 8 * colors.length);
+    }
+
+    @Test
+    public void derive_picksTheHigherContrastOnColor() {
+        int[] colors = {0xFFFFFFFF, 0xFF000000, 0xFFFFEB3B, 0xFF3F51B5, 0xFF777777, 0xFF767676};
+        for (int color : colors) {
+            int onColor = TonalPalette.derive(color).colorOn;
+            int other = onColor == 0xFFFFFFFF ? 0xFF000000 : 0xFFFFFFFF;
+            assertTrue(ContrastIndex.contrast(color, onColor)
+                    >= ContrastIndex.contrast(color, other));
+        }
+    }
+
+    @Test
+    public void deriveAll_matchesDerive() {
+        int[] colors = {0xFFE91E63, 0xFF009688, 0xFFCDDC39, 0xFF212121};
+        ColorSet[] colorSets = TonalPalette.deriveAll(colors);
+        for (int i = 0; i < colors.length; i++) {
+            ColorSet expected = TonalPalette.derive(colors[i]);
+            assertEquals(expected.color, colorSets[i].color);
+            assertEquals(expected.colorVariant, colorSets[i].colorVariant);
+            assertEquals(expected.colorOn, colorSets[i].colorOn);
+        }
+    }
+
+    @Test
+    public void get_memoizesWithinCapacity() {
+        TonalPalette palette = new TonalPalette(16);
+        ColorSet first = palette.get(0xFF2196F3);
+        assertSame(first, palette.get(0xFF2196F3));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0xFF000000 | i * 7919, palette.get(0xFF000000 | i * 7919).color);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyCache() {
+        new TonalPalette(0);
+    }
+
+    private static int maxChannelError(int first, int second) {
+        int error = 0;
+        for (int shift = 0; shift < 24; shift += 8) {
+            error = Math.max(error, Math.abs((first >> shift & 0xFF) - (second >> shift & 0xFF)));
+        }
+        return error;
+    }
+}